@@ -0,0 +1,52 @@
+package com.rrg.urlshortener.benchmark;
+
+import com.rrg.urlshortener.UrlShortenerApplication;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+/**
+ * The application context without its web server, backed by an embedded REDIS on a free port, shared by every
+ * benchmark of a fork.
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+
+    private RedisServer redisServer;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        var port = freePort();
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        context = new SpringApplicationBuilder(UrlShortenerApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.data.redis.port=" + port, "--logging.level.root=WARN");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        context.close();
+        redisServer.stop();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    private static int freePort() throws IOException {
+        try (var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.rrg.urlshortener.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.rrg.urlshortener.controller.UrlsApiController;
+import com.rrg.urlshortener.model.ClickSeries;
+import com.rrg.urlshortener.model.ClickSources;
+import com.rrg.urlshortener.model.CreationResult;
+import com.rrg.urlshortener.model.Granularity;
+import com.rrg.urlshortener.model.HotLinks;
+import com.rrg.urlshortener.model.ShortUrlRequest;
+import com.rrg.urlshortener.model.Url;
+import com.rrg.urlshortener.model.UrlPage;
+import com.rrg.urlshortener.model.VisitSource;
+import com.rrg.urlshortener.openapi.model.ShortUrlCreateDto;
+import com.rrg.urlshortener.service.UrlService;
+import com.rrg.urlshortener.util.VisitSourceResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DTO conversion and JSON serialisation in the controller, with a service returning fixed results so nothing else
+ * is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ControllerBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    private UrlsApiController controller;
+    private ObjectMapper objectMapper;
+    private ShortUrlCreateDto createDto;
+
+    @Setup
+    public void setup() {
+        var url = new Url();
+        url.setShortUrlId("AbCdEfG");
+        url.setFullUrl("https://www.example.com/some/path");
+        url.setVisits(42);
+        controller = new UrlsApiController(new FixedUrlService(url), new VisitSourceResolver(), null);
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        createDto = new ShortUrlCreateDto();
+        createDto.setFullUrl(url.getFullUrl());
+    }
+
+    @Benchmark
+    public byte[] createShortUrl() throws Exception {
+        return objectMapper.writeValueAsBytes(controller.createShortUrl(createDto).getBody());
+    }
+
+    @Benchmark
+    public byte[] getMetricsByShortUrlId() throws Exception {
+        return objectMapper.writeValueAsBytes(controller.getMetricsByShortUrlId("AbCdEfG").getBody());
+    }
+
+    @Benchmark
+    public byte[] getShortUrlIdsByFullUrl() throws Exception {
+        return objectMapper.writeValueAsBytes(controller.getShortUrlIdsByFullUrl("https://www.example.com/some/path",
+                null, null).getBody());
+    }
+
+    private static class FixedUrlService implements UrlService {
+
+        private final Url url;
+        private final UrlPage page;
+
+        FixedUrlService(Url url) {
+            this.url = url;
+            var urls = new ArrayList<Url>(PAGE_SIZE);
+            for (var i = 0; i < PAGE_SIZE; i++) {
+                urls.add(url);
+            }
+            this.page = new UrlPage(urls, "112");
+        }
+
+        @Override
+        public Url createShortUrl(String fullUrl, Boolean deduplicate, Instant expiresAt) {
+            return url;
+        }
+
+        @Override
+        public List<CreationResult> createShortUrls(List<ShortUrlRequest> requests) {
+            return requests.stream().map(request -> CreationResult.created(url)).toList();
+        }
+
+        @Override
+        public Url getUrlByShortUrlId(String shortUrlId) {
+            return url;
+        }
+
+        @Override
+        public Long countUniqueVisitors(String shortUrlId) {
+            return null;
+        }
+
+        @Override
+        public Map<String, Url> getUrlsByShortUrlIds(List<String> shortUrlIds) {
+            return Map.of(url.getShortUrlId(), url);
+        }
+
+        @Override
+        public UrlPage getUrlsByFullUrl(String fullUrl, String cursor, Integer count) {
+            return page;
+        }
+
+        @Override
+        public Url saveUrl(String fullUrl, String shortUrlId) {
+            return url;
+        }
+
+        @Override
+        public HttpHeaders processRedirection(String shortUrlId, VisitSource source) {
+            return new HttpHeaders();
+        }
+
+        @Override
+        public String resolveRedirection(String shortUrlId, VisitSource source) {
+            return url.getFullUrl();
+        }
+
+        @Override
+        public void incrementVisits(String shortUrlId) {
+        }
+
+        @Override
+        public ClickSeries getClicks(String shortUrlId, String granularity, Instant from, Instant to) {
+            return new ClickSeries(Granularity.HOUR, List.of());
+        }
+
+        @Override
+        public ClickSources getSources(String shortUrlId, Instant from, Instant to) {
+            return new ClickSources(Map.of(), Map.of());
+        }
+
+        @Override
+        public HotLinks getHotLinks(Integer window, Integer count) {
+            return new HotLinks(5, List.of());
+        }
+    }
+}
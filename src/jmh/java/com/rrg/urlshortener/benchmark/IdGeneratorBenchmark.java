@@ -0,0 +1,51 @@
+package com.rrg.urlshortener.benchmark;
+
+import com.rrg.urlshortener.generator.BlockIdGenerator;
+import com.rrg.urlshortener.generator.IdGenerator;
+import com.rrg.urlshortener.generator.RandomIdGenerator;
+import com.rrg.urlshortener.generator.SnowflakeIdGenerator;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ID generation per strategy, the block strategy leasing its blocks from the embedded REDIS.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IdGeneratorBenchmark {
+
+    @Param({"random", "block", "snowflake"})
+    private String strategy;
+
+    private IdGenerator generator;
+
+    @Setup
+    public void setup(ApplicationState application) throws IllegalAccessException {
+        var util = UrlUtilBenchmark.newUrlUtil();
+        generator = switch (strategy) {
+            case "block" -> {
+                var block = new BlockIdGenerator(util, application.getBean(StringRedisTemplate.class));
+                FieldUtils.writeField(block, "blockSize", 1000L, true);
+                yield block;
+            }
+            case "snowflake" -> new SnowflakeIdGenerator(util, 1);
+            default -> new RandomIdGenerator(util);
+        };
+    }
+
+    @Benchmark
+    public String generateId() {
+        return generator.generateId();
+    }
+}
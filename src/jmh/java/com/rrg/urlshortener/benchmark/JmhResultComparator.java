@@ -0,0 +1,99 @@
+package com.rrg.urlshortener.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON result files, benchmark by benchmark, and fails when a score is worse than the baseline by
+ * more than the threshold and by more than the two scores' errors combined, so noise alone doesn't fail the build.
+ * Throughput scores are better higher, time scores better lower.
+ * <p>
+ * With {@code update}, the result replaces the baseline instead, without the path of the JVM it ran on, so the
+ * checked-in baseline carries no machine-specific path.
+ * <p>
+ * Usage: {@code JmhResultComparator <baseline.json> <result.json> <threshold percent> [update]}
+ */
+public class JmhResultComparator {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3 || args.length > 4) {
+            System.err.println("Usage: JmhResultComparator <baseline.json> <result.json> <threshold percent> [update]");
+            System.exit(2);
+        }
+        var baselineFile = new File(args[0]);
+        if (args.length == 4 && Boolean.parseBoolean(args[3])) {
+            update(baselineFile, new File(args[1]));
+            return;
+        }
+        if (!baselineFile.exists()) {
+            System.out.printf("No baseline at %s, run with -Djmh.update-baseline=true to create it%n", args[0]);
+            return;
+        }
+        var baseline = read(baselineFile);
+        var result = read(new File(args[1]));
+        var threshold = Double.parseDouble(args[2]);
+
+        var regressions = 0;
+        System.out.printf("%-80s %14s %14s %9s%n", "Benchmark", "Baseline", "Result", "Change");
+        for (var entry : result.entrySet()) {
+            var current = entry.getValue();
+            var unit = current.path("primaryMetric").path("scoreUnit").asText();
+            var score = current.path("primaryMetric").path("score").asDouble();
+            var previous = baseline.get(entry.getKey());
+            if (previous == null) {
+                System.out.printf("%-80s %14s %14.3f %9s %s%n", entry.getKey(), "-", score, "new", unit);
+                continue;
+            }
+            var previousScore = previous.path("primaryMetric").path("score").asDouble();
+            var errors = error(current) + error(previous);
+            var change = (score - previousScore) / previousScore * 100;
+            var worse = "thrpt".equals(current.path("mode").asText()) ? -change : change;
+            var regressed = worse > threshold && Math.abs(score - previousScore) > errors;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-80s %14.3f %14.3f %+8.1f%% %s%s%n", entry.getKey(), previousScore, score, change,
+                    unit, regressed ? "  REGRESSION" : "");
+        }
+        if (regressions > 0) {
+            System.err.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    private static void update(File baselineFile, File resultFile) throws IOException {
+        var mapper = new ObjectMapper();
+        var result = mapper.readTree(resultFile);
+        for (var benchmark : result) {
+            ((ObjectNode) benchmark).remove("jvm");
+        }
+        mapper.writerWithDefaultPrettyPrinter().writeValue(baselineFile, result);
+        System.out.printf("Updated the baseline at %s with %d benchmarks%n", baselineFile, result.size());
+    }
+
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        var results = new LinkedHashMap<String, JsonNode>();
+        for (var benchmark : new ObjectMapper().readTree(file)) {
+            results.put(key(benchmark), benchmark);
+        }
+        return results;
+    }
+
+    private static double error(JsonNode benchmark) {
+        var error = benchmark.path("primaryMetric").path("scoreError").asDouble();
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    private static String key(JsonNode benchmark) {
+        var key = new StringBuilder(benchmark.path("benchmark").asText().replace("com.rrg.urlshortener.benchmark.", ""));
+        benchmark.path("params").fields().forEachRemaining(param ->
+                key.append(':').append(param.getKey()).append('=').append(param.getValue().asText()));
+        return key.toString();
+    }
+}
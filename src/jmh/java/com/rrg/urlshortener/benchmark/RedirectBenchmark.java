@@ -0,0 +1,51 @@
+package com.rrg.urlshortener.benchmark;
+
+import com.rrg.urlshortener.cache.RedirectCache;
+import com.rrg.urlshortener.model.VisitSource;
+import com.rrg.urlshortener.repository.UrlRepository;
+import com.rrg.urlshortener.service.UrlService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.HttpHeaders;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The full {@link UrlService#processRedirection(String, VisitSource)}, served from the redirect cache or loaded from the embedded
+ * REDIS on a cache miss.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RedirectBenchmark {
+
+    private UrlService service;
+    private RedirectCache cache;
+    private List<String> shortUrlIds;
+    private int next;
+
+    @Setup
+    public void setup(ApplicationState application) {
+        service = application.getBean(UrlService.class);
+        cache = application.getBean(RedirectCache.class);
+        shortUrlIds = RepositoryBenchmark.saveUrls(application.getBean(UrlRepository.class), "redirect");
+    }
+
+    @Benchmark
+    public HttpHeaders processRedirectionCached() {
+        return service.processRedirection(shortUrlIds.get(next++ % RepositoryBenchmark.URL_COUNT), VisitSource.UNKNOWN);
+    }
+
+    @Benchmark
+    public HttpHeaders processRedirectionUncached() {
+        var shortUrlId = shortUrlIds.get(next++ % RepositoryBenchmark.URL_COUNT);
+        cache.invalidate(shortUrlId);
+        return service.processRedirection(shortUrlId, VisitSource.UNKNOWN);
+    }
+}
@@ -0,0 +1,65 @@
+package com.rrg.urlshortener.benchmark;
+
+import com.rrg.urlshortener.model.Url;
+import com.rrg.urlshortener.repository.UrlRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository reads against the embedded REDIS.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RepositoryBenchmark {
+
+    static final int URL_COUNT = 100;
+
+    private UrlRepository repo;
+    private List<String> shortUrlIds;
+    private int next;
+
+    @Setup
+    public void setup(ApplicationState application) {
+        repo = application.getBean(UrlRepository.class);
+        shortUrlIds = saveUrls(repo, "repository");
+    }
+
+    @Benchmark
+    public Optional<Url> findByShortUrlId() {
+        return repo.findByShortUrlId(shortUrlIds.get(next++ % URL_COUNT));
+    }
+
+    @Benchmark
+    public Optional<Url> findByShortUrlIdMissing() {
+        return repo.findByShortUrlId("missing");
+    }
+
+    @Benchmark
+    public Map<String, Url> findAllByShortUrlIds() {
+        return repo.findAllByShortUrlIds(shortUrlIds);
+    }
+
+    static List<String> saveUrls(UrlRepository repo, String prefix) {
+        var shortUrlIds = new ArrayList<String>(URL_COUNT);
+        for (var i = 0; i < URL_COUNT; i++) {
+            var url = new Url();
+            url.setShortUrlId(prefix + i);
+            url.setFullUrl("https://www.example.com/" + prefix + "/" + i);
+            repo.save(url);
+            shortUrlIds.add(url.getShortUrlId());
+        }
+        return shortUrlIds;
+    }
+}
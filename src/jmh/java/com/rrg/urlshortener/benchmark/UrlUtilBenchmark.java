@@ -0,0 +1,68 @@
+package com.rrg.urlshortener.benchmark;
+
+import com.rrg.urlshortener.util.UrlUtil;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UrlUtilBenchmark {
+
+    private static final String VALID_URL = "https://www.example.com/some/path?query=value#fragment";
+    private static final String INVALID_URL = "www.example.com/some/path";
+    private static final String TRAILING_SLASH_URL = "https://www.example.com/some/path/";
+
+    private UrlUtil util;
+    private long sequence;
+
+    @Setup
+    public void setup() throws IllegalAccessException {
+        util = newUrlUtil();
+    }
+
+    @Benchmark
+    public String generateId() {
+        return util.generateId();
+    }
+
+    @Benchmark
+    public String encode() {
+        return util.encode(sequence++);
+    }
+
+    @Benchmark
+    public boolean isValidUrl() {
+        return util.isValidUrl(VALID_URL);
+    }
+
+    @Benchmark
+    public boolean isValidUrlInvalid() {
+        return util.isValidUrl(INVALID_URL);
+    }
+
+    @Benchmark
+    public String normaliseUrl() {
+        return util.normaliseUrl(TRAILING_SLASH_URL);
+    }
+
+    @Benchmark
+    public String sanitiseUrl() {
+        return util.sanitiseUrl(TRAILING_SLASH_URL);
+    }
+
+    static UrlUtil newUrlUtil() throws IllegalAccessException {
+        var util = new UrlUtil();
+        FieldUtils.writeField(util, "idLength", 7, true);
+        FieldUtils.writeField(util, "permittedChars", "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789", true);
+        return util;
+    }
+}
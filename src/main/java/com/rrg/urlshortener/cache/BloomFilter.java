@@ -0,0 +1,93 @@
+package com.rrg.urlshortener.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter of strings, sized for {@code expectedItems} at a false positive rate of {@code falsePositiveRate}:
+ * {@code -n ln p / (ln 2)²} bits and {@code (m / n) ln 2} hash functions, about 9.6 bits per item at 1%. An item that
+ * was added is always found, one that wasn't is found with that probability once the filter holds the expected number
+ * of items, more past it.
+ * <p>
+ * The bit positions of an item are derived from a 64-bit FNV-1a hash, mixed by the MurmurHash3 finalizer into a
+ * first hash and mixed again into a second one, as {@code h1 + i * h2} over 64 bits, so filters of more than 2^32 bits
+ * use all of them. Bits are set with a compare-and-set, so items can be added and looked up concurrently.
+ */
+public class BloomFilter {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+
+    public BloomFilter(long expectedItems, double falsePositiveRate) {
+        var items = Math.max(1, expectedItems);
+        var optimalBits = (long) Math.ceil(-items * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        var words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (optimalBits + 63) / 64));
+        this.words = new AtomicLongArray(words);
+        this.bits = words * 64L;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / items * Math.log(2)));
+    }
+
+    public void add(String item) {
+        var h1 = hash(item);
+        var h2 = fmix64(h1 + GOLDEN_GAMMA);
+        for (var i = 0; i < hashes; i++) {
+            var bit = index(h1, h2, i, bits);
+            var mask = 1L << bit;
+            var word = (int) (bit >>> 6);
+            var current = words.get(word);
+            while ((current & mask) == 0 && !words.weakCompareAndSetVolatile(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    /**
+     * @return false if the item was never added, true if it probably was
+     */
+    public boolean mightContain(String item) {
+        var h1 = hash(item);
+        var h2 = fmix64(h1 + GOLDEN_GAMMA);
+        for (var i = 0; i < hashes; i++) {
+            var bit = index(h1, h2, i, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bitSize() {
+        return bits;
+    }
+
+    public int hashCount() {
+        return hashes;
+    }
+
+    /**
+     * @return the bit of the {@code i}th hash function
+     */
+    static long index(long h1, long h2, int i, long bits) {
+        return Math.floorMod(h1 + i * h2, bits);
+    }
+
+    private static long hash(String item) {
+        var hash = FNV_OFFSET_BASIS;
+        for (var i = 0; i < item.length(); i++) {
+            hash = (hash ^ item.charAt(i)) * FNV_PRIME;
+        }
+        return fmix64(hash);
+    }
+
+    private static long fmix64(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,135 @@
+package com.rrg.urlshortener.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache of short URL ID to redirect location, sitting in front of the repository lookup.
+ * Hit, miss and eviction counters are published as {@code cache.*} meters tagged {@code cache=redirect}. A location
+ * is kept for the TTL after it's written, or until its short URL expires if that's sooner.
+ * <p>
+ * The short URL IDs that weren't found are kept apart for {@code redirect.not-found-cache.ttl}, so an ID probed over
+ * and over is only looked up once in a while, and unknown IDs don't evict the locations in use. Their meters are
+ * tagged {@code cache=redirect-not-found}.
+ */
+@Component
+public class RedirectCache {
+
+    private static final String CACHE_NAME = "redirect";
+    private static final String NOT_FOUND_CACHE_NAME = "redirect-not-found";
+
+    private final Cache<String, Location> cache;
+    private final Cache<String, Boolean> notFound;
+
+    public RedirectCache(@Value("${redirect.cache.max-size}") long maxSize,
+                         @Value("${redirect.cache.ttl}") Duration ttl,
+                         @Value("${redirect.not-found-cache.max-size}") long notFoundMaxSize,
+                         @Value("${redirect.not-found-cache.ttl}") Duration notFoundTtl,
+                         MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new LocationExpiry(ttl))
+                .recordStats()
+                .build();
+        this.notFound = Caffeine.newBuilder()
+                .maximumSize(notFoundMaxSize)
+                .expireAfterWrite(notFoundTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        CaffeineCacheMetrics.monitor(meterRegistry, notFound, NOT_FOUND_CACHE_NAME);
+    }
+
+    /**
+     * Loads a missing location outside the cache rather than through {@link Cache#get(Object, Function)}, which runs
+     * the loader inside a {@code ConcurrentHashMap} bin lock. That lock is a monitor, so a Redis lookup under it pins
+     * the carrier of a virtual thread and blocks other keys of the bin. Concurrent misses on the same ID may each load
+     * it, the last one is kept.
+     */
+    public String get(String shortUrlId, Function<String, Location> loader) {
+        var location = cache.getIfPresent(shortUrlId);
+        if (location == null) {
+            location = loader.apply(shortUrlId);
+            cache.put(shortUrlId, location);
+        }
+        return location.uri();
+    }
+
+    /**
+     * @return the cached location, or null on a miss, for callers that load it asynchronously
+     */
+    public String getIfPresent(String shortUrlId) {
+        var location = cache.getIfPresent(shortUrlId);
+        return location == null ? null : location.uri();
+    }
+
+    public void put(String shortUrlId, Location location) {
+        cache.put(shortUrlId, location);
+    }
+
+    /**
+     * @return whether the short URL ID wasn't found within {@code redirect.not-found-cache.ttl}
+     */
+    public boolean isNotFound(String shortUrlId) {
+        return notFound.getIfPresent(shortUrlId) != null;
+    }
+
+    public void putNotFound(String shortUrlId) {
+        notFound.put(shortUrlId, Boolean.TRUE);
+    }
+
+    public void invalidate(String shortUrlId) {
+        cache.invalidate(shortUrlId);
+        notFound.invalidate(shortUrlId);
+    }
+
+    /**
+     * Forgets that the short URL IDs weren't found, once they're created.
+     */
+    public void invalidateNotFound(Collection<String> shortUrlIds) {
+        notFound.invalidateAll(shortUrlIds);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * @param expiresAt when the short URL redirecting to the location stops existing, null if it never does
+     */
+    public record Location(String uri, Instant expiresAt) {
+    }
+
+    private record LocationExpiry(Duration ttl) implements Expiry<String, Location> {
+
+        @Override
+        public long expireAfterCreate(String shortUrlId, Location location, long currentTime) {
+            if (location.expiresAt() == null) {
+                return ttl.toNanos();
+            }
+            var untilExpiry = Duration.between(Instant.now(), location.expiresAt());
+            return untilExpiry.compareTo(ttl) < 0 ? Math.max(0, untilExpiry.toNanos()) : ttl.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String shortUrlId, Location location, long currentTime, long currentDuration) {
+            return expireAfterCreate(shortUrlId, location, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String shortUrlId, Location location, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
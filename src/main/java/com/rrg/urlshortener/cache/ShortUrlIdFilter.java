@@ -0,0 +1,267 @@
+package com.rrg.urlshortener.cache;
+
+import com.rrg.urlshortener.config.RedisTopology;
+import com.rrg.urlshortener.repository.UrlRedisMapping;
+import com.rrg.urlshortener.tiering.ColdUrlStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * When {@code redirect.id-filter.enabled}, keeps a {@link BloomFilter} of every short URL ID, so a redirection to an
+ * ID that was never created is answered without looking it up in REDIS. The filter is built by scanning the short
+ * URLs of REDIS and of the cold store, first when the application starts, until which every ID might exist, then
+ * every {@code redirect.id-filter.resync-interval-ms}, which also drops the IDs that expired since.
+ * <p>
+ * The IDs created by this instance are added as soon as they're stored, and published every
+ * {@code redirect.id-filter.publish-interval-ms} on the {@value #CHANNEL} REDIS channel, which every instance adds
+ * them from. A short URL created by another instance may be taken for an unknown one until its ID is received, or
+ * until the next resync if the message was lost. IDs added while the filter is rebuilt are added to the new filter
+ * too, as the scan may have passed them already.
+ */
+@Slf4j
+@Component
+public class ShortUrlIdFilter implements SmartLifecycle {
+
+    static final String CHANNEL = "short-url-ids";
+    private static final String SEPARATOR = "\n";
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 2048;
+
+    @Value("${redirect.id-filter.enabled}")
+    private boolean enabled;
+    @Value("${redirect.id-filter.expected-ids}")
+    private long expectedIds;
+    @Value("${redirect.id-filter.false-positive-rate}")
+    private double falsePositiveRate;
+    @Value("${redirect.id-filter.batch-size}")
+    private int batchSize;
+
+    private final StringRedisTemplate template;
+    private final UrlRedisMapping mapping;
+    private final RedirectCache cache;
+    private final ColdUrlStore coldStore;
+    private final RedisTopology topology;
+    private final Counter rejections;
+    private final ConcurrentLinkedQueue<String> unpublished = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock resyncLock = new ReentrantLock();
+    private volatile BloomFilter filter;
+    private volatile BloomFilter rebuilt;
+    private volatile long size;
+    private RedisMessageListenerContainer listener;
+    private volatile boolean running;
+
+    public ShortUrlIdFilter(StringRedisTemplate template, UrlRedisMapping mapping, RedirectCache cache,
+                            Optional<ColdUrlStore> coldStore, @Value("${redis.topology}") RedisTopology topology,
+                            MeterRegistry meterRegistry) {
+        this.template = template;
+        this.mapping = mapping;
+        this.cache = cache;
+        this.coldStore = coldStore.orElse(null);
+        this.topology = topology;
+        this.rejections = Counter.builder("redirect.id-filter.rejections")
+                .description("Redirections to short URL IDs that were never created, answered without REDIS")
+                .register(meterRegistry);
+        Gauge.builder("redirect.id-filter.ids", this, idFilter -> idFilter.size)
+                .description("Short URL IDs found by the last resync of the filter")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return false if the short URL ID was never created, true if it might have been or the filter isn't built yet
+     */
+    public boolean mightExist(String shortUrlId) {
+        var current = filter;
+        if (current == null || current.mightContain(shortUrlId)) {
+            return true;
+        }
+        rejections.increment();
+        return false;
+    }
+
+    public void add(String shortUrlId) {
+        addAll(List.of(shortUrlId));
+    }
+
+    /**
+     * Adds the created short URL IDs and forgets they weren't found, on this instance and, once published, on the
+     * others.
+     */
+    public void addAll(Collection<String> shortUrlIds) {
+        cache.invalidateNotFound(shortUrlIds);
+        if (!enabled) {
+            return;
+        }
+        addLocally(shortUrlIds);
+        unpublished.addAll(shortUrlIds);
+    }
+
+    /**
+     * Publishes the IDs created since the last call, dropping them if that fails, as the next resync finds them.
+     */
+    @Scheduled(fixedDelayString = "${redirect.id-filter.publish-interval-ms}")
+    public void publish() {
+        while (!unpublished.isEmpty()) {
+            var message = new StringJoiner(SEPARATOR);
+            var count = 0;
+            String shortUrlId;
+            while (count < batchSize && (shortUrlId = unpublished.poll()) != null) {
+                message.add(shortUrlId);
+                count++;
+            }
+            try {
+                template.convertAndSend(CHANNEL, message.toString());
+            } catch (RuntimeException e) {
+                log.warn("Couldn't publish {} created short URL IDs, other instances find them on their next resync",
+                        count, e);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${redirect.id-filter.resync-interval-ms}")
+    public void resync() {
+        if (!enabled) {
+            return;
+        }
+        resyncLock.lock();
+        try {
+            rebuild();
+        } finally {
+            resyncLock.unlock();
+        }
+    }
+
+    /**
+     * Subscribes to the IDs created by other instances before the first resync, so none created while it scans is
+     * missed.
+     */
+    @Override
+    public void start() {
+        if (enabled) {
+            listener = new RedisMessageListenerContainer();
+            listener.setConnectionFactory(template.getRequiredConnectionFactory());
+            listener.addMessageListener((message, pattern) -> received(message), new ChannelTopic(CHANNEL));
+            listener.afterPropertiesSet();
+            listener.start();
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.stop();
+        }
+        publish();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void received(Message message) {
+        var shortUrlIds = Arrays.asList(new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR));
+        cache.invalidateNotFound(shortUrlIds);
+        addLocally(shortUrlIds);
+    }
+
+    /**
+     * Reads the filter being rebuilt before the current one, which a rebuild replaces before clearing the former, so
+     * an ID is always added to the filter in use once the rebuild is done.
+     */
+    private void addLocally(Collection<String> shortUrlIds) {
+        var next = rebuilt;
+        var current = filter;
+        for (var shortUrlId : shortUrlIds) {
+            if (next != null) {
+                next.add(shortUrlId);
+            }
+            if (current != null) {
+                current.add(shortUrlId);
+            }
+        }
+    }
+
+    /**
+     * Sizes the new filter for twice the IDs found last time, at least {@code redirect.id-filter.expected-ids}, so it
+     * keeps its false positive rate as short URLs are created. A failed scan keeps the current filter.
+     */
+    private void rebuild() {
+        var next = new BloomFilter(Math.max(expectedIds, size * 2), falsePositiveRate);
+        rebuilt = next;
+        try {
+            var count = scan(next);
+            filter = next;
+            size = count;
+            log.info("Rebuilt the short URL ID filter from {} IDs, with {} bits and {} hash functions", count,
+                    next.bitSize(), next.hashCount());
+        } catch (RuntimeException e) {
+            log.warn("Couldn't rebuild the short URL ID filter, the current one is kept", e);
+        } finally {
+            rebuilt = null;
+        }
+    }
+
+    private long scan(BloomFilter next) {
+        var options = ScanOptions.scanOptions().match(mapping.key("*")).type(DataType.HASH).count(batchSize).build();
+        var count = 0L;
+        if (topology == RedisTopology.CLUSTER) {
+            // A scan only covers the keys of one node on a cluster.
+            try (var connection = template.getRequiredConnectionFactory().getClusterConnection()) {
+                for (var node : connection.clusterGetMasterReplicaMap().keySet()) {
+                    count += addAll(next, connection.scan(node, options));
+                }
+            }
+        } else {
+            count += addAll(next, template.executeWithStickyConnection(connection -> connection.keyCommands().scan(options)));
+        }
+        if (coldStore != null) {
+            var coldIds = new long[1];
+            coldStore.forEachShortUrlId(shortUrlId -> {
+                next.add(shortUrlId);
+                coldIds[0]++;
+            });
+            count += coldIds[0];
+        }
+        return count;
+    }
+
+    private long addAll(BloomFilter next, Cursor<byte[]> keys) {
+        var prefixLength = mapping.key("").length();
+        var count = 0L;
+        try (keys) {
+            while (keys.hasNext()) {
+                next.add(new String(keys.next(), StandardCharsets.UTF_8).substring(prefixLength));
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -1,37 +1,243 @@
 package com.rrg.urlshortener.config;
 
 import com.rrg.urlshortener.model.Url;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import io.lettuce.core.metrics.MicrometerOptions;
+import io.lettuce.core.resource.ClientResources;
+import io.micrometer.core.instrument.binder.commonspool2.CommonsObjectPool2Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisConfiguration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisSentinelConfiguration;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisClientConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import redis.clients.jedis.JedisPoolConfig;
 
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+
+@Slf4j
 @Configuration
 public class RedisConfig {
 
+    private static final int VIRTUAL_THREADS_JAVA_VERSION = 21;
+    private static final Duration POOL_REFILL_INTERVAL = Duration.ofSeconds(1);
+    private static final String POOL_JMX_NAME = "redis";
+
+    @Value("${redis.topology}")
+    private RedisTopology topology;
+    @Value("${redis.read-from}")
+    private String readFrom;
     @Value("${spring.data.redis.database}")
     private int database;
     @Value("${spring.data.redis.port}")
     private int port;
     @Value("${spring.data.redis.host}")
     private String hostName;
+    @Value("${spring.data.redis.sentinel.master}")
+    private String sentinelMaster;
+    @Value("${spring.data.redis.sentinel.nodes}")
+    private List<String> sentinelNodes;
+    @Value("${spring.data.redis.cluster.nodes}")
+    private List<String> clusterNodes;
+    @Value("${spring.data.redis.cluster.max-redirects}")
+    private int clusterMaxRedirects;
+    @Value("${spring.data.redis.timeout}")
+    private Duration timeout;
+    @Value("${spring.data.redis.connect-timeout}")
+    private Duration connectTimeout;
+    @Value("${spring.data.redis.jedis.pool.max-active}")
+    private int poolMaxActive;
+    @Value("${spring.data.redis.jedis.pool.max-idle}")
+    private int poolMaxIdle;
+    @Value("${spring.data.redis.jedis.pool.min-idle}")
+    private int poolMinIdle;
+    @Value("${spring.data.redis.jedis.pool.max-wait}")
+    private Duration poolMaxWait;
+    @Value("${spring.data.redis.jedis.pool.time-between-eviction-runs}")
+    private Duration poolEvictionInterval;
+    @Value("${redis.pool.min-evictable-idle-time}")
+    private Duration poolMinEvictableIdleTime;
+    @Value("${redis.template.transaction-support}")
+    private boolean transactionSupport;
+    @Value("${spring.threads.virtual.enabled}")
+    private boolean virtualThreads;
+
+    private final ObjectProvider<ClientResources> clientResources;
+
+    public RedisConfig(ObjectProvider<ClientResources> clientResources) {
+        this.clientResources = clientResources;
+    }
+
+    /**
+     * Pooled Jedis connections to the primary, unless reads go to replicas or the servers form a cluster. Jedis reads
+     * from the primary only and can't pipeline over the nodes of a cluster, Lettuce is used for these instead: it
+     * sends writes, scripts included, to the primaries and reads to the nodes selected by {@code redis.read-from}.
+     */
+    @Bean
+    @Primary
+    RedisConnectionFactory redisConnectionFactory() {
+        if (topology == RedisTopology.CLUSTER || readsFromReplicas()) {
+            return lettuceConnectionFactory();
+        }
+        if (topology == RedisTopology.SENTINEL) {
+            return new JedisConnectionFactory(sentinelConfiguration(), jedisClientConfiguration());
+        }
+        return new JedisConnectionFactory(standaloneConfiguration(), jedisClientConfiguration());
+    }
 
+    /**
+     * Non-blocking connections for the reactive API, which Spring Boot's {@code reactiveRedisTemplate} and
+     * {@code reactiveStringRedisTemplate} are built on. The blocking repository and the visit flush keep using the
+     * primary connection factory.
+     */
     @Bean
-    JedisConnectionFactory jedisConnectionFactory() {
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    LettuceConnectionFactory reactiveRedisConnectionFactory() {
+        return lettuceConnectionFactory();
+    }
+
+    /**
+     * Publishes the usage of the Jedis pool, registered in JMX under the {@code redis} name, as
+     * {@code commons.pool2.*} meters: active, idle and waiting connections, and borrow wait times.
+     */
+    @Bean
+    CommonsObjectPool2Metrics redisPoolMetrics() {
+        return new CommonsObjectPool2Metrics();
+    }
+
+    /**
+     * Makes the {@code lettuce.command.completion} and {@code lettuce.command.firstresponse} timers Spring Boot
+     * publishes for the Lettuce connections histograms, so their percentiles can be aggregated across instances. They're
+     * tagged by command type and server, the local address is left out. Jedis has no such hook, the blocking
+     * commands are timed per repository method by {@code spring.data.repository.invocations} instead.
+     */
+    @Bean
+    MicrometerOptions lettuceMicrometerOptions() {
+        return MicrometerOptions.builder().histogram(true).build();
+    }
+
+    private boolean readsFromReplicas() {
+        return ReadFrom.valueOf(readFrom) != ReadFrom.UPSTREAM;
+    }
+
+    /**
+     * On a cluster, the topology is refreshed whenever a command is redirected or a node disconnects, so a failover
+     * is followed without waiting for the commands sent to the former primary to time out.
+     */
+    private LettuceConnectionFactory lettuceConnectionFactory() {
+        var socketOptions = SocketOptions.builder().connectTimeout(connectTimeout).build();
+        var clientOptions = topology == RedisTopology.CLUSTER
+                ? ClusterClientOptions.builder()
+                        .socketOptions(socketOptions)
+                        .topologyRefreshOptions(ClusterTopologyRefreshOptions.builder()
+                                .enableAllAdaptiveRefreshTriggers()
+                                .build())
+                        .build()
+                : ClientOptions.builder().socketOptions(socketOptions).build();
+        var clientConfiguration = LettuceClientConfiguration.builder()
+                .commandTimeout(timeout)
+                .clientOptions(clientOptions);
+        // Spring Boot's client resources record the command latencies.
+        clientResources.ifAvailable(clientConfiguration::clientResources);
+        if (readsFromReplicas()) {
+            clientConfiguration.readFrom(ReadFrom.valueOf(readFrom));
+        }
+        return new LettuceConnectionFactory(redisConfiguration(), clientConfiguration.build());
+    }
+
+    private RedisConfiguration redisConfiguration() {
+        return switch (topology) {
+            case STANDALONE -> standaloneConfiguration();
+            case SENTINEL -> sentinelConfiguration();
+            case CLUSTER -> clusterConfiguration();
+        };
+    }
+
+    private RedisStandaloneConfiguration standaloneConfiguration() {
         var config = new RedisStandaloneConfiguration();
         config.setPort(port);
         config.setDatabase(database);
         config.setHostName(hostName);
-        return new JedisConnectionFactory(config);
+        return config;
+    }
+
+    private RedisSentinelConfiguration sentinelConfiguration() {
+        var config = new RedisSentinelConfiguration(sentinelMaster, new HashSet<>(sentinelNodes));
+        config.setDatabase(database);
+        return config;
+    }
+
+    private RedisClusterConfiguration clusterConfiguration() {
+        var config = new RedisClusterConfiguration(clusterNodes);
+        config.setMaxRedirects(clusterMaxRedirects);
+        return config;
+    }
+
+    private JedisClientConfiguration jedisClientConfiguration() {
+        return JedisClientConfiguration.builder()
+                .connectTimeout(connectTimeout)
+                .readTimeout(timeout)
+                .usePooling()
+                .poolConfig(jedisPoolConfig())
+                .build();
+    }
+
+    /**
+     * Idle connections above the minimum are closed by the evictor once idle for the configured time, and the
+     * evictor opens new ones to get back to the minimum. Borrowing fails once no connection frees up within the
+     * maximum wait, rather than holding the request indefinitely.
+     * <p>
+     * On virtual threads, the pool is kept topped up with idle connections by its evictor, which runs on a platform
+     * thread. Request threads then borrow an idle connection, which only waits on a lock, rather than create one,
+     * which can wait in a monitor of the pool and pin the carrier thread.
+     */
+    private JedisPoolConfig jedisPoolConfig() {
+        var poolConfig = new JedisPoolConfig();
+        poolConfig.setJmxNamePrefix(POOL_JMX_NAME);
+        poolConfig.setMaxTotal(poolMaxActive);
+        poolConfig.setMaxIdle(poolMaxIdle);
+        poolConfig.setMinIdle(poolMinIdle);
+        poolConfig.setMaxWait(poolMaxWait);
+        poolConfig.setTimeBetweenEvictionRuns(poolEvictionInterval);
+        poolConfig.setMinEvictableIdleDuration(poolMinEvictableIdleTime);
+        if (virtualThreads) {
+            if (Runtime.version().feature() < VIRTUAL_THREADS_JAVA_VERSION) {
+                log.warn("spring.threads.virtual.enabled is ignored, virtual threads need Java {} but this is Java {}",
+                        VIRTUAL_THREADS_JAVA_VERSION, Runtime.version().feature());
+            }
+            poolConfig.setMaxIdle(poolMaxActive);
+            poolConfig.setMinIdle(poolMaxActive);
+            poolConfig.setTimeBetweenEvictionRuns(POOL_REFILL_INTERVAL);
+        }
+        return poolConfig;
     }
 
+    /**
+     * Backs the {@code @RedisHash} repositories. Transaction support binds a connection to the thread for the whole
+     * of a Spring-managed transaction, nothing runs in one, so it's off unless enabled.
+     */
     @Bean
     public RedisTemplate<String, Url> redisTemplate() {
         RedisTemplate<String, Url> template = new RedisTemplate<>();
-        template.setConnectionFactory(jedisConnectionFactory());
-        template.setEnableTransactionSupport(true);
+        template.setConnectionFactory(redisConnectionFactory());
+        template.setEnableTransactionSupport(transactionSupport);
         return template;
     }
 }
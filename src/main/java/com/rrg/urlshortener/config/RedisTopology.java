@@ -0,0 +1,20 @@
+package com.rrg.urlshortener.config;
+
+/**
+ * How the REDIS servers are deployed, selected by {@code redis.topology}.
+ */
+public enum RedisTopology {
+
+    /**
+     * A single primary, possibly with replicas it lists itself.
+     */
+    STANDALONE,
+    /**
+     * A primary and its replicas monitored by Sentinel, which fails over to a replica.
+     */
+    SENTINEL,
+    /**
+     * Primaries sharing the key slots, each with its replicas.
+     */
+    CLUSTER
+}
@@ -3,45 +3,83 @@ package com.rrg.urlshortener.controller;
 import com.rrg.urlshortener.exception.InvalidFieldException;
 import com.rrg.urlshortener.exception.MissingFieldException;
 import com.rrg.urlshortener.exception.ResourceNotFoundException;
+import com.rrg.urlshortener.model.ClickSeries;
+import com.rrg.urlshortener.model.ClickSources;
+import com.rrg.urlshortener.model.HotLinks;
 import com.rrg.urlshortener.model.Url;
 import com.rrg.urlshortener.openapi.api.UrlsApi;
 import com.rrg.urlshortener.openapi.model.*;
 import com.rrg.urlshortener.service.UrlService;
+import com.rrg.urlshortener.util.VisitSourceResolver;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
 
+import java.time.Instant;
+import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class UrlsApiController implements UrlsApi {
+
     private final UrlService urlService;
+    private final VisitSourceResolver sourceResolver;
+    private final NativeWebRequest request;
 
-    public UrlsApiController(@Qualifier("urlService") UrlService urlService) {
+    public UrlsApiController(@Qualifier("urlService") UrlService urlService, VisitSourceResolver sourceResolver,
+                             NativeWebRequest request) {
         this.urlService = urlService;
+        this.sourceResolver = sourceResolver;
+        this.request = request;
+    }
+
+    @Override
+    public Optional<NativeWebRequest> getRequest() {
+        return Optional.of(request);
     }
 
     @Override
     public ResponseEntity<ResponseDto> createShortUrl(@NotNull ShortUrlCreateDto shortUrlCreateDto) throws MissingFieldException, InvalidFieldException {
-        var url = urlService.createShortUrl(shortUrlCreateDto.getFullUrl());
+        var url = urlService.createShortUrl(shortUrlCreateDto.getFullUrl(), shortUrlCreateDto.getDeduplicate(),
+                toInstant(shortUrlCreateDto.getExpiresAt()));
         var returnDto = convertToShortUrlDto(url);
         return new ResponseEntity<>(returnDto, HttpStatus.CREATED);
     }
 
     @Override
-    public ResponseEntity<ResponseDto> getShortUrlIdsByFullUrl(@NotNull String fullUrl) throws InvalidFieldException, MissingFieldException {
-        var urls = urlService.getUrlsByFullUrl(fullUrl);
+    public ResponseEntity<ResponseDto> getShortUrlIdsByFullUrl(@NotNull String fullUrl, String cursor, Integer count) throws InvalidFieldException, MissingFieldException {
+        var page = urlService.getUrlsByFullUrl(fullUrl, cursor, count);
         var returnDto = new ShortUrlSearchDto();
-        returnDto.setShortUrlIds(urls.stream().map(this::convertToMetricsDto).toList());
+        returnDto.setShortUrlIds(page.urls().stream().map(this::convertToMetricsDto).toList());
+        returnDto.setNextCursor(page.nextCursor());
+        return new ResponseEntity<>(returnDto, HttpStatus.OK);
+    }
+
+    @Override
+    public ResponseEntity<ResponseDto> lookupShortUrls(@NotNull ShortUrlLookupDto shortUrlLookupDto) throws MissingFieldException, InvalidFieldException {
+        var shortUrlIds = shortUrlLookupDto.getShortUrlIds();
+        var urls = urlService.getUrlsByShortUrlIds(shortUrlIds);
+        var returnDto = new ShortUrlLookupResultDto();
+        returnDto.setUrls(shortUrlIds.stream().distinct().map(id -> convertToLookupItemDto(id, urls.get(id))).toList());
         return new ResponseEntity<>(returnDto, HttpStatus.OK);
     }
 
     @Override
     public ResponseEntity<Void> getRedirection(@NotNull String shortUrlId) throws MissingFieldException, ResourceNotFoundException, InvalidFieldException {
-        var headers = urlService.processRedirection(shortUrlId);
+        var servletRequest = request.getNativeRequest(HttpServletRequest.class);
+        var source = sourceResolver.resolve(servletRequest::getHeader, servletRequest::getRemoteAddr);
+        var headers = urlService.processRedirection(shortUrlId, source);
         return new ResponseEntity<>(headers, HttpStatus.SEE_OTHER);
     }
 
@@ -49,9 +87,70 @@ public class UrlsApiController implements UrlsApi {
     public ResponseEntity<ResponseDto> getMetricsByShortUrlId(@NotNull String shortUrlId) throws MissingFieldException, ResourceNotFoundException {
         var url = urlService.getUrlByShortUrlId(shortUrlId);
         var returnDto = convertToMetricsDto(url);
+        returnDto.setUniqueVisitors(urlService.countUniqueVisitors(shortUrlId));
         return new ResponseEntity<>(returnDto, HttpStatus.OK);
     }
 
+    @Override
+    public ResponseEntity<ResponseDto> getClicksByShortUrlId(@NotNull String shortUrlId, String granularity, OffsetDateTime from, OffsetDateTime to) throws MissingFieldException, InvalidFieldException {
+        var clicks = urlService.getClicks(shortUrlId, granularity, toInstant(from), toInstant(to));
+        return new ResponseEntity<>(convertToClicksDto(shortUrlId, clicks), HttpStatus.OK);
+    }
+
+    @Override
+    public ResponseEntity<ResponseDto> getSourcesByShortUrlId(@NotNull String shortUrlId, OffsetDateTime from, OffsetDateTime to) throws MissingFieldException, InvalidFieldException {
+        var sources = urlService.getSources(shortUrlId, toInstant(from), toInstant(to));
+        return new ResponseEntity<>(convertToSourcesDto(shortUrlId, sources), HttpStatus.OK);
+    }
+
+    @Override
+    public ResponseEntity<ResponseDto> getHotShortUrls(Integer window, Integer count) throws InvalidFieldException {
+        var hotLinks = urlService.getHotLinks(window, count);
+        return new ResponseEntity<>(convertToHotShortUrlsDto(hotLinks), HttpStatus.OK);
+    }
+
+    static ShortUrlClicksDto convertToClicksDto(String shortUrlId, ClickSeries clicks) {
+        var returnDto = new ShortUrlClicksDto();
+        returnDto.setShortUrlId(shortUrlId);
+        returnDto.setGranularity(clicks.granularity().name().toLowerCase(Locale.ROOT));
+        returnDto.setBuckets(clicks.buckets().stream().map(bucket -> {
+            var bucketDto = new ClickBucketDto();
+            bucketDto.setStart(bucket.start().atOffset(ZoneOffset.UTC));
+            bucketDto.setVisits(bucket.visits());
+            return bucketDto;
+        }).toList());
+        return returnDto;
+    }
+
+    static ShortUrlSourcesDto convertToSourcesDto(String shortUrlId, ClickSources sources) {
+        var returnDto = new ShortUrlSourcesDto();
+        returnDto.setShortUrlId(shortUrlId);
+        returnDto.setReferrers(convertToSourceVisitsDtos(sources.referrers()));
+        returnDto.setCountries(convertToSourceVisitsDtos(sources.countries()));
+        return returnDto;
+    }
+
+    static HotShortUrlsDto convertToHotShortUrlsDto(HotLinks hotLinks) {
+        var returnDto = new HotShortUrlsDto();
+        returnDto.setWindowMinutes(hotLinks.windowMinutes());
+        returnDto.setShortUrls(hotLinks.links().stream().map(link -> {
+            var linkDto = new HotShortUrlDto();
+            linkDto.setShortUrlId(link.shortUrlId());
+            linkDto.setVisits(link.visits());
+            return linkDto;
+        }).toList());
+        return returnDto;
+    }
+
+    private static List<SourceVisitsDto> convertToSourceVisitsDtos(Map<String, Long> visitsBySource) {
+        return visitsBySource.entrySet().stream().map(entry -> {
+            var sourceDto = new SourceVisitsDto();
+            sourceDto.setName(entry.getKey());
+            sourceDto.setVisits(entry.getValue());
+            return sourceDto;
+        }).toList();
+    }
+
     private ShortUrlMetricsDto convertToMetricsDto(Url url) {
         var returnDto = new ShortUrlMetricsDto();
         returnDto.setVisits(url.getVisits());
@@ -59,12 +158,28 @@ public class UrlsApiController implements UrlsApi {
         return returnDto;
     }
 
+    private ShortUrlLookupItemDto convertToLookupItemDto(String shortUrlId, Url url) {
+        var returnDto = new ShortUrlLookupItemDto();
+        returnDto.setShortUrlId(shortUrlId);
+        returnDto.setFound(url != null);
+        if (url != null) {
+            returnDto.setFullUrl(url.getFullUrl());
+            returnDto.setVisits(url.getVisits());
+        }
+        return returnDto;
+    }
+
     private ShortUrlDto convertToShortUrlDto(Url url) {
         var date = new Date();
         var returnDto = new ShortUrlDto();
         returnDto.setTimestamp(date.toInstant().atOffset(ZoneOffset.UTC));
         returnDto.setFullUrl(url.getFullUrl());
         returnDto.setShortUrlId(url.getShortUrlId());
+        returnDto.setExpiresAt(url.getExpiresAt() == null ? null : url.getExpiresAt().atOffset(ZoneOffset.UTC));
         return returnDto;
     }
+
+    static Instant toInstant(OffsetDateTime dateTime) {
+        return dateTime == null ? null : dateTime.toInstant();
+    }
 }
@@ -0,0 +1,274 @@
+package com.rrg.urlshortener.controller;
+
+import com.rrg.urlshortener.exception.InvalidFieldException;
+import com.rrg.urlshortener.model.CreationResult;
+import com.rrg.urlshortener.model.ShortUrlRequest;
+import com.rrg.urlshortener.model.Url;
+import com.rrg.urlshortener.model.UrlPage;
+import com.rrg.urlshortener.openapi.model.ShortUrlBatchResultDto;
+import com.rrg.urlshortener.openapi.model.ShortUrlCreateDto;
+import com.rrg.urlshortener.openapi.model.ShortUrlDto;
+import com.rrg.urlshortener.openapi.model.ShortUrlLookupDto;
+import com.rrg.urlshortener.openapi.model.ShortUrlLookupItemDto;
+import com.rrg.urlshortener.openapi.model.ShortUrlLookupResultDto;
+import com.rrg.urlshortener.openapi.model.ShortUrlMetricsDto;
+import com.rrg.urlshortener.openapi.model.ShortUrlSearchDto;
+import com.rrg.urlshortener.service.ReactiveUrlService;
+import com.rrg.urlshortener.util.VisitSourceResolver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Signal;
+
+import java.net.InetSocketAddress;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.rrg.urlshortener.controller.UrlsApiController.convertToClicksDto;
+import static com.rrg.urlshortener.controller.UrlsApiController.convertToHotShortUrlsDto;
+import static com.rrg.urlshortener.controller.UrlsApiController.convertToSourcesDto;
+import static com.rrg.urlshortener.controller.UrlsApiController.toInstant;
+import static com.rrg.urlshortener.controller.UrlsStreamingController.INVALID_BODY_ERROR;
+
+/**
+ * Serves the operations of the API spec on the reactive stack, routed by {@link UrlsReactiveRouter}. Errors are
+ * signalled downstream rather than thrown and rendered by the same controller advice as on the servlet stack.
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class UrlsReactiveHandler {
+
+    private static final String SHORT_URL_ID = "shortUrlId";
+    private static final String FULL_URL = "fullUrl";
+    private static final String GRANULARITY = "granularity";
+    private static final String FROM = "from";
+    private static final String TO = "to";
+    private static final String COUNT = "count";
+    private static final String WINDOW = "window";
+    private static final String DATE_TIME_ERROR = "%s isn't a valid %s, it needs to be an ISO 8601 date-time";
+
+    @Value("${batch.create.chunk-size}")
+    private int chunkSize;
+    private final ReactiveUrlService urlService;
+    private final VisitSourceResolver sourceResolver;
+
+    public UrlsReactiveHandler(ReactiveUrlService urlService, VisitSourceResolver sourceResolver) {
+        this.urlService = urlService;
+        this.sourceResolver = sourceResolver;
+    }
+
+    public Mono<ServerResponse> createShortUrl(ServerRequest request) {
+        return body(request.bodyToMono(ShortUrlCreateDto.class))
+                .flatMap(dto -> urlService.createShortUrl(dto.getFullUrl(), dto.getDeduplicate(),
+                        toInstant(dto.getExpiresAt())))
+                .flatMap(url -> ServerResponse.status(HttpStatus.CREATED).bodyValue(convertToShortUrlDto(url)));
+    }
+
+    /**
+     * Creates a JSON array or newline-delimited JSON of creations a chunk at a time, as {@link UrlsStreamingController}
+     * does, with backpressure bounding memory to a few chunks. Failures of the first chunk get a regular error
+     * response, later ones are reported in-band and end the stream.
+     */
+    public Mono<ServerResponse> createShortUrls(ServerRequest request) {
+        var index = new AtomicLong();
+        var lines = body(request.bodyToFlux(ShortUrlCreateDto.class))
+                .map(item -> new ShortUrlRequest(item.getFullUrl(), item.getDeduplicate(), toInstant(item.getExpiresAt())))
+                .buffer(chunkSize)
+                .materialize()
+                .concatMap(this::createChunk, 1)
+                .map(result -> convertToBatchResultDto(index.getAndIncrement(), result))
+                .onErrorResume(e -> index.get() > 0, e -> {
+                    log.error("Stopped creating short URL batch at index {}", index.get(), e);
+                    return Mono.just(errorDto(index.get(), e.getMessage()));
+                });
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON).body(lines, ShortUrlBatchResultDto.class);
+    }
+
+    public Mono<ServerResponse> lookupShortUrls(ServerRequest request) {
+        return body(request.bodyToMono(ShortUrlLookupDto.class))
+                .flatMap(dto -> urlService.getUrlsByShortUrlIds(dto.getShortUrlIds()).map(urls -> {
+                    var returnDto = new ShortUrlLookupResultDto();
+                    returnDto.setUrls(dto.getShortUrlIds().stream().distinct()
+                            .map(id -> convertToLookupItemDto(id, urls.get(id))).toList());
+                    return returnDto;
+                }))
+                .flatMap(returnDto -> ServerResponse.ok().bodyValue(returnDto));
+    }
+
+    public Mono<ServerResponse> getShortUrlIdsByFullUrl(ServerRequest request) {
+        return Mono.defer(() -> urlService.getUrlsByFullUrl(request.queryParam(FULL_URL).orElse(null),
+                        request.queryParam("cursor").orElse(null), intParam(request, COUNT)))
+                .flatMap(page -> {
+                    var returnDto = new ShortUrlSearchDto();
+                    returnDto.setShortUrlIds(page.urls().stream().map(this::convertToMetricsDto).toList());
+                    returnDto.setNextCursor(page.nextCursor());
+                    return ServerResponse.ok().bodyValue(returnDto);
+                });
+    }
+
+    /**
+     * Writes the short URL IDs of a full URL a page at a time, scanning the next page as the previous one is written.
+     */
+    public Mono<ServerResponse> streamShortUrlIdsByFullUrl(ServerRequest request) {
+        var fullUrl = request.queryParam(FULL_URL).orElse(null);
+        var lines = urlService.getUrlsByFullUrl(fullUrl, null, null)
+                .expand(page -> page.nextCursor() == null
+                        ? Mono.empty() : urlService.getUrlsByFullUrl(fullUrl, page.nextCursor(), null))
+                .concatMapIterable(UrlPage::urls)
+                .map(this::convertToMetricsDto);
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON).body(lines, ShortUrlMetricsDto.class);
+    }
+
+    public Mono<ServerResponse> getRedirection(ServerRequest request) {
+        var source = sourceResolver.resolve(request.headers()::firstHeader,
+                () -> request.remoteAddress().map(InetSocketAddress::getHostString).orElse(null));
+        return urlService.resolveRedirection(request.pathVariable(SHORT_URL_ID), source)
+                .flatMap(location -> ServerResponse.status(HttpStatus.SEE_OTHER)
+                        .header(HttpHeaders.LOCATION, location)
+                        .build());
+    }
+
+    public Mono<ServerResponse> getMetricsByShortUrlId(ServerRequest request) {
+        var shortUrlId = request.pathVariable(SHORT_URL_ID);
+        return urlService.getUrlByShortUrlId(shortUrlId)
+                .map(this::convertToMetricsDto)
+                .flatMap(returnDto -> urlService.countUniqueVisitors(shortUrlId)
+                        .doOnNext(returnDto::setUniqueVisitors)
+                        .thenReturn(returnDto))
+                .flatMap(returnDto -> ServerResponse.ok().bodyValue(returnDto));
+    }
+
+    public Mono<ServerResponse> getClicksByShortUrlId(ServerRequest request) {
+        var shortUrlId = request.pathVariable(SHORT_URL_ID);
+        return Mono.defer(() -> urlService.getClicks(shortUrlId, request.queryParam(GRANULARITY).orElse(null),
+                        dateTimeParam(request, FROM), dateTimeParam(request, TO)))
+                .flatMap(clicks -> ServerResponse.ok().bodyValue(convertToClicksDto(shortUrlId, clicks)));
+    }
+
+    public Mono<ServerResponse> getSourcesByShortUrlId(ServerRequest request) {
+        var shortUrlId = request.pathVariable(SHORT_URL_ID);
+        return Mono.defer(() -> urlService.getSources(shortUrlId, dateTimeParam(request, FROM), dateTimeParam(request, TO)))
+                .flatMap(sources -> ServerResponse.ok().bodyValue(convertToSourcesDto(shortUrlId, sources)));
+    }
+
+    public Mono<ServerResponse> getHotShortUrls(ServerRequest request) {
+        return Mono.defer(() -> urlService.getHotLinks(intParam(request, WINDOW), intParam(request, COUNT)))
+                .flatMap(hotLinks -> ServerResponse.ok().bodyValue(convertToHotShortUrlsDto(hotLinks)));
+    }
+
+    /**
+     * Parses an integer query parameter like the generated servlet API does, an invalid one is an error.
+     */
+    private Integer intParam(ServerRequest request, String name) {
+        var value = request.queryParam(name).orElse(null);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidFieldException(String.format("%s isn't a valid %s", value, name));
+        }
+    }
+
+    /**
+     * Parses an ISO date-time query parameter like the generated servlet API does, an invalid one is an error.
+     */
+    private Instant dateTimeParam(ServerRequest request, String name) {
+        var value = request.queryParam(name).orElse(null);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(value).toInstant();
+        } catch (DateTimeParseException e) {
+            throw new InvalidFieldException(String.format(DATE_TIME_ERROR, value, name));
+        }
+    }
+
+    /**
+     * Takes an invalid item in turn, after the chunks read before it are created and their results are written.
+     */
+    private Flux<CreationResult> createChunk(Signal<List<ShortUrlRequest>> chunk) {
+        if (chunk.isOnError()) {
+            return Flux.error(chunk.getThrowable());
+        }
+        if (!chunk.hasValue()) {
+            return Flux.empty();
+        }
+        return urlService.createShortUrls(chunk.get()).flatMapIterable(results -> results);
+    }
+
+    private <T> Mono<T> body(Mono<T> body) {
+        return body.onErrorMap(this::isInvalidBody, e -> new InvalidFieldException(INVALID_BODY_ERROR))
+                .switchIfEmpty(Mono.error(() -> new InvalidFieldException(INVALID_BODY_ERROR)));
+    }
+
+    private <T> Flux<T> body(Flux<T> body) {
+        return body.onErrorMap(this::isInvalidBody, e -> new InvalidFieldException(INVALID_BODY_ERROR));
+    }
+
+    private boolean isInvalidBody(Throwable e) {
+        return e instanceof DecodingException || e instanceof ServerWebInputException;
+    }
+
+    private ShortUrlMetricsDto convertToMetricsDto(Url url) {
+        var returnDto = new ShortUrlMetricsDto();
+        returnDto.setVisits(url.getVisits());
+        returnDto.setShortUrlId(url.getShortUrlId());
+        return returnDto;
+    }
+
+    private ShortUrlLookupItemDto convertToLookupItemDto(String shortUrlId, Url url) {
+        var returnDto = new ShortUrlLookupItemDto();
+        returnDto.setShortUrlId(shortUrlId);
+        returnDto.setFound(url != null);
+        if (url != null) {
+            returnDto.setFullUrl(url.getFullUrl());
+            returnDto.setVisits(url.getVisits());
+        }
+        return returnDto;
+    }
+
+    private ShortUrlDto convertToShortUrlDto(Url url) {
+        var date = new Date();
+        var returnDto = new ShortUrlDto();
+        returnDto.setTimestamp(date.toInstant().atOffset(ZoneOffset.UTC));
+        returnDto.setFullUrl(url.getFullUrl());
+        returnDto.setShortUrlId(url.getShortUrlId());
+        returnDto.setExpiresAt(url.getExpiresAt() == null ? null : url.getExpiresAt().atOffset(ZoneOffset.UTC));
+        return returnDto;
+    }
+
+    private ShortUrlBatchResultDto errorDto(long index, String error) {
+        var returnDto = new ShortUrlBatchResultDto();
+        returnDto.setIndex(index);
+        returnDto.setError(error);
+        return returnDto;
+    }
+
+    private ShortUrlBatchResultDto convertToBatchResultDto(long index, CreationResult result) {
+        var returnDto = new ShortUrlBatchResultDto();
+        returnDto.setIndex(index);
+        returnDto.setFullUrl(result.fullUrl());
+        returnDto.setShortUrlId(result.shortUrlId());
+        returnDto.setError(result.error());
+        return returnDto;
+    }
+}
@@ -0,0 +1,37 @@
+package com.rrg.urlshortener.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.contentType;
+
+/**
+ * Routes the paths of the API spec to {@link UrlsReactiveHandler} when the application runs on the reactive stack,
+ * fixed paths ahead of the ones matching a short URL ID.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class UrlsReactiveRouter {
+
+    @Bean
+    public RouterFunction<ServerResponse> urlsRoutes(UrlsReactiveHandler handler) {
+        return RouterFunctions.route()
+                .POST("/urls/batch", contentType(MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON),
+                        handler::createShortUrls)
+                .POST("/urls/lookup", handler::lookupShortUrls)
+                .GET("/urls/stream", handler::streamShortUrlIdsByFullUrl)
+                .GET("/urls/hot", handler::getHotShortUrls)
+                .POST("/urls", handler::createShortUrl)
+                .GET("/urls", handler::getShortUrlIdsByFullUrl)
+                .GET("/urls/{shortUrlId}/metrics/clicks", handler::getClicksByShortUrlId)
+                .GET("/urls/{shortUrlId}/metrics/sources", handler::getSourcesByShortUrlId)
+                .GET("/urls/{shortUrlId}/metrics", handler::getMetricsByShortUrlId)
+                .GET("/urls/{shortUrlId}", handler::getRedirection)
+                .build();
+    }
+}
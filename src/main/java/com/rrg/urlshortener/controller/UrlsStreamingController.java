@@ -0,0 +1,168 @@
+package com.rrg.urlshortener.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rrg.urlshortener.exception.InvalidFieldException;
+import com.rrg.urlshortener.model.CreationResult;
+import com.rrg.urlshortener.model.ShortUrlRequest;
+import com.rrg.urlshortener.model.Url;
+import com.rrg.urlshortener.openapi.model.ShortUrlBatchResultDto;
+import com.rrg.urlshortener.openapi.model.ShortUrlCreateDto;
+import com.rrg.urlshortener.openapi.model.ShortUrlMetricsDto;
+import com.rrg.urlshortener.service.UrlService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.rrg.urlshortener.controller.UrlsApiController.toInstant;
+
+/**
+ * Serves the operations tagged {@code streaming} in the API spec. Their bodies are read and written incrementally,
+ * which the generated interfaces can't express, so they're skipped by the generator and mapped here instead.
+ */
+@Slf4j
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class UrlsStreamingController {
+
+    static final String INVALID_BODY_ERROR = "Request body isn't valid JSON";
+
+    @Value("${batch.create.chunk-size}")
+    private int chunkSize;
+
+    private final UrlService urlService;
+    private final ObjectMapper objectMapper;
+
+    public UrlsStreamingController(@Qualifier("urlService") UrlService urlService, ObjectMapper objectMapper) {
+        this.urlService = urlService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Reads a JSON array or newline-delimited JSON of creations a chunk at a time, creating each chunk with pipelined
+     * writes and flushing its results before reading the next, so memory stays bounded by the chunk size.
+     */
+    @PostMapping(value = "/urls/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public void createShortUrls(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        MappingIterator<ShortUrlCreateDto> items = objectMapper.readerFor(ShortUrlCreateDto.class)
+                .readValues(request.getInputStream());
+        var chunk = readChunk(items);
+        if (chunk == null) {
+            throw new InvalidFieldException(INVALID_BODY_ERROR);
+        }
+        // The first chunk is created before anything is sent, so its failures still get a regular error response.
+        var results = urlService.createShortUrls(chunk);
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        try (var generator = objectMapper.createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            long index = 0;
+            while (true) {
+                for (var result : results) {
+                    writeLine(generator, convertToBatchResultDto(index++, result));
+                }
+                generator.flush();
+                chunk = readChunk(items);
+                if (chunk == null) {
+                    // The status is already sent, so later failures are reported in-band and end the stream.
+                    writeLine(generator, errorDto(index, INVALID_BODY_ERROR));
+                    return;
+                }
+                if (chunk.isEmpty()) {
+                    return;
+                }
+                try {
+                    results = urlService.createShortUrls(chunk);
+                } catch (RuntimeException e) {
+                    log.error("Stopped creating short URL batch at index {}", index, e);
+                    writeLine(generator, errorDto(index, e.getMessage()));
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the short URL IDs of a full URL a page at a time, flushing each page before scanning the next, so the
+     * first bytes go out after the first page and memory stays bounded by the page size.
+     */
+    @GetMapping("/urls/stream")
+    public void streamShortUrlIdsByFullUrl(@RequestParam String fullUrl, HttpServletResponse response) throws IOException {
+        // The first page is read before anything is sent, so an invalid full URL still gets a regular error response.
+        var page = urlService.getUrlsByFullUrl(fullUrl, null, null);
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        try (var generator = objectMapper.createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            while (true) {
+                for (var url : page.urls()) {
+                    writeLine(generator, convertToMetricsDto(url));
+                }
+                generator.flush();
+                if (page.nextCursor() == null) {
+                    return;
+                }
+                page = urlService.getUrlsByFullUrl(fullUrl, page.nextCursor(), null);
+            }
+        }
+    }
+
+    /**
+     * @return up to a chunk of requests, empty once the body is exhausted, or null if the body isn't valid JSON
+     */
+    private List<ShortUrlRequest> readChunk(MappingIterator<ShortUrlCreateDto> items) {
+        var chunk = new ArrayList<ShortUrlRequest>(chunkSize);
+        try {
+            while (chunk.size() < chunkSize && items.hasNextValue()) {
+                var item = items.nextValue();
+                chunk.add(new ShortUrlRequest(item.getFullUrl(), item.getDeduplicate(), toInstant(item.getExpiresAt())));
+            }
+        } catch (IOException e) {
+            log.warn("Stopped reading short URL batch after an invalid item", e);
+            return null;
+        }
+        return chunk;
+    }
+
+    private void writeLine(JsonGenerator generator, Object dto) throws IOException {
+        objectMapper.writeValue(generator, dto);
+        generator.writeRaw('\n');
+    }
+
+    private ShortUrlMetricsDto convertToMetricsDto(Url url) {
+        var returnDto = new ShortUrlMetricsDto();
+        returnDto.setVisits(url.getVisits());
+        returnDto.setShortUrlId(url.getShortUrlId());
+        return returnDto;
+    }
+
+    private ShortUrlBatchResultDto errorDto(long index, String error) {
+        var returnDto = new ShortUrlBatchResultDto();
+        returnDto.setIndex(index);
+        returnDto.setError(error);
+        return returnDto;
+    }
+
+    private ShortUrlBatchResultDto convertToBatchResultDto(long index, CreationResult result) {
+        var returnDto = new ShortUrlBatchResultDto();
+        returnDto.setIndex(index);
+        returnDto.setFullUrl(result.fullUrl());
+        returnDto.setShortUrlId(result.shortUrlId());
+        returnDto.setError(result.error());
+        return returnDto;
+    }
+}
@@ -0,0 +1,89 @@
+package com.rrg.urlshortener.counter;
+
+import com.rrg.urlshortener.model.Click;
+import com.rrg.urlshortener.model.VisitSource;
+import com.rrg.urlshortener.repository.ClickStatsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+
+/**
+ * Counts visits per short URL, minute and source in memory and periodically flushes them to the analytics of
+ * {@link ClickStatsRepository}, like {@link VisitCounter} does with the lifetime visits, so the redirect path never
+ * waits on the write. The visits of a short URL in a minute from the same referrer host and country take a single
+ * counter, written to each of their buckets at once.
+ * <p>
+ * Counters are drained and removed by {@link PendingCounts}, like those of {@link VisitCounter}, so the counters of a
+ * minute are removed by the flushes following it.
+ * <p>
+ * As the referrer host comes from the client, a short URL holds at most {@code analytics.max-pending-per-link}
+ * counters until they're flushed, so memory stays bounded whatever the referrers sent or while REDIS can't be written.
+ * The visits of a new source past it are still counted in their minute, from the {@link VisitSource#FOLDED} source.
+ */
+@Slf4j
+@Component
+public class ClickCounter extends FlushingCounter {
+
+    private static final long MILLIS_PER_MINUTE = 60_000;
+
+    @Value("${analytics.enabled}")
+    private boolean enabled;
+    @Value("${analytics.flush.batch-size}")
+    private int batchSize;
+
+    private Clock clock = Clock.systemUTC();
+
+    private final ClickStatsRepository repo;
+    private final PendingCounts<Click> counts;
+    private final Counter folded;
+
+    public ClickCounter(ClickStatsRepository repo,
+                        @Value("${analytics.max-pending-per-link}") int maxPendingPerLink,
+                        MeterRegistry meterRegistry) {
+        this.repo = repo;
+        this.counts = new PendingCounts<>(Click::shortUrlId, maxPendingPerLink);
+        this.folded = Counter.builder("analytics.clicks.folded")
+                .description("Visits counted from the other source as too many sources of their short URL were pending")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Does nothing unless {@code analytics.enabled}.
+     */
+    public void increment(String shortUrlId, VisitSource source) {
+        if (!enabled) {
+            return;
+        }
+        add(new Click(shortUrlId, clock.millis() / MILLIS_PER_MINUTE, source.withoutVisitor()), 1);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${analytics.flush.interval-ms}")
+    public void flush() {
+        super.flush();
+    }
+
+    @Override
+    protected void flushPending() {
+        for (var batch : partition(counts.drain(), batchSize)) {
+            try {
+                repo.incrementClicks(batch);
+            } catch (RuntimeException e) {
+                log.warn("Couldn't flush the analytics of {} clicks, they will be retried", batch.size(), e);
+                batch.forEach(this::add);
+            }
+        }
+    }
+
+    private void add(Click click, long visits) {
+        if (!counts.add(click, visits)) {
+            folded.increment(visits);
+            counts.addUncapped(new Click(click.shortUrlId(), click.minute(), VisitSource.FOLDED), visits);
+        }
+    }
+}
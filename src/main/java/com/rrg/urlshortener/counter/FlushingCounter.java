@@ -0,0 +1,90 @@
+package com.rrg.urlshortener.counter;
+
+import org.springframework.context.SmartLifecycle;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Accumulates something in memory and periodically flushes it to Redis, so the redirect path never waits on the
+ * write. Subclasses schedule {@link #flush()} at their own interval and implement {@link #flushPending()}, which never
+ * runs concurrently with itself, and are flushed a last time when the application stops.
+ */
+public abstract class FlushingCounter implements SmartLifecycle {
+
+    /**
+     * Stops after the web server, so nothing comes in after the last flush, and before the REDIS connection factory,
+     * so the last flush can still be written.
+     */
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 2048;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile boolean running;
+
+    /**
+     * Guarded by a lock rather than a monitor, as the flush blocks on Redis and a virtual thread blocking while
+     * holding a monitor pins its carrier thread.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (flushesOnStop()) {
+            flush();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    protected abstract void flushPending();
+
+    /**
+     * @return whether {@link #stop()} flushes, which it always does unless overridden
+     */
+    protected boolean flushesOnStop() {
+        return true;
+    }
+
+    /**
+     * Splits what is pending into batches of at most {@code batchSize} entries, each written in one round trip.
+     */
+    protected static <K, V> List<Map<K, V>> partition(Map<K, V> pending, int batchSize) {
+        var batches = new ArrayList<Map<K, V>>();
+        Map<K, V> batch = new LinkedHashMap<>();
+        for (var entry : pending.entrySet()) {
+            batch.put(entry.getKey(), entry.getValue());
+            if (batch.size() == batchSize) {
+                batches.add(batch);
+                batch = new LinkedHashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+}
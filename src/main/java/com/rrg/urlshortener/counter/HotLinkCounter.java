@@ -0,0 +1,120 @@
+package com.rrg.urlshortener.counter;
+
+import com.rrg.urlshortener.repository.ClickStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks the most visited short URLs of this instance in {@link SpaceSaving} sketches of
+ * {@code analytics.hot-links.capacity} counters, so memory stays bounded whatever the number of short URLs visited.
+ * Redirections are spread over one sketch per processor, each behind its own lock, to keep them from contending.
+ * <p>
+ * Every {@code analytics.flush.interval-ms} the sketches are swapped for empty ones, summed and added to the sorted set
+ * of the current minute in REDIS, which every instance adds to, so the ranking covers all of them. Visits whose flush
+ * fails are dropped rather than retried, as they would be added to a later minute.
+ */
+@Slf4j
+@Component
+public class HotLinkCounter extends FlushingCounter {
+
+    @Value("${analytics.hot-links.enabled}")
+    private boolean enabled;
+
+    private Clock clock = Clock.systemUTC();
+
+    private final ClickStatsRepository repo;
+    private final int capacity;
+    private final Stripe[] stripes;
+
+    public HotLinkCounter(ClickStatsRepository repo, @Value("${analytics.hot-links.capacity}") int capacity) {
+        this.repo = repo;
+        this.capacity = capacity;
+        this.stripes = new Stripe[Runtime.getRuntime().availableProcessors()];
+        for (var i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(new SpaceSaving(capacity));
+        }
+    }
+
+    /**
+     * Does nothing unless {@code analytics.hot-links.enabled}.
+     */
+    public void increment(String shortUrlId) {
+        if (!enabled) {
+            return;
+        }
+        var stripe = stripes[ThreadLocalRandom.current().nextInt(stripes.length)];
+        stripe.lock.lock();
+        try {
+            stripe.sketch.offer(shortUrlId);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${analytics.flush.interval-ms}")
+    public void flush() {
+        super.flush();
+    }
+
+    @Override
+    protected void flushPending() {
+        var visits = new HashMap<String, Long>();
+        for (var stripe : stripes) {
+            SpaceSaving sketch;
+            stripe.lock.lock();
+            try {
+                if (stripe.sketch.isEmpty()) {
+                    continue;
+                }
+                sketch = stripe.sketch;
+                stripe.sketch = new SpaceSaving(capacity);
+            } finally {
+                stripe.lock.unlock();
+            }
+            sketch.counts().forEach((shortUrlId, count) -> visits.merge(shortUrlId, count, Long::sum));
+        }
+        if (visits.isEmpty()) {
+            return;
+        }
+        try {
+            repo.addHotLinks(Instant.now(clock).truncatedTo(ChronoUnit.MINUTES), top(visits));
+        } catch (RuntimeException e) {
+            log.warn("Couldn't flush the visits of {} hot links, they are dropped", visits.size(), e);
+        }
+    }
+
+    /**
+     * @return the {@code capacity} short URLs with the most visits, as the sketches of all processors may hold more
+     */
+    private Map<String, Long> top(Map<String, Long> visits) {
+        if (visits.size() <= capacity) {
+            return visits;
+        }
+        var top = new HashMap<String, Long>();
+        visits.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(capacity)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private SpaceSaving sketch;
+
+        private Stripe(SpaceSaving sketch) {
+            this.sketch = sketch;
+        }
+    }
+}
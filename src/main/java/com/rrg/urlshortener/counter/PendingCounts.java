@@ -0,0 +1,105 @@
+package com.rrg.urlshortener.counter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Counts per key that are added to concurrently and drained by a flush.
+ * <p>
+ * Counters left idle by a drain are removed from the map. An add that lands on a removed counter moves whatever the
+ * drain didn't take back to the live counter, so no count is lost or taken twice.
+ * <p>
+ * When built with a group, such as the short URL of a key, a group holds at most {@code maxPerGroup} keys until they're
+ * drained, and the counts of a new key past it aren't added.
+ */
+final class PendingCounts<K> {
+
+    private final ConcurrentHashMap<K, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Function<K, ?> group;
+    private final int maxPerGroup;
+    private final ConcurrentHashMap<Object, Integer> groupSizes = new ConcurrentHashMap<>();
+
+    PendingCounts() {
+        this(null, Integer.MAX_VALUE);
+    }
+
+    PendingCounts(Function<K, ?> group, int maxPerGroup) {
+        this.group = group;
+        this.maxPerGroup = maxPerGroup;
+    }
+
+    /**
+     * @return false, adding nothing, if the key is new and its group already holds the maximum number of keys
+     */
+    boolean add(K key, long delta) {
+        return add(key, delta, true);
+    }
+
+    /**
+     * Adds the count of a key the group maximum doesn't apply to, such as the one past counts are folded into.
+     */
+    void addUncapped(K key, long delta) {
+        add(key, delta, false);
+    }
+
+    /**
+     * @return the counts added since the last drain, by key
+     */
+    Map<K, Long> drain() {
+        var deltas = new HashMap<K, Long>();
+        if (counters.isEmpty()) {
+            return deltas;
+        }
+        counters.forEach((key, adder) -> {
+            var delta = adder.sumThenReset();
+            if (delta == 0 && counters.remove(key, adder)) {
+                release(key);
+                delta = adder.sumThenReset();
+            }
+            if (delta != 0) {
+                deltas.put(key, delta);
+            }
+        });
+        return deltas;
+    }
+
+    private boolean add(K key, long delta, boolean capped) {
+        while (delta != 0) {
+            var adder = counters.computeIfAbsent(key, k -> reserve(k, capped) ? new LongAdder() : null);
+            if (adder == null) {
+                return false;
+            }
+            adder.add(delta);
+            if (counters.get(key) == adder) {
+                return true;
+            }
+            delta = adder.sumThenReset();
+        }
+        return true;
+    }
+
+    private boolean reserve(K key, boolean capped) {
+        if (group == null) {
+            return true;
+        }
+        var reserved = new boolean[1];
+        groupSizes.compute(group.apply(key), (k, size) -> {
+            var current = size == null ? 0 : size;
+            if (capped && current >= maxPerGroup) {
+                return size;
+            }
+            reserved[0] = true;
+            return current + 1;
+        });
+        return reserved[0];
+    }
+
+    private void release(K key) {
+        if (group != null) {
+            groupSizes.computeIfPresent(group.apply(key), (k, size) -> size > 1 ? size - 1 : null);
+        }
+    }
+}
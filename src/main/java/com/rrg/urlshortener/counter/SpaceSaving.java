@@ -0,0 +1,73 @@
+package com.rrg.urlshortener.counter;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The Space-Saving heavy hitters algorithm of Metwally, Agrawal and El Abbadi, counting the items of a stream with at
+ * most {@code capacity} counters however many distinct items there are. Once every counter is in use, a new item
+ * takes over the counter with the smallest count and adds to it, so a count is overestimated by at most the smallest
+ * count, and any item making up more than {@code 1 / capacity} of the stream always keeps its counter.
+ * <p>
+ * Not thread-safe.
+ */
+public class SpaceSaving {
+
+    private static final Comparator<Counter> BY_COUNT =
+            Comparator.<Counter>comparingLong(counter -> counter.count).thenComparingLong(counter -> counter.order);
+
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    private final TreeSet<Counter> byCount = new TreeSet<>(BY_COUNT);
+    private long order;
+
+    public SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 4 / 3 + 1);
+    }
+
+    public void offer(String item) {
+        offer(item, 1);
+    }
+
+    public void offer(String item, long count) {
+        var counter = counters.get(item);
+        if (counter != null) {
+            byCount.remove(counter);
+        } else if (counters.size() < capacity) {
+            counter = new Counter();
+            counter.item = item;
+            counter.order = order++;
+            counters.put(item, counter);
+        } else {
+            counter = byCount.pollFirst();
+            counters.remove(counter.item);
+            counter.item = item;
+            counter.order = order++;
+            counters.put(item, counter);
+        }
+        counter.count += count;
+        byCount.add(counter);
+    }
+
+    /**
+     * @return the count of each item with a counter
+     */
+    public Map<String, Long> counts() {
+        var counts = new HashMap<String, Long>(counters.size() * 4 / 3 + 1);
+        counters.forEach((item, counter) -> counts.put(item, counter.count));
+        return counts;
+    }
+
+    public boolean isEmpty() {
+        return counters.isEmpty();
+    }
+
+    private static final class Counter {
+        private String item;
+        private long count;
+        private long order;
+    }
+}
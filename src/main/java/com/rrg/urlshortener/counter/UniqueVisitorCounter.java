@@ -0,0 +1,122 @@
+package com.rrg.urlshortener.counter;
+
+import com.rrg.urlshortener.model.VisitSource;
+import com.rrg.urlshortener.repository.ClickStatsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the distinct visitors of each short URL in memory and periodically merges them into its HyperLogLog
+ * sketch in REDIS, along with the analytics of {@link ClickCounter}, so the redirect path never reads or writes
+ * REDIS for them. A visitor seen several times between two flushes is only sent once.
+ * <p>
+ * The visitors of a short URL are swapped out of the map atomically by a flush, so a visitor added concurrently lands
+ * either in the flushed set or in a new one. Visitors whose flush fails are merged back and retried.
+ * <p>
+ * At most {@code analytics.unique-visitors.max-pending} visitors are held until they're flushed, and
+ * {@code analytics.unique-visitors.max-pending-per-link} for a single short URL, so memory stays bounded while REDIS
+ * can't be written or a short URL gets a flood of visitors. Visitors past either are dropped and counted.
+ */
+@Slf4j
+@Component
+public class UniqueVisitorCounter extends FlushingCounter {
+
+    @Value("${analytics.flush.batch-size}")
+    private int batchSize;
+
+    private final ClickStatsRepository repo;
+    private final int maxPending;
+    private final int maxPendingPerLink;
+    private final Counter dropped;
+    private final ConcurrentHashMap<String, Set<Long>> visitors = new ConcurrentHashMap<>();
+    private final AtomicLong pending = new AtomicLong();
+
+    public UniqueVisitorCounter(ClickStatsRepository repo,
+                                @Value("${analytics.unique-visitors.max-pending}") int maxPending,
+                                @Value("${analytics.unique-visitors.max-pending-per-link}") int maxPendingPerLink,
+                                MeterRegistry meterRegistry) {
+        this.repo = repo;
+        this.maxPending = maxPending;
+        this.maxPendingPerLink = maxPendingPerLink;
+        this.dropped = Counter.builder("analytics.unique-visitors.dropped")
+                .description("Visitors dropped as too many were waiting to be flushed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Does nothing for a source without a visitor, which they all are unless {@code analytics.unique-visitors.enabled}.
+     */
+    public void add(String shortUrlId, VisitSource source) {
+        if (source.visitor() == VisitSource.NO_VISITOR) {
+            return;
+        }
+        visitors.compute(shortUrlId, (key, set) -> {
+            var added = set != null ? set : new HashSet<Long>();
+            offer(added, source.visitor());
+            return added.isEmpty() ? null : added;
+        });
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${analytics.flush.interval-ms}")
+    public void flush() {
+        super.flush();
+    }
+
+    @Override
+    protected void flushPending() {
+        if (visitors.isEmpty()) {
+            return;
+        }
+        var flushed = new LinkedHashMap<String, Set<Long>>();
+        for (var shortUrlId : visitors.keySet()) {
+            var removed = visitors.remove(shortUrlId);
+            if (removed != null) {
+                pending.addAndGet(-removed.size());
+                flushed.put(shortUrlId, removed);
+            }
+        }
+        for (var batch : partition(flushed, batchSize)) {
+            try {
+                repo.addVisitors(batch);
+            } catch (RuntimeException e) {
+                log.warn("Couldn't flush the unique visitors of {} short URLs, they will be retried", batch.size(), e);
+                batch.forEach(this::merge);
+            }
+        }
+    }
+
+    private void merge(String shortUrlId, Set<Long> retried) {
+        visitors.compute(shortUrlId, (key, set) -> {
+            var merged = set != null ? set : new HashSet<Long>();
+            retried.forEach(visitor -> offer(merged, visitor));
+            return merged.isEmpty() ? null : merged;
+        });
+    }
+
+    /**
+     * Called while the set of the short URL is locked by {@link ConcurrentHashMap#compute}. The total may go past its
+     * maximum by the visitors added concurrently to other short URLs.
+     */
+    private void offer(Set<Long> set, long visitor) {
+        if (set.contains(visitor)) {
+            return;
+        }
+        if (set.size() >= maxPendingPerLink || pending.get() >= maxPending) {
+            dropped.increment();
+            return;
+        }
+        set.add(visitor);
+        pending.incrementAndGet();
+    }
+}
@@ -0,0 +1,56 @@
+package com.rrg.urlshortener.counter;
+
+import com.rrg.urlshortener.repository.UrlRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Accumulates visits in memory and periodically flushes them to Redis as pipelined HINCRBY batches, so the redirect
+ * path never waits on the write. Visits are counted and drained by {@link PendingCounts}, so none is lost or counted
+ * twice.
+ */
+@Slf4j
+@Component
+public class VisitCounter extends FlushingCounter {
+
+    @Value("${visits.flush.batch-size}")
+    private int batchSize;
+    @Value("${visits.flush.on-shutdown}")
+    private boolean flushOnShutdown;
+
+    private final UrlRepository repo;
+    private final PendingCounts<String> counts = new PendingCounts<>();
+
+    public VisitCounter(UrlRepository repo) {
+        this.repo = repo;
+    }
+
+    public void increment(String shortUrlId) {
+        counts.add(shortUrlId, 1);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${visits.flush.interval-ms}")
+    public void flush() {
+        super.flush();
+    }
+
+    @Override
+    protected boolean flushesOnStop() {
+        return flushOnShutdown;
+    }
+
+    @Override
+    protected void flushPending() {
+        for (var batch : partition(counts.drain(), batchSize)) {
+            try {
+                repo.incrementVisits(batch);
+            } catch (RuntimeException e) {
+                log.warn("Couldn't flush visits for {} short URLs, they will be retried", batch.size(), e);
+                batch.forEach(counts::add);
+            }
+        }
+    }
+}
@@ -1,48 +1,75 @@
 package com.rrg.urlshortener.exception;
 
+import com.rrg.urlshortener.metrics.UrlMetrics;
 import com.rrg.urlshortener.openapi.model.ErrorDto;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.time.ZoneOffset;
 import java.util.Date;
 
+/**
+ * Renders the exceptions of the controllers and of the redirect fast path as an {@link ErrorDto}, counting each in
+ * the {@code api.errors} meter of {@link UrlMetrics}.
+ */
 @ControllerAdvice
 public class ControllerExceptionHandler {
 
+    private final UrlMetrics metrics;
+
+    public ControllerExceptionHandler(UrlMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     @ExceptionHandler(MissingFieldException.class)
     public ResponseEntity<ErrorDto> missingFieldExceptionHandler(MissingFieldException e) {
-        return createResponseEntity(e.getMessage(), HttpStatus.BAD_REQUEST);
+        return createResponseEntity(e, e.getMessage(), HttpStatus.BAD_REQUEST);
     }
 
     @ExceptionHandler(InvalidFieldException.class)
     public ResponseEntity<ErrorDto> invalidFieldExceptionHandler(InvalidFieldException e) {
-        return createResponseEntity(e.getMessage(), HttpStatus.BAD_REQUEST);
+        return createResponseEntity(e, e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * A query parameter that doesn't convert to its type, such as a date-time that isn't ISO 8601.
+     */
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ErrorDto> argumentTypeMismatchExceptionHandler(MethodArgumentTypeMismatchException e) {
+        return createResponseEntity(e, String.format("%s isn't a valid %s", e.getValue(), e.getName()),
+                HttpStatus.BAD_REQUEST);
     }
 
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<ErrorDto> shortUrlNotFoundException(ResourceNotFoundException e) {
-        return createResponseEntity(e.getMessage(), HttpStatus.NOT_FOUND);
+        return createResponseEntity(e, e.getMessage(), HttpStatus.NOT_FOUND);
     }
 
     @ExceptionHandler(ShortUrlIdGenerationException.class)
     public ResponseEntity<ErrorDto> shortUrlIdGenerationException(ShortUrlIdGenerationException e) {
-        return createResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        return createResponseEntity(e, e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorDto> globalExceptionHandler(Exception e) {
-        return createResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        return createResponseEntity(e, e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
-    private ResponseEntity<ErrorDto> createResponseEntity(String message, HttpStatus status) {
+    static ErrorDto createErrorDto(String message, HttpStatusCode status) {
         var date = new Date();
         var errorDto = new ErrorDto();
         errorDto.setTimestamp(date.toInstant().atOffset(ZoneOffset.UTC));
         errorDto.setStatusCode(status.value());
         errorDto.setMessage(message);
-        return new ResponseEntity<>(errorDto, status);
+        return errorDto;
+    }
+
+    private ResponseEntity<ErrorDto> createResponseEntity(Exception e, String message, HttpStatus status) {
+        metrics.error(e, status);
+        return new ResponseEntity<>(createErrorDto(message, status), status);
     }
 }
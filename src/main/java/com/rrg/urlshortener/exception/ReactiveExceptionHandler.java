@@ -0,0 +1,74 @@
+package com.rrg.urlshortener.exception;
+
+import com.rrg.urlshortener.metrics.UrlMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.reactive.result.view.ViewResolver;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebExceptionHandler;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Renders errors raised while writing a streamed body with the same statuses and body as
+ * {@link ControllerExceptionHandler}, which the reactive dispatcher only applies to errors raised by the handler
+ * itself. Errors are only rendered while the response isn't committed, later ones are reported in-band by the
+ * stream. Runs ahead of Spring Boot's error handler, and counts the errors it renders in {@code api.errors}.
+ */
+@Component
+@Order(-2)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler implements WebExceptionHandler {
+
+    private final ServerResponse.Context context;
+    private final UrlMetrics metrics;
+
+    public ReactiveExceptionHandler(ServerCodecConfigurer codecConfigurer, UrlMetrics metrics) {
+        this.metrics = metrics;
+        this.context = new ServerResponse.Context() {
+            @Override
+            public List<HttpMessageWriter<?>> messageWriters() {
+                return codecConfigurer.getWriters();
+            }
+
+            @Override
+            public List<ViewResolver> viewResolvers() {
+                return List.of();
+            }
+        };
+    }
+
+    @Override
+    public Mono<Void> handle(ServerWebExchange exchange, Throwable e) {
+        if (exchange.getResponse().isCommitted()) {
+            return Mono.error(e);
+        }
+        var status = status(e);
+        metrics.error(e, status);
+        var message = e instanceof ResponseStatusException statusException ? statusException.getReason() : e.getMessage();
+        return ServerResponse.status(status)
+                .bodyValue(ControllerExceptionHandler.createErrorDto(message, status))
+                .flatMap(response -> response.writeTo(exchange, context));
+    }
+
+    private HttpStatusCode status(Throwable e) {
+        if (e instanceof MissingFieldException || e instanceof InvalidFieldException) {
+            return HttpStatus.BAD_REQUEST;
+        }
+        if (e instanceof ResourceNotFoundException) {
+            return HttpStatus.NOT_FOUND;
+        }
+        if (e instanceof ResponseStatusException statusException) {
+            return statusException.getStatusCode();
+        }
+        return HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+}
@@ -1,7 +1,11 @@
 package com.rrg.urlshortener.exception;
 
+/**
+ * Answered with a 404 and never logged, so it doesn't fill in a stack trace, which is most of what throwing it costs
+ * when unknown short URL IDs are probed.
+ */
 public class ResourceNotFoundException extends RuntimeException {
     public ResourceNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,131 @@
+package com.rrg.urlshortener.expiry;
+
+import com.rrg.urlshortener.config.RedisTopology;
+import com.rrg.urlshortener.repository.RedisHashUrlMapping;
+import com.rrg.urlshortener.repository.UrlRedisMapping;
+import com.rrg.urlshortener.repository.UrlRepository;
+import com.rrg.urlshortener.tiering.ColdUrlStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Removes the IDs of expired short URLs from the sets REDIS can't expire with them, the indexes of full URLs shared
+ * by every short URL of a full URL and, in the {@code hash} format, the {@code url} set of all IDs. REDIS expires the
+ * hash of a short URL by itself, leaving its ID in these sets. Searches already skip and remove the IDs they don't
+ * find, this removes the others every {@code expiry.reaper.interval-ms}, {@code expiry.reaper.batch-size} IDs at a
+ * time.
+ * <p>
+ * IDs are first checked with a pipelined {@code EXISTS}, possibly on a replica, and only those missing there are
+ * checked again on the primary and removed, so that a hash missing from a lagging replica isn't taken for an expired
+ * one. The expired short URLs of the cold store are removed along the way.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "expiry.reaper.enabled", havingValue = "true", matchIfMissing = true)
+public class IndexReaper {
+
+    @Value("${expiry.reaper.batch-size}")
+    private int batchSize;
+
+    private final StringRedisTemplate template;
+    private final UrlRedisMapping mapping;
+    private final UrlRepository repo;
+    private final ColdUrlStore coldStore;
+    private final RedisTopology topology;
+
+    public IndexReaper(StringRedisTemplate template, UrlRedisMapping mapping, UrlRepository repo,
+                       Optional<ColdUrlStore> coldStore, @Value("${redis.topology}") RedisTopology topology) {
+        this.template = template;
+        this.mapping = mapping;
+        this.repo = repo;
+        this.coldStore = coldStore.orElse(null);
+        this.topology = topology;
+    }
+
+    @Scheduled(initialDelayString = "${expiry.reaper.interval-ms}", fixedDelayString = "${expiry.reaper.interval-ms}")
+    public void reap() {
+        var options = ScanOptions.scanOptions().match(mapping.fullUrlIndexPattern()).type(DataType.SET)
+                .count(batchSize).build();
+        var removed = 0L;
+        if (topology == RedisTopology.CLUSTER) {
+            // A scan only covers the keys of one node on a cluster.
+            try (var connection = template.getRequiredConnectionFactory().getClusterConnection()) {
+                for (var node : connection.clusterGetMasterReplicaMap().keySet()) {
+                    removed += reapAll(connection.scan(node, options));
+                }
+            }
+        } else {
+            removed += reapAll(template.executeWithStickyConnection(connection -> connection.keyCommands().scan(options)));
+            // The set of all IDs is only kept by the hash format, and never on a cluster.
+            if (mapping instanceof RedisHashUrlMapping) {
+                removed += reap(RedisHashUrlMapping.KEYSPACE);
+            }
+        }
+        var coldRemoved = 0;
+        if (coldStore != null) {
+            for (var i = coldStore.size() / batchSize; i >= 0; i--) {
+                coldRemoved += coldStore.removeExpired(batchSize);
+            }
+        }
+        if (removed > 0 || coldRemoved > 0) {
+            log.info("Removed {} expired short URL IDs from the REDIS sets and {} expired short URLs from the cold store",
+                    removed, coldRemoved);
+        }
+    }
+
+    private long reapAll(Cursor<byte[]> setKeys) {
+        var removed = 0L;
+        try (setKeys) {
+            while (setKeys.hasNext()) {
+                removed += reap(new String(setKeys.next(), StandardCharsets.UTF_8));
+            }
+        }
+        return removed;
+    }
+
+    private long reap(String setKey) {
+        var removed = 0L;
+        var batch = new ArrayList<String>(batchSize);
+        try (var cursor = template.opsForSet().scan(setKey, ScanOptions.scanOptions().count(batchSize).build())) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == batchSize) {
+                    removed += removeMissing(setKey, batch);
+                    batch.clear();
+                }
+            }
+        }
+        return removed + removeMissing(setKey, batch);
+    }
+
+    private long removeMissing(String setKey, List<String> shortUrlIds) {
+        if (shortUrlIds.isEmpty()) {
+            return 0;
+        }
+        var exists = template.executePipelined((RedisCallback<Object>) connection -> {
+            shortUrlIds.forEach(shortUrlId ->
+                    connection.keyCommands().exists(mapping.key(shortUrlId).getBytes(StandardCharsets.UTF_8)));
+            return null;
+        });
+        var missing = new ArrayList<String>();
+        for (var i = 0; i < shortUrlIds.size(); i++) {
+            if (Boolean.FALSE.equals(exists.get(i))) {
+                missing.add(shortUrlIds.get(i));
+            }
+        }
+        return missing.isEmpty() ? 0 : repo.removeMissing(setKey, missing);
+    }
+}
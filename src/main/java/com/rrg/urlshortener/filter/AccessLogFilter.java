@@ -0,0 +1,115 @@
+package com.rrg.urlshortener.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs one line per request with its method, path, status and latency to the {@code access} logger, which
+ * logback-spring.xml hands to an asynchronous appender. Bodies aren't buffered, the first
+ * {@code access-log.body.max-length} bytes are only copied for the sampled requests and, with
+ * {@code access-log.body.on-error}, for every request, as the status isn't known until the response is written, to be
+ * logged for error responses.
+ */
+@Slf4j(topic = "access")
+@Component
+@Order(RedirectFilter.ORDER - 1)
+@ConditionalOnProperty(name = "access-log.enabled", havingValue = "true", matchIfMissing = true)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    private static final int ERROR_STATUS = 400;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final List<String> excludedPaths;
+    private final double bodySampleRate;
+    private final boolean bodyOnError;
+    private final int bodyMaxLength;
+
+    public AccessLogFilter(@Value("${access-log.excluded-paths}") String[] excludedPaths,
+                           @Value("${access-log.body.sample-rate}") double bodySampleRate,
+                           @Value("${access-log.body.on-error}") boolean bodyOnError,
+                           @Value("${access-log.body.max-length}") int bodyMaxLength) {
+        this.excludedPaths = Arrays.stream(excludedPaths).filter(StringUtils::isNotBlank).map(String::trim).toList();
+        this.bodySampleRate = bodySampleRate;
+        this.bodyOnError = bodyOnError;
+        this.bodyMaxLength = bodyMaxLength;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!log.isInfoEnabled()) {
+            return true;
+        }
+        var path = request.getRequestURI();
+        for (var excludedPath : excludedPaths) {
+            if (pathMatcher.match(excludedPath, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        var sampled = bodySampleRate > 0 && ThreadLocalRandom.current().nextDouble() < bodySampleRate;
+        if (!sampled && !bodyOnError) {
+            var start = System.nanoTime();
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                logAccess(request, response.getStatus(), start);
+            }
+            return;
+        }
+        var requestWrapper = new BoundedTeeRequestWrapper(request, bodyMaxLength);
+        var responseWrapper = new BoundedTeeResponseWrapper(response, bodyMaxLength);
+        var start = System.nanoTime();
+        try {
+            filterChain.doFilter(requestWrapper, responseWrapper);
+        } finally {
+            responseWrapper.finish();
+            var status = responseWrapper.getStatus();
+            if (sampled || status >= ERROR_STATUS) {
+                logAccess(request, status, start, requestWrapper.getCapturedBody(), responseWrapper.getCapturedBody());
+            } else {
+                logAccess(request, status, start);
+            }
+        }
+    }
+
+    private void logAccess(HttpServletRequest request, int status, long start) {
+        log.info("method={} path={} query={} status={} durationMs={}", request.getMethod(), request.getRequestURI(),
+                query(request), status, elapsedMillis(start));
+    }
+
+    private void logAccess(HttpServletRequest request, int status, long start, String requestBody, String responseBody) {
+        log.info("method={} path={} query={} status={} durationMs={} requestBody={} responseBody={}",
+                request.getMethod(), request.getRequestURI(), query(request), status, elapsedMillis(start),
+                requestBody, responseBody);
+    }
+
+    private String query(HttpServletRequest request) {
+        return request.getQueryString() != null ? request.getQueryString() : StringUtils.EMPTY;
+    }
+
+    private long elapsedMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
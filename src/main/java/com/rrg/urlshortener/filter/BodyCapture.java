@@ -0,0 +1,53 @@
+package com.rrg.urlshortener.filter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Keeps a copy of the first bytes of a body passing through, allocating nothing until the first byte.
+ */
+class BodyCapture {
+
+    private final int maxLength;
+    private ByteArrayOutputStream bytes;
+    private boolean truncated;
+
+    BodyCapture(int maxLength) {
+        this.maxLength = maxLength;
+    }
+
+    void write(int b) {
+        if (room() > 0) {
+            buffer().write(b);
+        } else {
+            truncated = true;
+        }
+    }
+
+    void write(byte[] b, int off, int len) {
+        var copied = Math.min(len, room());
+        if (copied > 0) {
+            buffer().write(b, off, copied);
+        }
+        truncated |= copied < len;
+    }
+
+    String toString(Charset charset) {
+        if (bytes == null) {
+            return "";
+        }
+        var body = bytes.toString(charset);
+        return truncated ? body + "..." : body;
+    }
+
+    private int room() {
+        return maxLength - (bytes == null ? 0 : bytes.size());
+    }
+
+    private ByteArrayOutputStream buffer() {
+        if (bytes == null) {
+            bytes = new ByteArrayOutputStream(Math.min(maxLength, 256));
+        }
+        return bytes;
+    }
+}
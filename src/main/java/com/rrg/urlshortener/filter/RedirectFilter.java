@@ -0,0 +1,130 @@
+package com.rrg.urlshortener.filter;
+
+import com.rrg.urlshortener.service.UrlService;
+import com.rrg.urlshortener.util.VisitSourceResolver;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.filter.ServerHttpObservationFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Serves {@code GET /urls/{shortUrlId}} ahead of the dispatcher servlet, setting the 303 status and the cached
+ * location on the response directly instead of going through handler mapping, argument resolution and
+ * {@code ResponseEntity} handling. Failed lookups are rendered by the same {@code @ControllerAdvice} as the
+ * controller, other requests carry on down the chain.
+ * <p>
+ * The paths under {@code /urls/} whose second segment is a literal in a handler mapping, such as
+ * {@code /urls/stream}, are left to the dispatcher servlet. They're read from the handler mappings on the first
+ * request, once every controller is mapped.
+ */
+@Component
+@Order(RedirectFilter.ORDER)
+@ConditionalOnProperty(name = "redirect.fast-path.enabled", havingValue = "true", matchIfMissing = true)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RedirectFilter extends OncePerRequestFilter {
+
+    static final int ORDER = Ordered.LOWEST_PRECEDENCE;
+
+    private static final String PATH_PREFIX = "/urls/";
+    private static final String PATH_PATTERN = "/urls/{shortUrlId}";
+
+    private final UrlService urlService;
+    private final VisitSourceResolver sourceResolver;
+    private final HandlerExceptionResolver exceptionResolver;
+    private final ObjectProvider<RequestMappingHandlerMapping> handlerMappings;
+    private volatile Set<String> reservedSegments;
+
+    public RedirectFilter(@Qualifier("urlService") UrlService urlService, VisitSourceResolver sourceResolver,
+                          @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver,
+                          ObjectProvider<RequestMappingHandlerMapping> handlerMappings) {
+        this.urlService = urlService;
+        this.sourceResolver = sourceResolver;
+        this.exceptionResolver = exceptionResolver;
+        this.handlerMappings = handlerMappings;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.GET.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        var shortUrlId = shortUrlId(request);
+        if (shortUrlId == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        ServerHttpObservationFilter.findObservationContext(request)
+                .ifPresent(context -> context.setPathPattern(PATH_PATTERN));
+        String location;
+        try {
+            location = urlService.resolveRedirection(shortUrlId,
+                    sourceResolver.resolve(request::getHeader, request::getRemoteAddr));
+        } catch (RuntimeException e) {
+            if (exceptionResolver.resolveException(request, response, null, e) == null) {
+                throw e;
+            }
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_SEE_OTHER);
+        response.setHeader(HttpHeaders.LOCATION, location);
+    }
+
+    /**
+     * @return the short URL ID of a redirection path, null for any other path or one that needs decoding
+     */
+    private String shortUrlId(HttpServletRequest request) {
+        var uri = request.getRequestURI();
+        var start = request.getContextPath().length();
+        if (!uri.startsWith(PATH_PREFIX, start)) {
+            return null;
+        }
+        start += PATH_PREFIX.length();
+        if (start == uri.length()) {
+            return null;
+        }
+        for (var i = start; i < uri.length(); i++) {
+            var c = uri.charAt(i);
+            if (c == '/' || c == '%' || c == ';') {
+                return null;
+            }
+        }
+        var shortUrlId = uri.substring(start);
+        return reservedSegments().contains(shortUrlId) ? null : shortUrlId;
+    }
+
+    private Set<String> reservedSegments() {
+        var segments = reservedSegments;
+        if (segments == null) {
+            segments = handlerMappings.orderedStream()
+                    .flatMap(handlerMapping -> handlerMapping.getHandlerMethods().keySet().stream())
+                    .flatMap(info -> info.getPatternValues().stream())
+                    .filter(pattern -> pattern.startsWith(PATH_PREFIX))
+                    .map(pattern -> StringUtils.substringBefore(pattern.substring(PATH_PREFIX.length()), "/"))
+                    .filter(segment -> !segment.isEmpty() && StringUtils.containsNone(segment, '{', '*'))
+                    .collect(Collectors.toUnmodifiableSet());
+            reservedSegments = segments;
+        }
+        return segments;
+    }
+}
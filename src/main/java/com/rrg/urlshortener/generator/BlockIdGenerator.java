@@ -0,0 +1,76 @@
+package com.rrg.urlshortener.generator;
+
+import com.rrg.urlshortener.exception.ShortUrlIdGenerationException;
+import com.rrg.urlshortener.util.UrlUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Leases ranges of {@code id.block-size} sequence numbers from a Redis counter and encodes them with the permitted
+ * characters, so each instance hands out unique IDs with one Redis call per block.
+ */
+@Component
+@ConditionalOnProperty(name = "id.strategy", havingValue = "block")
+public class BlockIdGenerator implements IdGenerator {
+
+    private static final String SEQUENCE_KEY = "id:sequence";
+
+    @Value("${id.block-size}")
+    private long blockSize;
+
+    private final UrlUtil util;
+    private final StringRedisTemplate template;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long next;
+    private long end;
+
+    public BlockIdGenerator(UrlUtil util, StringRedisTemplate template) {
+        this.util = util;
+        this.template = template;
+    }
+
+    @Override
+    public String generateId() {
+        lock.lock();
+        try {
+            if (next == end) {
+                leaseBlock(blockSize);
+            }
+            return util.encode(next++);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<String> generateIds(int count) {
+        lock.lock();
+        try {
+            var ids = new ArrayList<String>(count);
+            while (ids.size() < count) {
+                if (next == end) {
+                    leaseBlock(Math.max(blockSize, count - ids.size()));
+                }
+                ids.add(util.encode(next++));
+            }
+            return ids;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void leaseBlock(long size) {
+        var blockEnd = template.opsForValue().increment(SEQUENCE_KEY, size);
+        if (blockEnd == null) {
+            throw new ShortUrlIdGenerationException("Couldn't lease a block of Short URL IDs");
+        }
+        end = blockEnd;
+        next = blockEnd - size;
+    }
+}
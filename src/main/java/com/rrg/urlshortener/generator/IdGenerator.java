@@ -0,0 +1,17 @@
+package com.rrg.urlshortener.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public interface IdGenerator {
+
+    String generateId();
+
+    default List<String> generateIds(int count) {
+        var ids = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(generateId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,21 @@
+package com.rrg.urlshortener.generator;
+
+import com.rrg.urlshortener.util.UrlUtil;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "id.strategy", havingValue = "random", matchIfMissing = true)
+public class RandomIdGenerator implements IdGenerator {
+
+    private final UrlUtil util;
+
+    public RandomIdGenerator(UrlUtil util) {
+        this.util = util;
+    }
+
+    @Override
+    public String generateId() {
+        return util.generateId();
+    }
+}
@@ -0,0 +1,89 @@
+package com.rrg.urlshortener.generator;
+
+import com.rrg.urlshortener.exception.ShortUrlIdGenerationException;
+import com.rrg.urlshortener.util.UrlUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Builds IDs from a millisecond timestamp, the {@code id.node-id} of the instance and a per-millisecond sequence, so
+ * instances with distinct node IDs never need to coordinate.
+ * <p>
+ * The 63 bits of an ID are encoded with the {@code permitted.chars}, so {@code id.length} doesn't bound its length,
+ * only pads shorter IDs. With the 62 default characters, IDs take 10 characters until 2030 and 11 after, the most 63
+ * bits take. A warning is logged when {@code id.length} is shorter than that.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "id.strategy", havingValue = "snowflake")
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    static final long EPOCH = 1704067200000L;
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final UrlUtil util;
+    private final Clock clock;
+    private final long nodeId;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long lastTimestamp = -1;
+    private long sequence;
+
+    @Autowired
+    public SnowflakeIdGenerator(UrlUtil util, @Value("${id.node-id}") long nodeId) {
+        this(util, nodeId, Clock.systemUTC());
+    }
+
+    SnowflakeIdGenerator(UrlUtil util, long nodeId, Clock clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException(String.format("id.node-id must be between 0 and %d", MAX_NODE_ID));
+        }
+        this.util = util;
+        this.nodeId = nodeId;
+        this.clock = clock;
+        var maxLength = util.encode(Long.MAX_VALUE).length();
+        if (util.encode(0).length() < maxLength) {
+            log.warn("Snowflake short URL IDs take up to {} characters, id.length doesn't apply to them", maxLength);
+        }
+    }
+
+    @Override
+    public String generateId() {
+        lock.lock();
+        try {
+            var timestamp = clock.millis();
+            if (timestamp < lastTimestamp) {
+                throw new ShortUrlIdGenerationException("Clock moved backwards, couldn't generate Short URL ID");
+            }
+            if (timestamp == lastTimestamp) {
+                sequence = (sequence + 1) & SEQUENCE_MASK;
+                if (sequence == 0) {
+                    timestamp = waitNextMillis(timestamp);
+                }
+            } else {
+                sequence = 0;
+            }
+            lastTimestamp = timestamp;
+            return util.encode(((timestamp - EPOCH) << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long waitNextMillis(long timestamp) {
+        var next = clock.millis();
+        while (next <= timestamp) {
+            Thread.onSpinWait();
+            next = clock.millis();
+        }
+        return next;
+    }
+}
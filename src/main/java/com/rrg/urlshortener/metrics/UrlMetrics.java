@@ -0,0 +1,120 @@
+package com.rrg.urlshortener.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The meters of the URL service, every tag drawn from a fixed set so the number of series stays bounded whatever
+ * the traffic:
+ * <ul>
+ *     <li>{@code urls.operations}, the latency of each {@link Operation} tagged {@code operation} and {@code outcome},
+ *     {@code success} or {@code error}, whose histogram buckets are set by
+ *     {@code management.metrics.distribution.*}</li>
+ *     <li>{@code urls.id.collisions}, the generated IDs already taken, each costing another insert attempt</li>
+ *     <li>{@code urls.id.exhausted}, the short URLs not created as every attempt collided</li>
+ *     <li>{@code api.errors}, the error responses tagged {@code exception}, the simple name of its class, and
+ *     {@code status}</li>
+ * </ul>
+ * The timers and counters of the hot paths are registered once up front, so recording never looks them up.
+ */
+@Component
+public class UrlMetrics {
+
+    private static final String OPERATIONS = "urls.operations";
+    private static final String ERRORS = "api.errors";
+
+    public enum Operation {
+        CREATE, CREATE_BATCH, LOOKUP, SEARCH, REDIRECT;
+
+        private final String tag = name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Operation, Timer> successes = new EnumMap<>(Operation.class);
+    private final Map<Operation, Timer> errors = new EnumMap<>(Operation.class);
+    private final Counter idCollisions;
+    private final Counter idExhausted;
+
+    public UrlMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (var operation : Operation.values()) {
+            successes.put(operation, timer(operation, "success"));
+            errors.put(operation, timer(operation, "error"));
+        }
+        this.idCollisions = Counter.builder("urls.id.collisions")
+                .description("Generated short URL IDs that were already taken")
+                .register(meterRegistry);
+        this.idExhausted = Counter.builder("urls.id.exhausted")
+                .description("Short URLs not created as every generated ID was already taken")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Times a blocking call, an exception thrown counting as an error.
+     */
+    public <T> T time(Operation operation, Supplier<T> call) {
+        var start = System.nanoTime();
+        try {
+            var result = call.get();
+            successes.get(operation).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (RuntimeException e) {
+            errors.get(operation).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    /**
+     * Times a call from subscription until it terminates or is cancelled, an error signal counting as an error.
+     */
+    public <T> Mono<T> time(Operation operation, Mono<T> call) {
+        return Mono.defer(() -> {
+            var start = System.nanoTime();
+            return call.doFinally(signal -> (signal == SignalType.ON_ERROR ? errors : successes).get(operation)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    public void idCollisions(int count) {
+        if (count > 0) {
+            idCollisions.increment(count);
+        }
+    }
+
+    public void idExhausted(int count) {
+        if (count > 0) {
+            idExhausted.increment(count);
+        }
+    }
+
+    /**
+     * Counts an error response, by exception class and status.
+     */
+    public void error(Throwable e, HttpStatusCode status) {
+        Counter.builder(ERRORS)
+                .description("Error responses by exception and status")
+                .tag("exception", e.getClass().getSimpleName())
+                .tag("status", String.valueOf(status.value()))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Timer timer(Operation operation, String outcome) {
+        return Timer.builder(OPERATIONS)
+                .description("Latency of the URL service operations")
+                .tag("operation", operation.tag)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
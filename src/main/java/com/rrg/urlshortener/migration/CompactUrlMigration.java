@@ -0,0 +1,201 @@
+package com.rrg.urlshortener.migration;
+
+import com.rrg.urlshortener.repository.CompactUrlMapping;
+import com.rrg.urlshortener.repository.RedisHashUrlMapping;
+import com.rrg.urlshortener.repository.UrlRedisMapping;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts the short URLs stored in the {@code @RedisHash} format to the compact format of
+ * {@code storage.format=compact}, each in a single atomic step. Converted short URLs leave the {@code url} set it scans,
+ * so the conversion can be re-run safely. It should only be enabled on a single instance, while no instance still
+ * writes the {@code @RedisHash} format. Short URLs aren't found until they're converted.
+ * <p>
+ * The memory a short URL takes in REDIS before and after is sampled with {@code MEMORY USAGE} over the first batch,
+ * counting the shared sets by their share per member, and logged with the number of converted short URLs.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "storage.migrate-to-compact", havingValue = "true")
+public class CompactUrlMigration implements ApplicationRunner {
+
+    private static final RedisScript<Boolean> COMPACT_URL =
+            RedisScript.of(new ClassPathResource("scripts/compact-url.lua"), Boolean.class);
+    private static final byte[] MEMORY_USAGE = "USAGE".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SCRIPT_LOAD = "LOAD".getBytes(StandardCharsets.UTF_8);
+
+    @Value("${storage.migration.batch-size}")
+    private int batchSize;
+
+    private MemorySample sample;
+
+    private final StringRedisTemplate template;
+    private final RedisHashUrlMapping source;
+    private final UrlRedisMapping target;
+
+    public CompactUrlMigration(StringRedisTemplate template, RedisConverter converter, UrlRedisMapping target) {
+        if (!(target instanceof CompactUrlMapping)) {
+            throw new IllegalStateException("storage.migrate-to-compact needs storage.format=compact");
+        }
+        this.template = template;
+        this.source = new RedisHashUrlMapping(converter);
+        this.target = target;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        var keyspaceShare = share(List.of(RedisHashUrlMapping.KEYSPACE)).get(0);
+        var converted = 0;
+        var batch = new ArrayList<String>(batchSize);
+        try (var cursor = template.opsForSet().scan(RedisHashUrlMapping.KEYSPACE,
+                ScanOptions.scanOptions().count(batchSize).build())) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == batchSize) {
+                    converted += convertBatch(batch, keyspaceShare);
+                    batch.clear();
+                }
+            }
+        }
+        converted += convertBatch(batch, keyspaceShare);
+        if (sample != null) {
+            log.info("Converted {} short URLs to the compact format, taking {} bytes each instead of {}, sampled over {}",
+                    converted, Math.round(sample.after()), Math.round(sample.before()), sample.size());
+        } else {
+            log.info("Converted {} short URLs to the compact format", converted);
+        }
+    }
+
+    private int convertBatch(List<String> shortUrlIds, double keyspaceShare) {
+        if (sample == null) {
+            sample = sample(shortUrlIds, keyspaceShare);
+            return sample == null ? 0 : sample.converted();
+        }
+        return convert(shortUrlIds);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int convert(List<String> shortUrlIds) {
+        if (shortUrlIds.isEmpty()) {
+            return 0;
+        }
+        var fullUrls = (List<String>) (List<?>) template.executePipelined((RedisCallback<Object>) connection -> {
+            shortUrlIds.forEach(shortUrlId -> connection.hashCommands()
+                    .hGet(bytes(source.key(shortUrlId)), bytes(source.fullUrlField())));
+            return null;
+        });
+        var sha = bytes(COMPACT_URL.getSha1());
+        // The scripting commands of the Jedis connection can't be pipelined, raw commands can.
+        var results = template.executePipelined((RedisCallback<Object>) connection -> {
+            connection.execute("SCRIPT", SCRIPT_LOAD, bytes(COMPACT_URL.getScriptAsString()));
+            for (var i = 0; i < shortUrlIds.size(); i++) {
+                if (fullUrls.get(i) != null) {
+                    connection.execute("EVALSHA", evalShaArgs(sha, shortUrlIds.get(i), fullUrls.get(i)));
+                }
+            }
+            return null;
+        });
+        return (int) results.stream().skip(1).filter(Long.valueOf(1)::equals).count();
+    }
+
+    private byte[][] evalShaArgs(byte[] sha, String shortUrlId, String fullUrl) {
+        return new byte[][]{sha, bytes("6"), bytes(source.key(shortUrlId)), bytes(source.indexesKey(shortUrlId)),
+                bytes(RedisHashUrlMapping.KEYSPACE), bytes(source.fullUrlIndexKey(fullUrl)), bytes(target.key(shortUrlId)),
+                bytes(target.fullUrlIndexKey(fullUrl)), bytes(shortUrlId), bytes(fullUrl), bytes(source.fullUrlField()),
+                bytes(source.visitsField()), bytes(target.fullUrlField()), bytes(target.visitsField()),
+                bytes(target.expiresAtField())};
+    }
+
+    /**
+     * Converts the short URLs, measuring the memory they take before and after.
+     */
+    @SuppressWarnings("unchecked")
+    private MemorySample sample(List<String> shortUrlIds, double keyspaceShare) {
+        var fullUrls = (List<String>) (List<?>) template.executePipelined((RedisCallback<Object>) connection -> {
+            shortUrlIds.forEach(shortUrlId -> connection.hashCommands()
+                    .hGet(bytes(source.key(shortUrlId)), bytes(source.fullUrlField())));
+            return null;
+        });
+        var ids = new ArrayList<String>(shortUrlIds.size());
+        var sourceHashes = new ArrayList<String>(shortUrlIds.size());
+        var targetHashes = new ArrayList<String>(shortUrlIds.size());
+        var sourceIndexes = new ArrayList<String>(shortUrlIds.size());
+        var targetIndexes = new ArrayList<String>(shortUrlIds.size());
+        for (var i = 0; i < shortUrlIds.size(); i++) {
+            if (fullUrls.get(i) != null) {
+                var shortUrlId = shortUrlIds.get(i);
+                ids.add(shortUrlId);
+                sourceHashes.add(source.key(shortUrlId));
+                sourceHashes.add(source.indexesKey(shortUrlId));
+                sourceIndexes.add(source.fullUrlIndexKey(fullUrls.get(i)));
+                targetHashes.add(target.key(shortUrlId));
+                targetIndexes.add(target.fullUrlIndexKey(fullUrls.get(i)));
+            }
+        }
+        if (ids.isEmpty()) {
+            return null;
+        }
+        var before = usage(sourceHashes) + sum(share(sourceIndexes)) + keyspaceShare * ids.size();
+        var converted = convert(ids);
+        var after = usage(targetHashes) + sum(share(targetIndexes));
+        return new MemorySample(ids.size(), converted, before / ids.size(), after / ids.size());
+    }
+
+    private long usage(List<String> keys) {
+        return template.executePipelined((RedisCallback<Object>) connection -> {
+            keys.forEach(key -> memoryUsage(connection, key));
+            return null;
+        }).stream().mapToLong(usage -> usage == null ? 0 : (Long) usage).sum();
+    }
+
+    /**
+     * @return the memory of each set divided by its number of members
+     */
+    private List<Double> share(List<String> setKeys) {
+        var results = template.executePipelined((RedisCallback<Object>) connection -> {
+            for (var key : setKeys) {
+                memoryUsage(connection, key);
+                connection.setCommands().sCard(bytes(key));
+            }
+            return null;
+        });
+        var shares = new ArrayList<Double>(setKeys.size());
+        for (var i = 0; i < results.size(); i += 2) {
+            var usage = (Long) results.get(i);
+            var members = (Long) results.get(i + 1);
+            shares.add(usage == null || members == 0 ? 0 : (double) usage / members);
+        }
+        return shares;
+    }
+
+    private void memoryUsage(RedisConnection connection, String key) {
+        connection.execute("MEMORY", MEMORY_USAGE, bytes(key));
+    }
+
+    private double sum(List<Double> values) {
+        return values.stream().mapToDouble(Double::doubleValue).sum();
+    }
+
+    private byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private record MemorySample(int size, int converted, double before, double after) {
+    }
+}
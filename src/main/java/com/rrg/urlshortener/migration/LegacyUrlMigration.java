@@ -0,0 +1,122 @@
+package com.rrg.urlshortener.migration;
+
+import com.rrg.urlshortener.model.Url;
+import com.rrg.urlshortener.repository.UrlRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves records written under the legacy {@code Url} keyspace, where lookups went through a {@code shortUrlId}
+ * secondary index, to the {@code url} keyspace keyed by the short URL ID. Already migrated records are left untouched,
+ * so the migration can be re-run safely. It should only be enabled on a single instance.
+ * <p>
+ * A record without a short URL ID, or whose ID is taken by another full URL in the {@code url} keyspace, isn't
+ * migrated. It's kept under its legacy key and moved from the {@code Url} set to {@value #SKIPPED_KEY}, so it can be
+ * looked into without being scanned again, and its IDs are logged.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "storage.migrate-legacy-urls", havingValue = "true")
+public class LegacyUrlMigration implements ApplicationRunner {
+
+    private static final String LEGACY_KEYSPACE = "Url";
+    static final String SKIPPED_KEY = LEGACY_KEYSPACE + ":skipped";
+
+    @Value("${storage.migration.batch-size}")
+    private int batchSize;
+
+    private final StringRedisTemplate template;
+    private final UrlRepository repo;
+
+    public LegacyUrlMigration(StringRedisTemplate template, UrlRepository repo) {
+        this.template = template;
+        this.repo = repo;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        var migrated = 0;
+        var skipped = 0;
+        var batch = new ArrayList<String>(batchSize);
+        try (var cursor = template.opsForSet().scan(LEGACY_KEYSPACE, ScanOptions.scanOptions().count(batchSize).build())) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == batchSize) {
+                    var batchMigrated = migrate(batch);
+                    migrated += batchMigrated;
+                    skipped += batch.size() - batchMigrated;
+                    batch.clear();
+                }
+            }
+        }
+        var batchMigrated = migrate(batch);
+        migrated += batchMigrated;
+        skipped += batch.size() - batchMigrated;
+        if (skipped > 0) {
+            log.warn("Migrated {} legacy short URLs to the url keyspace, skipped {} listed in {}", migrated, skipped,
+                    SKIPPED_KEY);
+        } else {
+            log.info("Migrated {} legacy short URLs to the url keyspace", migrated);
+        }
+    }
+
+    /**
+     * @return the number of records migrated, the others are skipped
+     */
+    private int migrate(List<String> legacyIds) {
+        var migrated = 0;
+        var skipped = new ArrayList<String>();
+        for (var legacyId : legacyIds) {
+            var legacyKey = LEGACY_KEYSPACE + ":" + legacyId;
+            var fields = template.<String, String>opsForHash().entries(legacyKey);
+            var shortUrlId = fields.get("shortUrlId");
+            if (shortUrlId != null && isMigrated(shortUrlId, fields)) {
+                delete(legacyId, legacyKey);
+                migrated++;
+            } else {
+                template.opsForSet().move(LEGACY_KEYSPACE, legacyId, SKIPPED_KEY);
+                skipped.add(legacyId);
+            }
+        }
+        if (!skipped.isEmpty()) {
+            log.warn("Kept the legacy short URLs {} without a short URL ID or whose ID is taken by another full URL",
+                    skipped);
+        }
+        return migrated;
+    }
+
+    /**
+     * @return whether the record is stored in the {@code url} keyspace, by now or by an earlier run
+     */
+    private boolean isMigrated(String shortUrlId, Map<String, String> fields) {
+        var url = new Url();
+        url.setShortUrlId(shortUrlId);
+        url.setFullUrl(fields.get("fullUrl"));
+        url.setVisits(Long.parseLong(fields.getOrDefault("visits", "0")));
+        if (repo.insertIfAbsent(url, false) != null) {
+            return true;
+        }
+        return repo.findByShortUrlId(shortUrlId)
+                .map(stored -> stored.getFullUrl().equals(url.getFullUrl()))
+                .orElse(false);
+    }
+
+    private void delete(String legacyId, String legacyKey) {
+        var indexKeys = template.opsForSet().members(legacyKey + ":idx");
+        if (indexKeys != null) {
+            indexKeys.forEach(indexKey -> template.opsForSet().remove(indexKey, legacyId));
+        }
+        template.delete(List.of(legacyKey, legacyKey + ":idx", legacyKey + ":phantom"));
+        template.opsForSet().remove(LEGACY_KEYSPACE, legacyId);
+    }
+}
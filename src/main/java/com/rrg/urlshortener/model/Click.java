@@ -0,0 +1,9 @@
+package com.rrg.urlshortener.model;
+
+/**
+ * Visits of a short URL in a minute from a source, counted together until they're written.
+ *
+ * @param minute minutes since the epoch
+ */
+public record Click(String shortUrlId, long minute, VisitSource source) {
+}
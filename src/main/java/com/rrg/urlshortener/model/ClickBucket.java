@@ -0,0 +1,6 @@
+package com.rrg.urlshortener.model;
+
+import java.time.Instant;
+
+public record ClickBucket(Instant start, long visits) {
+}
@@ -0,0 +1,9 @@
+package com.rrg.urlshortener.model;
+
+import java.util.List;
+
+/**
+ * The visits of a short URL per bucket of {@code granularity}, in order.
+ */
+public record ClickSeries(Granularity granularity, List<ClickBucket> buckets) {
+}
@@ -0,0 +1,9 @@
+package com.rrg.urlshortener.model;
+
+import java.util.Map;
+
+/**
+ * Visits per referrer host and per country, each ordered from the most visits to the fewest.
+ */
+public record ClickSources(Map<String, Long> referrers, Map<String, Long> countries) {
+}
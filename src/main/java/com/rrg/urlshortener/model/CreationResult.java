@@ -0,0 +1,12 @@
+package com.rrg.urlshortener.model;
+
+public record CreationResult(String fullUrl, String shortUrlId, String error) {
+
+    public static CreationResult created(Url url) {
+        return new CreationResult(url.getFullUrl(), url.getShortUrlId(), null);
+    }
+
+    public static CreationResult failed(String fullUrl, String error) {
+        return new CreationResult(fullUrl, null, error);
+    }
+}
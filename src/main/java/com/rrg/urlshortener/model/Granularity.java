@@ -0,0 +1,33 @@
+package com.rrg.urlshortener.model;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Length of the buckets visits are counted in, in UTC.
+ */
+public enum Granularity {
+
+    MINUTE(ChronoUnit.MINUTES, 60),
+    HOUR(ChronoUnit.HOURS, 24),
+    DAY(ChronoUnit.DAYS, 30);
+
+    private final ChronoUnit unit;
+    private final int defaultCount;
+
+    Granularity(ChronoUnit unit, int defaultCount) {
+        this.unit = unit;
+        this.defaultCount = defaultCount;
+    }
+
+    public ChronoUnit unit() {
+        return unit;
+    }
+
+    /**
+     * @return the range returned when none is given
+     */
+    public Duration defaultRange() {
+        return unit.getDuration().multipliedBy(defaultCount);
+    }
+}
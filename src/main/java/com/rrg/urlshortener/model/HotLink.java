@@ -0,0 +1,7 @@
+package com.rrg.urlshortener.model;
+
+/**
+ * A short URL among the most visited of a recent window, with its approximate visits over the window.
+ */
+public record HotLink(String shortUrlId, long visits) {
+}
@@ -0,0 +1,9 @@
+package com.rrg.urlshortener.model;
+
+import java.util.List;
+
+/**
+ * The most visited short URLs over the last {@code windowMinutes} minutes, from the most visits to the fewest.
+ */
+public record HotLinks(int windowMinutes, List<HotLink> links) {
+}
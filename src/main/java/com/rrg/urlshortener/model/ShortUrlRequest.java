@@ -0,0 +1,10 @@
+package com.rrg.urlshortener.model;
+
+import java.time.Instant;
+
+public record ShortUrlRequest(String fullUrl, Boolean deduplicate, Instant expiresAt) {
+
+    public ShortUrlRequest(String fullUrl, Boolean deduplicate) {
+        this(fullUrl, deduplicate, null);
+    }
+}
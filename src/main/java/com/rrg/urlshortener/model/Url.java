@@ -5,15 +5,19 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.redis.core.RedisHash;
 import org.springframework.data.redis.core.index.Indexed;
 
+import java.time.Instant;
+
 @Data
-@RedisHash("Url")
+@RedisHash("url")
 public class Url {
 
     @Id
-    private Integer id;
+    private String shortUrlId;
     @Indexed
     private String fullUrl;
-    @Indexed
-    private String shortUrlId;
     private long visits;
+    /**
+     * When the short URL stops existing, null if it never does.
+     */
+    private Instant expiresAt;
 }
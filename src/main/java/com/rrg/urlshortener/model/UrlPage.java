@@ -0,0 +1,9 @@
+package com.rrg.urlshortener.model;
+
+import java.util.List;
+
+/**
+ * A page of a cursor-based iteration, {@code nextCursor} is null on the last page.
+ */
+public record UrlPage(List<Url> urls, String nextCursor) {
+}
@@ -0,0 +1,84 @@
+package com.rrg.urlshortener.model;
+
+import java.util.Locale;
+
+/**
+ * Where a visit comes from, as told by the headers of its request.
+ *
+ * @param referrerHost the lower-case host of the {@code Referer} header, {@value #DIRECT} without a valid one
+ * @param country      the upper-case two-letter code of the country header, {@value #UNKNOWN_COUNTRY} without one
+ * @param visitor      a hash of the client key identifying the visitor, {@value #NO_VISITOR} when unique visitors
+ *                     aren't counted
+ */
+public record VisitSource(String referrerHost, String country, long visitor) {
+
+    public static final String DIRECT = "direct";
+    public static final String UNKNOWN_COUNTRY = "unknown";
+    /**
+     * The referrer host and country of the visits folded together once a short URL has too many distinct sources.
+     */
+    public static final String OTHER = "other";
+    public static final long NO_VISITOR = 0;
+    public static final VisitSource UNKNOWN = new VisitSource(DIRECT, UNKNOWN_COUNTRY);
+    public static final VisitSource FOLDED = new VisitSource(OTHER, OTHER);
+
+    private static final String SCHEME_SEPARATOR = "://";
+    private static final int MAX_HOST_LENGTH = 253;
+
+    public VisitSource(String referrerHost, String country) {
+        this(referrerHost, country, NO_VISITOR);
+    }
+
+    public static VisitSource of(String referer, String country) {
+        return of(referer, country, NO_VISITOR);
+    }
+
+    public static VisitSource of(String referer, String country, long visitor) {
+        return new VisitSource(referrerHost(referer), country(country), visitor);
+    }
+
+    /**
+     * @return the referrer host and country only, which the visits are counted by
+     */
+    public VisitSource withoutVisitor() {
+        return visitor == NO_VISITOR ? this : new VisitSource(referrerHost, country);
+    }
+
+    /**
+     * Reads the host by hand rather than with {@link java.net.URI}, which throws on the malformed headers some clients
+     * send, as this runs on every redirection.
+     */
+    private static String referrerHost(String referer) {
+        if (referer == null) {
+            return DIRECT;
+        }
+        var start = referer.indexOf(SCHEME_SEPARATOR);
+        if (start < 0) {
+            return DIRECT;
+        }
+        start += SCHEME_SEPARATOR.length();
+        var end = start;
+        while (end < referer.length() && "/?#".indexOf(referer.charAt(end)) < 0) {
+            end++;
+        }
+        var authority = referer.substring(start, end);
+        var host = authority.substring(authority.lastIndexOf('@') + 1);
+        var port = host.lastIndexOf(':');
+        if (port >= 0 && host.indexOf(']') < port) {
+            host = host.substring(0, port);
+        }
+        return host.isEmpty() || host.length() > MAX_HOST_LENGTH ? DIRECT : host.toLowerCase(Locale.ROOT);
+    }
+
+    private static String country(String country) {
+        if (country == null || country.length() != 2 || !isAsciiAlphanumeric(country.charAt(0))
+                || !isAsciiAlphanumeric(country.charAt(1))) {
+            return UNKNOWN_COUNTRY;
+        }
+        return country.toUpperCase(Locale.ROOT);
+    }
+
+    private static boolean isAsciiAlphanumeric(char c) {
+        return c < 128 && Character.isLetterOrDigit(c);
+    }
+}
@@ -0,0 +1,172 @@
+package com.rrg.urlshortener.repository;
+
+import com.rrg.urlshortener.model.Click;
+import com.rrg.urlshortener.model.ClickBucket;
+import com.rrg.urlshortener.model.ClickSources;
+import com.rrg.urlshortener.model.Granularity;
+import com.rrg.urlshortener.model.HotLink;
+import com.rrg.urlshortener.model.VisitSource;
+import com.rrg.urlshortener.repository.ClickStatsMapping.Increment;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes and reads the visit analytics laid out by {@link ClickStatsMapping}, each call in a single pipeline.
+ */
+@Repository
+public class ClickStatsRepository {
+
+    private final StringRedisTemplate template;
+    private final ClickStatsMapping mapping;
+
+    public ClickStatsRepository(StringRedisTemplate template, ClickStatsMapping mapping) {
+        this.template = template;
+        this.mapping = mapping;
+    }
+
+    /**
+     * Adds the visits of the clicks to their buckets, merging the clicks that share a field into a single
+     * {@code HINCRBY}, and sets the expiry of each hash written. The fields of a hash with a maximum number of fields
+     * are added by a single {@link ClickStatsMapping#INCREMENT_CAPPED} call.
+     */
+    public void incrementClicks(Map<Click, Long> visitsByClick) {
+        var increments = new LinkedHashMap<String, Map<String, Long>>();
+        var lastIncrements = new HashMap<String, Increment>();
+        visitsByClick.forEach((click, visits) -> mapping.increments(click).forEach(increment -> {
+            increments.computeIfAbsent(increment.key(), key -> new LinkedHashMap<>())
+                    .merge(increment.field(), visits, Long::sum);
+            lastIncrements.put(increment.key(), increment);
+        }));
+        template.executePipelined((RedisCallback<Object>) connection -> {
+            increments.forEach((key, fields) -> {
+                var increment = lastIncrements.get(key);
+                var expireAt = increment.expireAt().toEpochMilli();
+                if (increment.maxFields() != Increment.UNBOUNDED) {
+                    incrementCapped(connection, key, fields, increment.maxFields(), expireAt);
+                    return;
+                }
+                var keyBytes = bytes(key);
+                fields.forEach((field, visits) -> connection.hashCommands().hIncrBy(keyBytes, bytes(field), visits));
+                connection.keyCommands().pExpireAt(keyBytes, expireAt);
+            });
+            return null;
+        });
+    }
+
+    /**
+     * Sends the script itself rather than its SHA1, like the pipelined scripts of {@link UrlRepositoryCustomImpl}.
+     */
+    private void incrementCapped(RedisConnection connection, String key, Map<String, Long> fields, int maxFields,
+                                 long expireAt) {
+        var keysAndArgs = new byte[4 + fields.size() * 2][];
+        keysAndArgs[0] = bytes(key);
+        keysAndArgs[1] = bytes(String.valueOf(maxFields));
+        keysAndArgs[2] = bytes(VisitSource.OTHER);
+        keysAndArgs[3] = bytes(String.valueOf(expireAt));
+        var i = 4;
+        for (var field : fields.entrySet()) {
+            keysAndArgs[i++] = bytes(field.getKey());
+            keysAndArgs[i++] = bytes(String.valueOf(field.getValue()));
+        }
+        connection.scriptingCommands().eval(bytes(ClickStatsMapping.INCREMENT_CAPPED.getScriptAsString()),
+                ReturnType.INTEGER, 1, keysAndArgs);
+    }
+
+    /**
+     * Adds the visitors of each short URL to its sketch with a single {@code PFADD}, and pushes back its expiry.
+     *
+     * @param visitorsByShortUrlId the visitor hashes of each short URL, sent as 8 bytes each
+     */
+    public void addVisitors(Map<String, ? extends Collection<Long>> visitorsByShortUrlId) {
+        var retention = mapping.uniqueVisitorsRetention().toMillis();
+        template.executePipelined((RedisCallback<Object>) connection -> {
+            visitorsByShortUrlId.forEach((shortUrlId, visitors) -> {
+                var key = bytes(mapping.uniqueVisitorsKey(shortUrlId));
+                var elements = visitors.stream()
+                        .map(visitor -> ByteBuffer.allocate(Long.BYTES).putLong(visitor).array())
+                        .toArray(byte[][]::new);
+                connection.hyperLogLogCommands().pfAdd(key, elements);
+                connection.keyCommands().pExpire(key, retention);
+            });
+            return null;
+        });
+    }
+
+    /**
+     * @return the approximate number of distinct visitors of the short URL, 0 when none was counted
+     */
+    public long countUniqueVisitors(String shortUrlId) {
+        return template.opsForHyperLogLog().size(mapping.uniqueVisitorsKey(shortUrlId));
+    }
+
+    /**
+     * Adds the visits of the short URLs to the sorted set of the minute, then trims it to the short URLs with the most
+     * visits, as every instance adds its own.
+     */
+    public void addHotLinks(Instant minute, Map<String, Long> visitsByShortUrlId) {
+        var key = bytes(mapping.hotLinksKey(minute));
+        template.executePipelined((RedisCallback<Object>) connection -> {
+            visitsByShortUrlId.forEach((shortUrlId, visits) ->
+                    connection.zSetCommands().zIncrBy(key, visits, bytes(shortUrlId)));
+            connection.zSetCommands().zRemRange(key, 0, -mapping.hotLinksCapacity() - 1L);
+            connection.keyCommands().pExpireAt(key, mapping.hotLinksExpireAt(minute).toEpochMilli());
+            return null;
+        });
+    }
+
+    /**
+     * @param window the number of minutes up to the one holding {@code now}, included
+     * @return the {@code count} short URLs with the most visits over the minutes, most visits first
+     */
+    @SuppressWarnings("unchecked")
+    public List<HotLink> findHotLinks(Instant now, int window, int count) {
+        List<String> top = template.execute(ClickStatsMapping.TOP_LINKS, mapping.hotLinksKeys(now, window),
+                String.valueOf(count));
+        return ClickStatsMapping.hotLinks(top);
+    }
+
+    /**
+     * @param starts the start of each bucket, from {@link ClickStatsMapping#bucketStarts(Granularity, Instant, Instant)}
+     */
+    public List<ClickBucket> findClicks(String shortUrlId, Granularity granularity, List<Instant> starts) {
+        var keys = mapping.bucketKeys(shortUrlId, granularity, starts);
+        return mapping.buckets(shortUrlId, granularity, starts, hashes(keys));
+    }
+
+    /**
+     * @param days the start of each day
+     */
+    public ClickSources findSources(String shortUrlId, List<Instant> days) {
+        return new ClickSources(ClickStatsMapping.sum(hashes(mapping.referrerKeys(shortUrlId, days)).values()),
+                ClickStatsMapping.sum(hashes(mapping.countryKeys(shortUrlId, days)).values()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Map<String, String>> hashes(List<String> keys) {
+        var results = template.executePipelined((RedisCallback<Object>) connection -> {
+            keys.forEach(key -> connection.hashCommands().hGetAll(bytes(key)));
+            return null;
+        });
+        var hashes = new HashMap<String, Map<String, String>>();
+        for (var i = 0; i < keys.size(); i++) {
+            hashes.put(keys.get(i), (Map<String, String>) results.get(i));
+        }
+        return hashes;
+    }
+
+    private byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
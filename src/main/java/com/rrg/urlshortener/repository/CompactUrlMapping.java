@@ -0,0 +1,117 @@
+package com.rrg.urlshortener.repository;
+
+import com.rrg.urlshortener.model.Url;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A layout keeping only what the API reads: the full URL and visits under one-letter fields of {@code u:{shortUrlId}},
+ * visits only once there are some and the expiry only if there's one, and the {@code u:f:{digest}} index of the IDs
+ * of a full URL. The index is named after the first 128 bits of the SHA-256 of the full URL rather than the full URL
+ * itself, and there's neither a type hint, a set of every ID nor a set of the index keys holding an ID, the only
+ * index key of a short URL follows from its full URL.
+ * <p>
+ * A hash is stored in REDIS's compact listpack (ziplist before REDIS 7) encoding as long as its values are no longer
+ * than {@code hash-max-listpack-value} ({@code hash-max-ziplist-value}), 64 bytes by default. Raising it above the
+ * length of most full URLs keeps the hashes of their short URLs compact too.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.format", havingValue = "compact")
+public class CompactUrlMapping implements UrlRedisMapping {
+
+    private static final String PREFIX = "u:";
+    private static final String INDEX_PREFIX = "u:f:";
+    private static final String FULL_URL = "f";
+    private static final String VISITS = "v";
+    private static final String EXPIRES_AT = "e";
+    private static final int DIGEST_LENGTH = 16;
+    private static final RedisScript<String> INSERT_IF_ABSENT =
+            RedisScript.of(new ClassPathResource("scripts/insert-compact-if-absent.lua"), String.class);
+
+    @Override
+    public String key(String shortUrlId) {
+        return PREFIX + shortUrlId;
+    }
+
+    @Override
+    public String fullUrlIndexKey(String fullUrl) {
+        var digest = Arrays.copyOf(UrlRedisMapping.sha256Digest(fullUrl), DIGEST_LENGTH);
+        return INDEX_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    @Override
+    public String fullUrlIndexPattern() {
+        return INDEX_PREFIX + "*";
+    }
+
+    @Override
+    public String fullUrlField() {
+        return FULL_URL;
+    }
+
+    @Override
+    public String visitsField() {
+        return VISITS;
+    }
+
+    @Override
+    public String expiresAtField() {
+        return EXPIRES_AT;
+    }
+
+    @Override
+    public RedisScript<String> insertScript() {
+        return INSERT_IF_ABSENT;
+    }
+
+    @Override
+    public Url read(String shortUrlId, Map<String, String> hash) {
+        if (hash == null || hash.isEmpty()) {
+            return null;
+        }
+        var url = new Url();
+        url.setShortUrlId(shortUrlId);
+        url.setFullUrl(hash.get(FULL_URL));
+        var visits = hash.get(VISITS);
+        url.setVisits(visits == null ? 0 : Long.parseLong(visits));
+        var expiresAt = hash.get(EXPIRES_AT);
+        url.setExpiresAt(expiresAt == null ? null : Instant.ofEpochMilli(Long.parseLong(expiresAt)));
+        return url;
+    }
+
+    @Override
+    public InsertCall insertCall(Url url, boolean deduplicate) {
+        var indexKey = fullUrlIndexKey(url.getFullUrl());
+        var keys = new ArrayList<String>();
+        keys.add(key(url.getShortUrlId()));
+        keys.add(indexKey);
+        if (deduplicate) {
+            keys.add(UrlRedisMapping.deduplicationKey(url.getFullUrl()));
+        }
+        var args = new ArrayList<String>();
+        args.add(url.getShortUrlId());
+        args.add(deduplicate ? "1" : "0");
+        var expiresAt = url.getExpiresAt() == null ? "" : String.valueOf(url.getExpiresAt().toEpochMilli());
+        args.add(expiresAt);
+        args.add(FULL_URL);
+        args.add(url.getFullUrl());
+        if (url.getVisits() > 0) {
+            args.add(VISITS);
+            args.add(String.valueOf(url.getVisits()));
+        }
+        if (!expiresAt.isEmpty()) {
+            args.add(EXPIRES_AT);
+            args.add(expiresAt);
+        }
+        return new InsertCall(keys, args, List.of(indexKey), null, null);
+    }
+}
@@ -0,0 +1,77 @@
+package com.rrg.urlshortener.repository;
+
+import com.rrg.urlshortener.model.ClickBucket;
+import com.rrg.urlshortener.model.ClickSources;
+import com.rrg.urlshortener.model.Granularity;
+import com.rrg.urlshortener.model.HotLink;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking counterpart of the reads of {@link ClickStatsRepository}, the analytics are still written by
+ * {@link ClickStatsRepository} as the visits are flushed through the blocking connections.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveClickStatsRepository {
+
+    private final ReactiveStringRedisTemplate template;
+    private final ClickStatsMapping mapping;
+
+    public ReactiveClickStatsRepository(ReactiveStringRedisTemplate template, ClickStatsMapping mapping) {
+        this.template = template;
+        this.mapping = mapping;
+    }
+
+    /**
+     * @see ClickStatsRepository#findClicks(String, Granularity, List)
+     */
+    public Mono<List<ClickBucket>> findClicks(String shortUrlId, Granularity granularity, List<Instant> starts) {
+        return hashes(mapping.bucketKeys(shortUrlId, granularity, starts))
+                .map(hashes -> mapping.buckets(shortUrlId, granularity, starts, hashes));
+    }
+
+    /**
+     * @see ClickStatsRepository#findSources(String, List)
+     */
+    public Mono<ClickSources> findSources(String shortUrlId, List<Instant> days) {
+        return Mono.zip(hashes(mapping.referrerKeys(shortUrlId, days)), hashes(mapping.countryKeys(shortUrlId, days)))
+                .map(hashes -> new ClickSources(ClickStatsMapping.sum(hashes.getT1().values()),
+                        ClickStatsMapping.sum(hashes.getT2().values())));
+    }
+
+    /**
+     * @see ClickStatsRepository#countUniqueVisitors(String)
+     */
+    public Mono<Long> countUniqueVisitors(String shortUrlId) {
+        return template.opsForHyperLogLog().size(mapping.uniqueVisitorsKey(shortUrlId));
+    }
+
+    /**
+     * @see ClickStatsRepository#findHotLinks(Instant, int, int)
+     */
+    @SuppressWarnings("unchecked")
+    public Mono<List<HotLink>> findHotLinks(Instant now, int window, int count) {
+        return template.execute(ClickStatsMapping.TOP_LINKS, mapping.hotLinksKeys(now, window),
+                        List.of(String.valueOf(count)))
+                .next()
+                .map(top -> ClickStatsMapping.hotLinks((List<String>) top))
+                .defaultIfEmpty(List.of());
+    }
+
+    private Mono<Map<String, Map<String, String>>> hashes(List<String> keys) {
+        return Flux.fromIterable(keys)
+                .flatMap(key -> template.<String, String>opsForHash().entries(key)
+                        .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                        .map(hash -> Map.entry(key, hash)))
+                .collect(HashMap::new, (hashes, entry) -> hashes.put(entry.getKey(), entry.getValue()));
+    }
+}
@@ -0,0 +1,207 @@
+package com.rrg.urlshortener.repository;
+
+import com.rrg.urlshortener.config.RedisTopology;
+import com.rrg.urlshortener.model.Url;
+import com.rrg.urlshortener.model.UrlPage;
+import com.rrg.urlshortener.repository.UrlRedisMapping.InsertCall;
+import com.rrg.urlshortener.tiering.ColdUrlStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.rrg.urlshortener.repository.UrlRedisMapping.EXISTS;
+import static com.rrg.urlshortener.repository.UrlRedisMapping.GET_OR_SET;
+import static com.rrg.urlshortener.repository.UrlRedisMapping.INSERT_HASH_IF_ABSENT;
+import static com.rrg.urlshortener.repository.UrlRedisMapping.REMOVE_MISSING;
+import static com.rrg.urlshortener.repository.UrlRedisMapping.SCAN_END;
+import static com.rrg.urlshortener.repository.UrlRedisMapping.SCAN_INDEX;
+
+/**
+ * Non-blocking counterpart of {@link UrlRepository} over Lettuce, reading and writing the same keys. Lettuce sends the
+ * commands of concurrent calls over a shared connection without waiting for each reply, so the lookups of a batch
+ * are pipelined without an explicit pipeline. The cold store of {@code tiering.enabled} is read and written on the
+ * bounded elastic scheduler, as it blocks on file reads.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUrlRepository {
+
+    @Value("${redis.topology}")
+    private RedisTopology topology;
+
+    private final ReactiveStringRedisTemplate template;
+    private final UrlRedisMapping mapping;
+    private final ColdUrlStore coldStore;
+
+    public ReactiveUrlRepository(ReactiveStringRedisTemplate template, UrlRedisMapping mapping,
+                                 Optional<ColdUrlStore> coldStore) {
+        this.template = template;
+        this.mapping = mapping;
+        this.coldStore = coldStore.orElse(null);
+    }
+
+    /**
+     * @see UrlRepositoryCustom#insertIfAbsent(Url, boolean)
+     * @return the short URL ID the full URL is stored under, or empty if the short URL ID is already taken
+     */
+    public Mono<String> insertIfAbsent(Url url, boolean deduplicate) {
+        var call = mapping.insertCall(url, deduplicate);
+        if (coldStore == null) {
+            return insert(call);
+        }
+        return Mono.fromCallable(() -> coldStore.contains(url.getShortUrlId()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(demoted -> demoted ? Mono.empty() : insert(call));
+    }
+
+    private Mono<String> insert(InsertCall call) {
+        if (topology == RedisTopology.CLUSTER) {
+            return insertIntoCluster(call);
+        }
+        return template.execute(mapping.insertScript(), call.keys(), call.args()).next();
+    }
+
+    /**
+     * @return the stored short URL ID per URL, in order, with null where the short URL ID is already taken
+     */
+    public Mono<List<String>> insertAllIfAbsent(List<Url> urls, boolean deduplicate) {
+        return Flux.fromIterable(urls)
+                .flatMapSequential(url -> insertIfAbsent(url, deduplicate).map(Optional::of).defaultIfEmpty(Optional.empty()))
+                .collect(() -> new ArrayList<String>(urls.size()), (ids, id) -> ids.add(id.orElse(null)));
+    }
+
+    public Mono<Url> findByShortUrlId(String shortUrlId) {
+        return find(shortUrlId, true);
+    }
+
+    /**
+     * @return the URLs found, keyed by short URL ID, IDs that don't exist are left out
+     */
+    public Mono<Map<String, Url>> findAllByShortUrlIds(Collection<String> shortUrlIds) {
+        return findAll(shortUrlIds, true);
+    }
+
+    /**
+     * @param promote whether a short URL found in the cold store is moved back to REDIS
+     * @see UrlRepositoryCustom#findByShortUrlId(String)
+     */
+    private Mono<Url> find(String shortUrlId, boolean promote) {
+        var url = template.<String, String>opsForHash().entries(mapping.key(shortUrlId))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .mapNotNull(hash -> mapping.read(shortUrlId, hash));
+        if (coldStore == null) {
+            return url;
+        }
+        var coldUrl = Mono.fromCallable(() -> coldStore.get(shortUrlId)).subscribeOn(Schedulers.boundedElastic());
+        return url.switchIfEmpty(promote ? coldUrl.flatMap(this::promote) : coldUrl);
+    }
+
+    private Mono<Map<String, Url>> findAll(Collection<String> shortUrlIds, boolean promote) {
+        return Flux.fromIterable(shortUrlIds)
+                .flatMapSequential(shortUrlId -> find(shortUrlId, promote).map(url -> Map.entry(shortUrlId, url)))
+                .collect(LinkedHashMap::new, (urls, entry) -> urls.put(entry.getKey(), entry.getValue()));
+    }
+
+    /**
+     * Moves a short URL read from the cold store back to REDIS, an ID already taken there was moved back by a
+     * concurrent read.
+     */
+    private Mono<Url> promote(Url url) {
+        return insert(mapping.insertCall(url, false))
+                .then(Mono.fromRunnable(() -> coldStore.removeAll(List.of(url.getShortUrlId())))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .thenReturn(url);
+    }
+
+    /**
+     * @see UrlRepositoryCustom#findPageByFullUrl(String, String, int)
+     */
+    @SuppressWarnings("unchecked")
+    public Mono<UrlPage> findPageByFullUrl(String fullUrl, String cursor, int count) {
+        // The scan runs in a script as the reactive connection doesn't expose the SSCAN cursor, and a script is sent
+        // to the node holding the index on a cluster.
+        return template.execute(SCAN_INDEX, List.of(mapping.fullUrlIndexKey(fullUrl)), List.of(cursor, String.valueOf(count)))
+                .next()
+                .flatMap(page -> {
+                    var nextCursor = (String) page.get(0);
+                    List<String> shortUrlIds = page.subList(1, page.size());
+                    // Short URLs found in the cold store aren't moved back to REDIS by a search.
+                    return findAll(shortUrlIds, false).flatMap(urls -> removeMissing(mapping.fullUrlIndexKey(fullUrl),
+                                    shortUrlIds.stream().filter(shortUrlId -> !urls.containsKey(shortUrlId)).toList())
+                            .thenReturn(new UrlPage(List.copyOf(urls.values()),
+                                    SCAN_END.equals(nextCursor) ? null : nextCursor)));
+                });
+    }
+
+    /**
+     * @see UrlRepositoryCustom#removeMissing(String, Collection)
+     */
+    private Mono<Long> removeMissing(String setKey, List<String> shortUrlIds) {
+        if (shortUrlIds.isEmpty()) {
+            return Mono.just(0L);
+        }
+        var candidates = coldStore == null ? Mono.just(shortUrlIds)
+                : Mono.fromCallable(() -> shortUrlIds.stream().filter(shortUrlId -> !coldStore.contains(shortUrlId)).toList())
+                        .subscribeOn(Schedulers.boundedElastic());
+        return candidates.flatMap(ids -> {
+            if (ids.isEmpty()) {
+                return Mono.just(0L);
+            }
+            if (topology == RedisTopology.CLUSTER) {
+                // The set and the hashes are in different slots, so the hashes are checked first and the IDs removed after.
+                return Flux.fromIterable(ids)
+                        .filterWhen(shortUrlId -> template.execute(EXISTS, List.of(mapping.key(shortUrlId))).next()
+                                .map(exists -> exists == 0))
+                        .collectList()
+                        .flatMap(missing -> missing.isEmpty() ? Mono.just(0L)
+                                : template.opsForSet().remove(setKey, missing.toArray()));
+            }
+            var keys = new ArrayList<String>(ids.size() + 1);
+            keys.add(setKey);
+            ids.forEach(shortUrlId -> keys.add(mapping.key(shortUrlId)));
+            return template.execute(REMOVE_MISSING, keys, ids).next();
+        });
+    }
+
+    /**
+     * Inserts in the single-slot steps described in {@link UrlRedisMapping}, a mapping missed on a lagging replica is
+     * caught when mapping the claimed ID.
+     */
+    private Mono<String> insertIntoCluster(InsertCall call) {
+        var shortUrlId = call.shortUrlId();
+        var insert = template.execute(INSERT_HASH_IF_ABSENT, List.of(call.hashKey()), call.hashArgs())
+                .next()
+                .filter(Boolean::booleanValue)
+                .flatMap(claimed -> call.deduplicates()
+                        ? template.execute(GET_OR_SET, List.of(call.deduplicationKey()), List.of(shortUrlId)).next()
+                        : Mono.just(shortUrlId))
+                .flatMap(stored -> stored.equals(shortUrlId)
+                        ? index(call).thenReturn(stored)
+                        : template.delete(call.hashKey()).thenReturn(stored));
+        return call.deduplicates() ? template.opsForValue().get(call.deduplicationKey()).switchIfEmpty(insert) : insert;
+    }
+
+    private Mono<Void> index(InsertCall call) {
+        var indexes = call.indexesKey() == null ? Mono.<Void>empty()
+                : template.opsForSet().add(call.indexesKey(), call.indexKeys().toArray(String[]::new)).then();
+        if (call.indexesKey() != null && call.expiresAt() != null) {
+            indexes = indexes.then(template.expireAt(call.indexesKey(),
+                    Instant.ofEpochMilli(Long.parseLong(call.expiresAt())))).then();
+        }
+        return Flux.fromIterable(call.indexKeys())
+                .flatMap(indexKey -> template.opsForSet().add(indexKey, call.shortUrlId()))
+                .then(indexes);
+    }
+}
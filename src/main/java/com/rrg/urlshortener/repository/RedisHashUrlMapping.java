@@ -0,0 +1,117 @@
+package com.rrg.urlshortener.repository;
+
+import com.rrg.urlshortener.model.Url;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.convert.Bucket;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.data.redis.core.convert.SimpleIndexedPropertyValue;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * The layout written by the {@code @RedisHash} repository: a hash of every field of the URL under
+ * {@code url:{shortUrlId}} with its type hint, the {@code url} set of every ID, the {@code url:fullUrl:{fullUrl}}
+ * index and {@code url:{shortUrlId}:idx} listing the index keys holding the ID.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.format", havingValue = "hash", matchIfMissing = true)
+public class RedisHashUrlMapping implements UrlRedisMapping {
+
+    public static final String KEYSPACE = "url";
+    private static final String FULL_URL_INDEX = "fullUrl";
+    private static final String VISITS = "visits";
+    private static final String EXPIRES_AT = "expiresAt";
+    private static final RedisScript<String> INSERT_IF_ABSENT =
+            RedisScript.of(new ClassPathResource("scripts/insert-if-absent.lua"), String.class);
+
+    private final RedisConverter converter;
+
+    public RedisHashUrlMapping(RedisConverter converter) {
+        this.converter = converter;
+    }
+
+    @Override
+    public String key(String shortUrlId) {
+        return KEYSPACE + ":" + shortUrlId;
+    }
+
+    public String indexesKey(String shortUrlId) {
+        return key(shortUrlId) + ":idx";
+    }
+
+    @Override
+    public String fullUrlIndexKey(String fullUrl) {
+        return KEYSPACE + ":" + FULL_URL_INDEX + ":" + fullUrl;
+    }
+
+    @Override
+    public String fullUrlIndexPattern() {
+        return fullUrlIndexKey("*");
+    }
+
+    @Override
+    public String fullUrlField() {
+        return FULL_URL_INDEX;
+    }
+
+    @Override
+    public String visitsField() {
+        return VISITS;
+    }
+
+    @Override
+    public String expiresAtField() {
+        return EXPIRES_AT;
+    }
+
+    @Override
+    public RedisScript<String> insertScript() {
+        return INSERT_IF_ABSENT;
+    }
+
+    @Override
+    public Url read(String shortUrlId, Map<String, String> hash) {
+        if (hash == null || hash.isEmpty()) {
+            return null;
+        }
+        var data = new RedisData(Bucket.newBucketFromStringMap(hash));
+        data.setId(shortUrlId);
+        return converter.read(Url.class, data);
+    }
+
+    @Override
+    public InsertCall insertCall(Url url, boolean deduplicate) {
+        var data = new RedisData();
+        converter.write(url, data);
+        var hashKey = data.getKeyspace() + ":" + data.getId();
+        var indexKeys = new ArrayList<String>();
+        for (var index : data.getIndexedData()) {
+            if (index instanceof SimpleIndexedPropertyValue value) {
+                indexKeys.add(index.getKeyspace() + ":" + index.getIndexName() + ":" + value.getValue());
+            }
+        }
+        var keys = new ArrayList<String>();
+        keys.add(hashKey);
+        keys.add(data.getKeyspace());
+        keys.add(indexesKey(data.getId()));
+        keys.addAll(indexKeys);
+        if (deduplicate) {
+            keys.add(UrlRedisMapping.deduplicationKey(url.getFullUrl()));
+        }
+        var args = new ArrayList<String>();
+        args.add(data.getId());
+        args.add(deduplicate ? "1" : "0");
+        args.add(url.getExpiresAt() == null ? "" : String.valueOf(url.getExpiresAt().toEpochMilli()));
+        data.getBucket().asMap().forEach((field, value) -> {
+            args.add(field);
+            args.add(new String(value, StandardCharsets.UTF_8));
+        });
+        return new InsertCall(keys, args, indexKeys, indexesKey(data.getId()), data.getKeyspace());
+    }
+}
@@ -0,0 +1,148 @@
+package com.rrg.urlshortener.repository;
+
+import com.rrg.urlshortener.model.Url;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Redis layout of {@link Url}, selected by {@code storage.format} and shared by the blocking and reactive
+ * repositories so both read and write the same keys.
+ * <p>
+ * The keys of a short URL are named after its ID, so they spread evenly over the slots of a cluster, but not over a
+ * single slot with the index and deduplication keys of its full URL. On a cluster, the insert script is replaced by
+ * single-slot steps: {@link #INSERT_HASH_IF_ABSENT} claims the ID, {@link #GET_OR_SET} the deduplication key, then
+ * the index entries are added. The keyspace set of every ID isn't kept there, as it would hold every short URL in one
+ * slot and is only needed by the repository's {@code findAll} and {@code count}.
+ */
+public interface UrlRedisMapping {
+
+    String SCAN_END = "0";
+    RedisScript<Boolean> INSERT_HASH_IF_ABSENT =
+            RedisScript.of(new ClassPathResource("scripts/insert-hash-if-absent.lua"), Boolean.class);
+    RedisScript<String> GET_OR_SET = RedisScript.of(new ClassPathResource("scripts/get-or-set.lua"), String.class);
+    RedisScript<Long> INCREMENT_IF_PRESENT =
+            RedisScript.of(new ClassPathResource("scripts/increment-if-present.lua"), Long.class);
+    RedisScript<Long> REMOVE_MISSING =
+            RedisScript.of(new ClassPathResource("scripts/remove-missing.lua"), Long.class);
+    RedisScript<Long> EXISTS = RedisScript.of(new ClassPathResource("scripts/exists.lua"), Long.class);
+    @SuppressWarnings("rawtypes")
+    RedisScript<List> SCAN_INDEX = RedisScript.of(new ClassPathResource("scripts/scan-index.lua"), List.class);
+
+    String key(String shortUrlId);
+
+    /**
+     * @return the key of the set of the short URL IDs of the full URL
+     */
+    String fullUrlIndexKey(String fullUrl);
+
+    /**
+     * @return the pattern matching the keys of every full URL index
+     */
+    String fullUrlIndexPattern();
+
+    String fullUrlField();
+
+    String visitsField();
+
+    String expiresAtField();
+
+    /**
+     * @return the script writing the keys of {@link #insertCall(Url, boolean)} unless the short URL ID is taken
+     */
+    RedisScript<String> insertScript();
+
+    /**
+     * @return the URL held by the hash of the short URL ID, or null if the hash is empty
+     */
+    Url read(String shortUrlId, Map<String, String> hash);
+
+    /**
+     * @return the keys and arguments of {@link #insertScript()} for the URL
+     */
+    InsertCall insertCall(Url url, boolean deduplicate);
+
+    static String deduplicationKey(String fullUrl) {
+        return "dedup:" + sha256(fullUrl);
+    }
+
+    static byte[] sha256Digest(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 isn't available", e);
+        }
+    }
+
+    private static String sha256(String value) {
+        return HexFormat.of().formatHex(sha256Digest(value));
+    }
+
+    /**
+     * The keys of an insert script are the hash first, then the index keys and, when deduplicating, the deduplication
+     * key last. Its arguments are the ID, the deduplication flag, the epoch millisecond the keys of the short URL
+     * expire at, empty if they don't, then the field and value pairs of the hash.
+     *
+     * @param indexKeys   the sets the ID is added to, by the value of an indexed field
+     * @param indexesKey  the set listing the index keys holding the ID, if the layout keeps one
+     * @param keyspaceKey the set of every ID, if the layout keeps one
+     */
+    record InsertCall(List<String> keys, List<String> args, List<String> indexKeys, String indexesKey,
+                      String keyspaceKey) {
+
+        public String shortUrlId() {
+            return args.get(0);
+        }
+
+        boolean deduplicates() {
+            return "1".equals(args.get(1));
+        }
+
+        public String hashKey() {
+            return keys.get(0);
+        }
+
+        /**
+         * @return the epoch millisecond the keys of the short URL expire at, or null if they don't
+         */
+        String expiresAt() {
+            return args.get(2).isEmpty() ? null : args.get(2);
+        }
+
+        /**
+         * @return the expiry followed by the field and value pairs of the hash, the arguments of
+         * {@link #INSERT_HASH_IF_ABSENT}
+         */
+        List<String> hashArgs() {
+            return args.subList(2, args.size());
+        }
+
+        List<String> hashFields() {
+            return args.subList(3, args.size());
+        }
+
+        String deduplicationKey() {
+            return deduplicates() ? keys.get(keys.size() - 1) : null;
+        }
+
+        byte[][] evalShaArgs(byte[] sha) {
+            var evalShaArgs = new byte[2 + keys.size() + args.size()][];
+            evalShaArgs[0] = sha;
+            evalShaArgs[1] = String.valueOf(keys.size()).getBytes(StandardCharsets.UTF_8);
+            var i = 2;
+            for (var value : keys) {
+                evalShaArgs[i++] = value.getBytes(StandardCharsets.UTF_8);
+            }
+            for (var value : args) {
+                evalShaArgs[i++] = value.getBytes(StandardCharsets.UTF_8);
+            }
+            return evalShaArgs;
+        }
+    }
+}
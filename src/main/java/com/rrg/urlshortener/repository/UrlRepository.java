@@ -4,13 +4,13 @@ import com.rrg.urlshortener.model.Url;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
-import java.util.Optional;
-
+/**
+ * The methods of {@link UrlRepositoryCustom} follow {@code storage.format}, the other {@link CrudRepository} methods
+ * only find URLs stored in the {@code @RedisHash} format.
+ */
 @Repository
-public interface UrlRepository extends CrudRepository<Url, Integer> {
-
-    Optional<Url> findByShortUrlId(String shortUrlId);
+public interface UrlRepository extends CrudRepository<Url, String>, UrlRepositoryCustom {
 
-    List<Url> findAllByFullUrl(String fullUrl);
+    @Override
+    <S extends Url> S save(S url);
 }
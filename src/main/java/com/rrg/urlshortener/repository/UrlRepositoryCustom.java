@@ -0,0 +1,58 @@
+package com.rrg.urlshortener.repository;
+
+import com.rrg.urlshortener.model.Url;
+import com.rrg.urlshortener.model.UrlPage;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface UrlRepositoryCustom {
+
+    /**
+     * Saves the URL in the configured storage format, replacing the URL stored under its short URL ID.
+     */
+    <S extends Url> S save(S url);
+
+    Optional<Url> findByShortUrlId(String shortUrlId);
+
+    /**
+     * Saves the URL unless its short URL ID is already taken, in a single atomic step. When deduplicating, a full URL
+     * that was already saved with deduplication isn't saved again. The keys of a URL with an expiry expire with it,
+     * except the deduplication key, so a URL with an expiry shouldn't be deduplicated.
+     *
+     * @return the short URL ID the full URL is stored under, or null if the short URL ID is already taken
+     */
+    String insertIfAbsent(Url url, boolean deduplicate);
+
+    /**
+     * Pipelined {@link #insertIfAbsent(Url, boolean)} over many URLs in one round trip.
+     *
+     * @return the stored short URL ID per URL, in order, with null where the short URL ID is already taken
+     */
+    List<String> insertAllIfAbsent(List<Url> urls, boolean deduplicate);
+
+    /**
+     * Reads many URLs in a single pipelined round trip.
+     *
+     * @return the URLs found, keyed by short URL ID, IDs that don't exist are left out
+     */
+    Map<String, Url> findAllByShortUrlIds(Collection<String> shortUrlIds);
+
+    /**
+     * Reads a page of the URLs of a full URL by scanning its index from the given cursor, so the index is never
+     * loaded in full. The page can hold slightly more URLs than count.
+     */
+    UrlPage findPageByFullUrl(String fullUrl, String cursor, int count);
+
+    /**
+     * Removes the IDs of short URLs that no longer exist, having expired, from a set of short URL IDs. Searches call
+     * it on the IDs they don't find, and {@code IndexReaper} on every ID of the sets REDIS can't expire.
+     *
+     * @return the number of IDs removed
+     */
+    long removeMissing(String setKey, Collection<String> shortUrlIds);
+
+    void incrementVisits(Map<String, Long> visitsByShortUrlId);
+}
@@ -0,0 +1,370 @@
+package com.rrg.urlshortener.repository;
+
+import com.rrg.urlshortener.config.RedisTopology;
+import com.rrg.urlshortener.model.Url;
+import com.rrg.urlshortener.model.UrlPage;
+import com.rrg.urlshortener.repository.UrlRedisMapping.InsertCall;
+import com.rrg.urlshortener.tiering.ColdUrlStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.rrg.urlshortener.repository.UrlRedisMapping.EXISTS;
+import static com.rrg.urlshortener.repository.UrlRedisMapping.GET_OR_SET;
+import static com.rrg.urlshortener.repository.UrlRedisMapping.INCREMENT_IF_PRESENT;
+import static com.rrg.urlshortener.repository.UrlRedisMapping.INSERT_HASH_IF_ABSENT;
+import static com.rrg.urlshortener.repository.UrlRedisMapping.REMOVE_MISSING;
+import static com.rrg.urlshortener.repository.UrlRedisMapping.SCAN_END;
+import static com.rrg.urlshortener.repository.UrlRedisMapping.SCAN_INDEX;
+
+public class UrlRepositoryCustomImpl implements UrlRepositoryCustom {
+
+    private static final byte[] SCRIPT_LOAD = "LOAD".getBytes(StandardCharsets.UTF_8);
+
+    @Value("${redis.topology}")
+    private RedisTopology topology;
+
+    private final StringRedisTemplate template;
+    private final UrlRedisMapping mapping;
+    private final ColdUrlStore coldStore;
+
+    /**
+     * @param coldStore the store of the short URLs moved out of REDIS, present when {@code tiering.enabled} is set
+     */
+    public UrlRepositoryCustomImpl(StringRedisTemplate template, UrlRedisMapping mapping,
+                                   Optional<ColdUrlStore> coldStore) {
+        this.template = template;
+        this.mapping = mapping;
+        this.coldStore = coldStore.orElse(null);
+    }
+
+    @Override
+    public <S extends Url> S save(S url) {
+        var call = mapping.insertCall(url, false);
+        var previousFullUrl = template.<String, String>opsForHash().get(call.hashKey(), mapping.fullUrlField());
+        template.executePipelined((RedisCallback<Object>) connection -> {
+            var shortUrlId = bytes(call.shortUrlId());
+            if (previousFullUrl != null && !previousFullUrl.equals(url.getFullUrl())) {
+                var previousIndexKey = bytes(mapping.fullUrlIndexKey(previousFullUrl));
+                connection.setCommands().sRem(previousIndexKey, shortUrlId);
+                if (call.indexesKey() != null) {
+                    connection.setCommands().sRem(bytes(call.indexesKey()), previousIndexKey);
+                }
+            }
+            connection.keyCommands().del(bytes(call.hashKey()));
+            connection.hashCommands().hMSet(bytes(call.hashKey()), hash(call.hashFields()));
+            if (call.expiresAt() != null) {
+                connection.keyCommands().pExpireAt(bytes(call.hashKey()), Long.parseLong(call.expiresAt()));
+            }
+            index(connection, call);
+            if (call.keyspaceKey() != null) {
+                connection.setCommands().sAdd(bytes(call.keyspaceKey()), shortUrlId);
+            }
+            return null;
+        });
+        if (coldStore != null) {
+            coldStore.removeAll(List.of(url.getShortUrlId()));
+        }
+        return url;
+    }
+
+    @Override
+    public Optional<Url> findByShortUrlId(String shortUrlId) {
+        var hash = template.<String, String>opsForHash().entries(mapping.key(shortUrlId));
+        var url = mapping.read(shortUrlId, hash);
+        if (url == null && coldStore != null) {
+            url = coldStore.get(shortUrlId);
+            if (url != null) {
+                promote(List.of(url));
+            }
+        }
+        return Optional.ofNullable(url);
+    }
+
+    /**
+     * A short URL ID held by the cold store is taken, as its short URL is moved back to REDIS when it's read.
+     */
+    @Override
+    public String insertIfAbsent(Url url, boolean deduplicate) {
+        if (coldStore != null && coldStore.contains(url.getShortUrlId())) {
+            return null;
+        }
+        var call = mapping.insertCall(url, deduplicate);
+        if (topology == RedisTopology.CLUSTER) {
+            return insertIntoCluster(List.of(call)).get(0);
+        }
+        return template.execute(mapping.insertScript(), call.keys(), call.args().toArray());
+    }
+
+    @Override
+    public List<String> insertAllIfAbsent(List<Url> urls, boolean deduplicate) {
+        var calls = urls.stream().map(url -> mapping.insertCall(url, deduplicate)).toList();
+        if (coldStore == null) {
+            return insertAll(calls);
+        }
+        var demoted = urls.stream().map(Url::getShortUrlId).filter(coldStore::contains).collect(Collectors.toSet());
+        if (demoted.isEmpty()) {
+            return insertAll(calls);
+        }
+        var inserted = insertAll(calls.stream().filter(call -> !demoted.contains(call.shortUrlId())).toList())
+                .iterator();
+        return calls.stream().map(call -> demoted.contains(call.shortUrlId()) ? null : inserted.next()).toList();
+    }
+
+    private List<String> insertAll(List<InsertCall> calls) {
+        if (calls.isEmpty()) {
+            return List.of();
+        }
+        if (topology == RedisTopology.CLUSTER) {
+            return insertIntoCluster(calls);
+        }
+        var script = bytes(mapping.insertScript().getScriptAsString());
+        var sha = bytes(mapping.insertScript().getSha1());
+        // The scripting commands of the Jedis connection can't be pipelined, raw commands can.
+        var results = template.executePipelined((RedisCallback<Object>) connection -> {
+            // Loading the script on the pipelined connection first guarantees the EVALSHAs after it find it.
+            connection.execute("SCRIPT", SCRIPT_LOAD, script);
+            for (var call : calls) {
+                connection.execute("EVALSHA", call.evalShaArgs(sha));
+            }
+            return null;
+        });
+        var shortUrlIds = new ArrayList<String>(calls.size());
+        for (var result : results.subList(1, results.size())) {
+            shortUrlIds.add((String) result);
+        }
+        return shortUrlIds;
+    }
+
+    @Override
+    public Map<String, Url> findAllByShortUrlIds(Collection<String> shortUrlIds) {
+        return findAll(shortUrlIds, true);
+    }
+
+    /**
+     * @param promote whether the short URLs found in the cold store are moved back to REDIS
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Url> findAll(Collection<String> shortUrlIds, boolean promote) {
+        var ids = List.copyOf(shortUrlIds);
+        var hashes = template.executePipelined((RedisCallback<Object>) connection -> {
+            ids.forEach(shortUrlId -> connection.hashCommands().hGetAll(keyBytes(shortUrlId)));
+            return null;
+        });
+        var urls = new LinkedHashMap<String, Url>();
+        var coldUrls = new ArrayList<Url>();
+        for (var i = 0; i < ids.size(); i++) {
+            var url = mapping.read(ids.get(i), (Map<String, String>) hashes.get(i));
+            if (url == null && coldStore != null) {
+                url = coldStore.get(ids.get(i));
+                if (url != null) {
+                    coldUrls.add(url);
+                }
+            }
+            if (url != null) {
+                urls.put(ids.get(i), url);
+            }
+        }
+        if (promote && !coldUrls.isEmpty()) {
+            promote(coldUrls);
+        }
+        return urls;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public UrlPage findPageByFullUrl(String fullUrl, String cursor, int count) {
+        // The scan runs in a script, which is sent to the node holding the index on a cluster.
+        List<String> page = template.execute(SCAN_INDEX, List.of(mapping.fullUrlIndexKey(fullUrl)), cursor, String.valueOf(count));
+        var nextCursor = page.get(0);
+        var shortUrlIds = page.subList(1, page.size());
+        // Short URLs found in the cold store aren't moved back to REDIS by a search.
+        var urls = findAll(shortUrlIds, false);
+        if (urls.size() < shortUrlIds.size()) {
+            removeMissing(mapping.fullUrlIndexKey(fullUrl),
+                    shortUrlIds.stream().filter(shortUrlId -> !urls.containsKey(shortUrlId)).toList());
+        }
+        return new UrlPage(List.copyOf(urls.values()), SCAN_END.equals(nextCursor) ? null : nextCursor);
+    }
+
+    @Override
+    public long removeMissing(String setKey, Collection<String> shortUrlIds) {
+        var candidates = coldStore == null ? List.copyOf(shortUrlIds)
+                : shortUrlIds.stream().filter(shortUrlId -> !coldStore.contains(shortUrlId)).toList();
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        if (topology == RedisTopology.CLUSTER) {
+            // The set and the hashes are in different slots, so the hashes are checked first and the IDs removed after.
+            var exists = pipeline(candidates, (connection, shortUrlId) ->
+                    eval(connection, EXISTS, ReturnType.INTEGER, mapping.key(shortUrlId), List.of()));
+            var missing = new ArrayList<String>();
+            for (var i = 0; i < candidates.size(); i++) {
+                if (Long.valueOf(0).equals(exists.get(i))) {
+                    missing.add(candidates.get(i));
+                }
+            }
+            return missing.isEmpty() ? 0 : template.opsForSet().remove(setKey, missing.toArray());
+        }
+        var keys = new ArrayList<String>(candidates.size() + 1);
+        keys.add(setKey);
+        candidates.forEach(shortUrlId -> keys.add(mapping.key(shortUrlId)));
+        return template.execute(REMOVE_MISSING, keys, candidates.toArray());
+    }
+
+    /**
+     * Only adds visits to existing hashes, so that visits of a short URL moved to the cold store meanwhile don't
+     * leave a hash holding nothing but visits. Those are added to the cold store instead.
+     */
+    @Override
+    public void incrementVisits(Map<String, Long> visitsByShortUrlId) {
+        var entries = List.copyOf(visitsByShortUrlId.entrySet());
+        List<Object> results;
+        if (topology == RedisTopology.CLUSTER) {
+            results = pipeline(entries, (connection, entry) -> eval(connection, INCREMENT_IF_PRESENT, ReturnType.INTEGER,
+                    mapping.key(entry.getKey()), List.of(mapping.visitsField(), String.valueOf(entry.getValue()))));
+        } else {
+            var visitsField = bytes(mapping.visitsField());
+            var sha = bytes(INCREMENT_IF_PRESENT.getSha1());
+            // The scripting commands of the Jedis connection can't be pipelined, raw commands can.
+            results = template.executePipelined((RedisCallback<Object>) connection -> {
+                connection.execute("SCRIPT", SCRIPT_LOAD, bytes(INCREMENT_IF_PRESENT.getScriptAsString()));
+                for (var entry : entries) {
+                    connection.execute("EVALSHA", sha, bytes("1"), keyBytes(entry.getKey()), visitsField,
+                            bytes(String.valueOf(entry.getValue())));
+                }
+                return null;
+            });
+            results = results.subList(1, results.size());
+        }
+        if (coldStore != null) {
+            var missed = new HashMap<String, Long>();
+            for (var i = 0; i < entries.size(); i++) {
+                if (!Long.valueOf(1).equals(results.get(i))) {
+                    missed.put(entries.get(i).getKey(), entries.get(i).getValue());
+                }
+            }
+            coldStore.addVisits(missed);
+        }
+    }
+
+    /**
+     * Moves short URLs read from the cold store back to REDIS. An ID already taken there was moved back by a
+     * concurrent read.
+     */
+    private void promote(List<Url> coldUrls) {
+        insertAll(coldUrls.stream().map(url -> mapping.insertCall(url, false)).toList());
+        coldStore.removeAll(coldUrls.stream().map(Url::getShortUrlId).toList());
+    }
+
+    /**
+     * Inserts in single-slot steps, as a cluster can't run a script over the keys of different slots, each step
+     * pipelined over the URLs. A full URL already mapped to an ID is returned without writing, a mapping missed on a
+     * lagging replica is caught when mapping the claimed ID and the hash of the claimed ID is removed again. The index
+     * entries are added last, so a search can miss a short URL while it's being created.
+     */
+    private List<String> insertIntoCluster(List<InsertCall> calls) {
+        var shortUrlIds = new String[calls.size()];
+        var deduplicated = calls.stream().filter(InsertCall::deduplicates).toList();
+        var mappings = pipeline(deduplicated,
+                (connection, call) -> connection.stringCommands().get(bytes(call.deduplicationKey()))).iterator();
+        var unmapped = new ArrayList<Integer>(calls.size());
+        for (var i = 0; i < calls.size(); i++) {
+            shortUrlIds[i] = calls.get(i).deduplicates() ? (String) mappings.next() : null;
+            if (shortUrlIds[i] == null) {
+                unmapped.add(i);
+            }
+        }
+
+        var claims = pipeline(unmapped, (connection, i) -> eval(connection, INSERT_HASH_IF_ABSENT, ReturnType.BOOLEAN,
+                calls.get(i).hashKey(), calls.get(i).hashArgs()));
+        var claimed = new ArrayList<Integer>(unmapped.size());
+        for (var i = 0; i < unmapped.size(); i++) {
+            if (Boolean.TRUE.equals(claims.get(i))) {
+                claimed.add(unmapped.get(i));
+            }
+        }
+
+        var claimedDeduplicated = claimed.stream().filter(i -> calls.get(i).deduplicates()).toList();
+        var winners = pipeline(claimedDeduplicated, (connection, i) -> eval(connection, GET_OR_SET, ReturnType.VALUE,
+                calls.get(i).deduplicationKey(), List.of(calls.get(i).shortUrlId()))).iterator();
+        for (var i : claimed) {
+            shortUrlIds[i] = calls.get(i).deduplicates() ? (String) winners.next() : calls.get(i).shortUrlId();
+        }
+
+        pipeline(claimed, (connection, i) -> {
+            var call = calls.get(i);
+            if (!call.shortUrlId().equals(shortUrlIds[i])) {
+                connection.keyCommands().del(bytes(call.hashKey()));
+                return;
+            }
+            index(connection, call);
+        });
+        return Arrays.asList(shortUrlIds);
+    }
+
+    private void index(RedisConnection connection, InsertCall call) {
+        for (var indexKey : call.indexKeys()) {
+            connection.setCommands().sAdd(bytes(indexKey), bytes(call.shortUrlId()));
+        }
+        if (call.indexesKey() != null) {
+            connection.setCommands().sAdd(bytes(call.indexesKey()),
+                    call.indexKeys().stream().map(this::bytes).toArray(byte[][]::new));
+            if (call.expiresAt() != null) {
+                connection.keyCommands().pExpireAt(bytes(call.indexesKey()), Long.parseLong(call.expiresAt()));
+            }
+        }
+    }
+
+    private Map<byte[], byte[]> hash(List<String> fieldsAndValues) {
+        var hash = new LinkedHashMap<byte[], byte[]>();
+        for (var i = 0; i < fieldsAndValues.size(); i += 2) {
+            hash.put(bytes(fieldsAndValues.get(i)), bytes(fieldsAndValues.get(i + 1)));
+        }
+        return hash;
+    }
+
+    /**
+     * Sends the script itself rather than its SHA1, as a pipelined EVALSHA can't fall back to EVAL on the nodes that
+     * haven't loaded it yet.
+     */
+    private void eval(RedisConnection connection, RedisScript<?> script, ReturnType returnType, String key,
+                      List<String> args) {
+        var keysAndArgs = Stream.concat(Stream.of(key), args.stream()).map(this::bytes).toArray(byte[][]::new);
+        connection.scriptingCommands().eval(bytes(script.getScriptAsString()), returnType, 1, keysAndArgs);
+    }
+
+    private <T> List<Object> pipeline(List<T> items, BiConsumer<RedisConnection, T> command) {
+        if (items.isEmpty()) {
+            return List.of();
+        }
+        return template.executePipelined((RedisCallback<Object>) connection -> {
+            items.forEach(item -> command.accept(connection, item));
+            return null;
+        });
+    }
+
+    private byte[] keyBytes(String shortUrlId) {
+        return bytes(mapping.key(shortUrlId));
+    }
+
+    private byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
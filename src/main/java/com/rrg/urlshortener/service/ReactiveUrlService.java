@@ -0,0 +1,70 @@
+package com.rrg.urlshortener.service;
+
+import com.rrg.urlshortener.model.ClickSeries;
+import com.rrg.urlshortener.model.ClickSources;
+import com.rrg.urlshortener.model.CreationResult;
+import com.rrg.urlshortener.model.HotLinks;
+import com.rrg.urlshortener.model.ShortUrlRequest;
+import com.rrg.urlshortener.model.Url;
+import com.rrg.urlshortener.model.UrlPage;
+import com.rrg.urlshortener.model.VisitSource;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking counterpart of {@link UrlService}, with the same validation and errors signalled through the returned
+ * {@link Mono} instead of thrown.
+ */
+public interface ReactiveUrlService {
+
+    /**
+     * @see UrlService#createShortUrl(String, Boolean, Instant)
+     */
+    Mono<Url> createShortUrl(String fullUrl, Boolean deduplicate, Instant expiresAt);
+
+    /**
+     * @see UrlService#createShortUrls(List)
+     */
+    Mono<List<CreationResult>> createShortUrls(List<ShortUrlRequest> requests);
+
+    Mono<Url> getUrlByShortUrlId(String shortUrlId);
+
+    /**
+     * @return the approximate number of distinct visitors of the short URL, empty unless
+     * {@code analytics.unique-visitors.enabled}
+     */
+    Mono<Long> countUniqueVisitors(String shortUrlId);
+
+    /**
+     * @return the URLs found, keyed by short URL ID, IDs that don't exist are left out
+     */
+    Mono<Map<String, Url>> getUrlsByShortUrlIds(List<String> shortUrlIds);
+
+    /**
+     * @see UrlService#getUrlsByFullUrl(String, String, Integer)
+     */
+    Mono<UrlPage> getUrlsByFullUrl(String fullUrl, String cursor, Integer count);
+
+    /**
+     * @see UrlService#resolveRedirection(String, VisitSource)
+     */
+    Mono<String> resolveRedirection(String shortUrlId, VisitSource source);
+
+    /**
+     * @see UrlService#getClicks(String, String, Instant, Instant)
+     */
+    Mono<ClickSeries> getClicks(String shortUrlId, String granularity, Instant from, Instant to);
+
+    /**
+     * @see UrlService#getSources(String, Instant, Instant)
+     */
+    Mono<ClickSources> getSources(String shortUrlId, Instant from, Instant to);
+
+    /**
+     * @see UrlService#getHotLinks(Integer, Integer)
+     */
+    Mono<HotLinks> getHotLinks(Integer window, Integer count);
+}
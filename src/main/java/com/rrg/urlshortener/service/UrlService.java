@@ -1,21 +1,89 @@
 package com.rrg.urlshortener.service;
 
+import com.rrg.urlshortener.model.ClickSeries;
+import com.rrg.urlshortener.model.ClickSources;
+import com.rrg.urlshortener.model.CreationResult;
+import com.rrg.urlshortener.model.HotLinks;
+import com.rrg.urlshortener.model.ShortUrlRequest;
 import com.rrg.urlshortener.model.Url;
+import com.rrg.urlshortener.model.UrlPage;
+import com.rrg.urlshortener.model.VisitSource;
 import org.springframework.http.HttpHeaders;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 
 public interface UrlService {
 
-    Url createShortUrl(String fullUrl);
+    /**
+     * @param expiresAt when the short URL stops existing, null if it never does
+     */
+    Url createShortUrl(String fullUrl, Boolean deduplicate, Instant expiresAt);
+
+    /**
+     * Creates a short URL per request with pipelined writes. A request that fails doesn't fail the others, its
+     * result carries the error instead.
+     *
+     * @return one result per request, in request order
+     */
+    List<CreationResult> createShortUrls(List<ShortUrlRequest> requests);
 
     Url getUrlByShortUrlId(String shortUrlId);
 
-    List<Url> getUrlsByFullUrl(String fullUrl);
+    /**
+     * @return the approximate number of distinct visitors of the short URL, null unless
+     * {@code analytics.unique-visitors.enabled}
+     */
+    Long countUniqueVisitors(String shortUrlId);
+
+    /**
+     * @return the URLs found, keyed by short URL ID, IDs that don't exist are left out
+     */
+    Map<String, Url> getUrlsByShortUrlIds(List<String> shortUrlIds);
+
+    /**
+     * @param cursor the cursor returned with the previous page, null for the first page
+     * @param count  the number of URLs per page, null for the configured page size
+     */
+    UrlPage getUrlsByFullUrl(String fullUrl, String cursor, Integer count);
 
     Url saveUrl(String fullUrl, String shortUrlId);
 
-    HttpHeaders processRedirection(String shortUrlId);
+    /**
+     * @param source where the visit comes from, counted in the analytics
+     */
+    HttpHeaders processRedirection(String shortUrlId, VisitSource source);
+
+    /**
+     * Counts a visit, like {@link #processRedirection(String, VisitSource)}, without building the headers.
+     *
+     * @return the location to redirect to, a valid URI in canonical form
+     */
+    String resolveRedirection(String shortUrlId, VisitSource source);
+
+    void incrementVisits(String shortUrlId);
+
+    /**
+     * @param granularity minute, hour or day, null for hour
+     * @param from        the start of the range, null for the default range of the granularity before {@code to}
+     * @param to          the end of the range, excluded, null for now
+     * @return the visits of each bucket of the range, zero for the buckets without visits or past their retention
+     */
+    ClickSeries getClicks(String shortUrlId, String granularity, Instant from, Instant to);
+
+    /**
+     * @param from the start of the range, null for 7 days before {@code to}
+     * @param to   the end of the range, excluded, null for now
+     * @return the visits per referrer host and per country over the days of the range
+     */
+    ClickSources getSources(String shortUrlId, Instant from, Instant to);
 
-    void incrementVisits(Url url);
+    /**
+     * @param window the number of minutes up to now, null for {@code analytics.hot-links.window-minutes}
+     * @param count  the number of short URLs, null for 10
+     * @return the short URLs with the most visits over the window across every instance, none unless
+     * {@code analytics.hot-links.enabled}
+     */
+    HotLinks getHotLinks(Integer window, Integer count);
 }
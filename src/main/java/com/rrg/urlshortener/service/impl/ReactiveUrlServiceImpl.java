@@ -0,0 +1,392 @@
+package com.rrg.urlshortener.service.impl;
+
+import com.rrg.urlshortener.cache.RedirectCache;
+import com.rrg.urlshortener.cache.RedirectCache.Location;
+import com.rrg.urlshortener.cache.ShortUrlIdFilter;
+import com.rrg.urlshortener.counter.ClickCounter;
+import com.rrg.urlshortener.counter.HotLinkCounter;
+import com.rrg.urlshortener.counter.UniqueVisitorCounter;
+import com.rrg.urlshortener.counter.VisitCounter;
+import com.rrg.urlshortener.exception.InvalidFieldException;
+import com.rrg.urlshortener.exception.MissingFieldException;
+import com.rrg.urlshortener.exception.ShortUrlIdGenerationException;
+import com.rrg.urlshortener.generator.IdGenerator;
+import com.rrg.urlshortener.metrics.UrlMetrics;
+import com.rrg.urlshortener.metrics.UrlMetrics.Operation;
+import com.rrg.urlshortener.model.ClickSeries;
+import com.rrg.urlshortener.model.ClickSources;
+import com.rrg.urlshortener.model.CreationResult;
+import com.rrg.urlshortener.model.Granularity;
+import com.rrg.urlshortener.model.HotLinks;
+import com.rrg.urlshortener.model.ShortUrlRequest;
+import com.rrg.urlshortener.model.Url;
+import com.rrg.urlshortener.model.UrlPage;
+import com.rrg.urlshortener.model.VisitSource;
+import com.rrg.urlshortener.repository.ReactiveClickStatsRepository;
+import com.rrg.urlshortener.repository.ReactiveUrlRepository;
+import com.rrg.urlshortener.service.ReactiveUrlService;
+import com.rrg.urlshortener.util.UrlUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.rrg.urlshortener.service.impl.UrlServiceImpl.COUNT_ERROR;
+import static com.rrg.urlshortener.service.impl.UrlServiceImpl.EXPIRY_ERROR;
+import static com.rrg.urlshortener.service.impl.UrlServiceImpl.HOT_LINKS_COUNT;
+import static com.rrg.urlshortener.service.impl.UrlServiceImpl.FIRST_CURSOR;
+import static com.rrg.urlshortener.service.impl.UrlServiceImpl.ID_GENERATION_ERROR;
+import static com.rrg.urlshortener.service.impl.UrlServiceImpl.MISSING_URL_ERROR;
+import static com.rrg.urlshortener.service.impl.UrlServiceImpl.SOURCES_RANGE;
+import static com.rrg.urlshortener.service.impl.UrlServiceImpl.URL_FORMAT_ERROR;
+import static com.rrg.urlshortener.service.impl.UrlServiceImpl.WINDOW_ERROR;
+import static com.rrg.urlshortener.service.impl.UrlServiceImpl.bounded;
+import static com.rrg.urlshortener.service.impl.UrlServiceImpl.bucketStarts;
+import static com.rrg.urlshortener.service.impl.UrlServiceImpl.deduplicates;
+import static com.rrg.urlshortener.service.impl.UrlServiceImpl.granularity;
+import static com.rrg.urlshortener.service.impl.UrlServiceImpl.isPast;
+import static com.rrg.urlshortener.service.impl.UrlServiceImpl.notFound;
+
+/**
+ * Mirrors {@link UrlServiceImpl} over {@link ReactiveUrlRepository}. IDs are generated on the bounded elastic
+ * scheduler, as a generator may block on Redis to lease a block of IDs, and visits go through the same
+ * {@link VisitCounter}, {@link ClickCounter} and {@link UniqueVisitorCounter}, which never block the caller.
+ */
+@Slf4j
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUrlServiceImpl implements ReactiveUrlService {
+
+    @Value("${attempt.limit}")
+    private int attemptLimit;
+    @Value("${create.deduplicate}")
+    private boolean deduplicateByDefault;
+    @Value("${lookup.max-batch-size}")
+    private int lookupMaxBatchSize;
+    @Value("${search.page-size}")
+    private int searchPageSize;
+    @Value("${search.max-page-size}")
+    private int searchMaxPageSize;
+    @Value("${analytics.max-buckets}")
+    private int maxBuckets;
+    @Value("${analytics.unique-visitors.enabled}")
+    private boolean uniqueVisitors;
+    @Value("${analytics.hot-links.enabled}")
+    private boolean hotLinks;
+    @Value("${analytics.hot-links.window-minutes}")
+    private int hotLinksWindow;
+    @Value("${analytics.hot-links.max-window-minutes}")
+    private int hotLinksMaxWindow;
+    @Value("${analytics.hot-links.capacity}")
+    private int hotLinksCapacity;
+
+    private final UrlUtil util;
+    private final ReactiveUrlRepository repo;
+    private final RedirectCache cache;
+    private final ShortUrlIdFilter idFilter;
+    private final VisitCounter visitCounter;
+    private final ClickCounter clickCounter;
+    private final UniqueVisitorCounter visitorCounter;
+    private final HotLinkCounter hotLinkCounter;
+    private final ReactiveClickStatsRepository clickStats;
+    private final IdGenerator idGenerator;
+    private final UrlMetrics metrics;
+
+    public ReactiveUrlServiceImpl(UrlUtil util, ReactiveUrlRepository repo, RedirectCache cache,
+                                  ShortUrlIdFilter idFilter, VisitCounter visitCounter, ClickCounter clickCounter,
+                                  UniqueVisitorCounter visitorCounter, HotLinkCounter hotLinkCounter,
+                                  ReactiveClickStatsRepository clickStats, IdGenerator idGenerator,
+                                  UrlMetrics metrics) {
+        this.util = util;
+        this.repo = repo;
+        this.cache = cache;
+        this.idFilter = idFilter;
+        this.visitCounter = visitCounter;
+        this.clickCounter = clickCounter;
+        this.visitorCounter = visitorCounter;
+        this.hotLinkCounter = hotLinkCounter;
+        this.clickStats = clickStats;
+        this.idGenerator = idGenerator;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Mono<Url> createShortUrl(String fullUrl, Boolean deduplicate, Instant expiresAt) {
+        return metrics.time(Operation.CREATE, Mono.defer(() -> create(fullUrl, deduplicate, expiresAt)));
+    }
+
+    private Mono<Url> create(String fullUrl, Boolean deduplicate, Instant expiresAt) {
+        if (StringUtils.isBlank(fullUrl)) {
+            return Mono.error(new MissingFieldException(MISSING_URL_ERROR));
+        }
+        if (isPast(expiresAt)) {
+            return Mono.error(new InvalidFieldException(String.format(EXPIRY_ERROR, expiresAt)));
+        }
+        var canonicalUrl = util.normaliseUrl(fullUrl);
+        if (canonicalUrl == null) {
+            return Mono.error(new InvalidFieldException(String.format(URL_FORMAT_ERROR, fullUrl)));
+        }
+        return insert(canonicalUrl, expiresAt, deduplicates(deduplicate, expiresAt, deduplicateByDefault), 1);
+    }
+
+    @Override
+    public Mono<List<CreationResult>> createShortUrls(List<ShortUrlRequest> requests) {
+        return metrics.time(Operation.CREATE_BATCH, Mono.defer(() -> createAll(requests)));
+    }
+
+    private Mono<List<CreationResult>> createAll(List<ShortUrlRequest> requests) {
+        var results = new CreationResult[requests.size()];
+        var canonicalUrls = new String[requests.size()];
+        var pendingByDeduplicate = new LinkedHashMap<Boolean, List<Integer>>();
+        for (var i = 0; i < requests.size(); i++) {
+            var request = requests.get(i);
+            if (StringUtils.isBlank(request.fullUrl())) {
+                results[i] = CreationResult.failed(request.fullUrl(), MISSING_URL_ERROR);
+            } else if (isPast(request.expiresAt())) {
+                results[i] = CreationResult.failed(request.fullUrl(), String.format(EXPIRY_ERROR, request.expiresAt()));
+            } else if ((canonicalUrls[i] = util.normaliseUrl(request.fullUrl())) == null) {
+                results[i] = CreationResult.failed(request.fullUrl(), String.format(URL_FORMAT_ERROR, request.fullUrl()));
+            } else {
+                var deduplicate = deduplicates(request.deduplicate(), request.expiresAt(), deduplicateByDefault);
+                pendingByDeduplicate.computeIfAbsent(deduplicate, key -> new ArrayList<>()).add(i);
+            }
+        }
+        return Flux.fromIterable(pendingByDeduplicate.entrySet())
+                .concatMap(entry -> insertAll(canonicalUrls, requests, entry.getValue(), entry.getKey(), results, 1))
+                .then(Mono.fromSupplier(() -> Arrays.asList(results)));
+    }
+
+    @Override
+    public Mono<Url> getUrlByShortUrlId(String shortUrlId) {
+        if (StringUtils.isBlank(shortUrlId)) {
+            return Mono.error(new MissingFieldException("Short URL ID isn't provided"));
+        }
+        return repo.findByShortUrlId(shortUrlId).switchIfEmpty(Mono.error(() -> notFound(shortUrlId)));
+    }
+
+    @Override
+    public Mono<Long> countUniqueVisitors(String shortUrlId) {
+        if (StringUtils.isBlank(shortUrlId)) {
+            return Mono.error(new MissingFieldException("Short URL ID isn't provided"));
+        }
+        return uniqueVisitors ? clickStats.countUniqueVisitors(shortUrlId) : Mono.empty();
+    }
+
+    @Override
+    public Mono<Map<String, Url>> getUrlsByShortUrlIds(List<String> shortUrlIds) {
+        return metrics.time(Operation.LOOKUP, Mono.defer(() -> findAll(shortUrlIds)));
+    }
+
+    private Mono<Map<String, Url>> findAll(List<String> shortUrlIds) {
+        if (shortUrlIds == null || shortUrlIds.isEmpty()) {
+            return Mono.error(new MissingFieldException("Short URL IDs aren't provided"));
+        }
+        if (shortUrlIds.size() > lookupMaxBatchSize) {
+            return Mono.error(new InvalidFieldException(
+                    String.format("At most %d short URL IDs can be looked up at once", lookupMaxBatchSize)));
+        }
+        var distinctIds = shortUrlIds.stream().filter(StringUtils::isNotBlank).distinct().toList();
+        if (distinctIds.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return repo.findAllByShortUrlIds(distinctIds);
+    }
+
+    @Override
+    public Mono<UrlPage> getUrlsByFullUrl(String fullUrl, String cursor, Integer count) {
+        return metrics.time(Operation.SEARCH, Mono.defer(() -> search(fullUrl, cursor, count)));
+    }
+
+    private Mono<UrlPage> search(String fullUrl, String cursor, Integer count) {
+        if (StringUtils.isBlank(fullUrl)) {
+            return Mono.error(new MissingFieldException("Full Url isn't provided"));
+        }
+        if (cursor != null && !StringUtils.isNumeric(cursor)) {
+            return Mono.error(new InvalidFieldException(String.format("%s isn't a valid cursor", cursor)));
+        }
+        if (count != null && (count < 1 || count > searchMaxPageSize)) {
+            return Mono.error(new InvalidFieldException(String.format(COUNT_ERROR, searchMaxPageSize)));
+        }
+        var canonicalUrl = util.normaliseUrl(fullUrl);
+        if (canonicalUrl == null) {
+            return Mono.error(new InvalidFieldException(String.format(URL_FORMAT_ERROR, fullUrl)));
+        }
+        return repo.findPageByFullUrl(canonicalUrl, cursor != null ? cursor : FIRST_CURSOR,
+                count != null ? count : searchPageSize);
+    }
+
+    @Override
+    public Mono<String> resolveRedirection(String shortUrlId, VisitSource source) {
+        return metrics.time(Operation.REDIRECT, Mono.defer(() -> resolve(shortUrlId, source)));
+    }
+
+    private Mono<String> resolve(String shortUrlId, VisitSource source) {
+        if (StringUtils.isBlank(shortUrlId)) {
+            return Mono.error(new MissingFieldException("Short URL ID isn't provided"));
+        }
+        var location = cache.getIfPresent(shortUrlId);
+        var resolved = location != null ? Mono.just(location) : loadLocation(shortUrlId);
+        return resolved.doOnNext(resolvedLocation -> {
+            visitCounter.increment(shortUrlId);
+            clickCounter.increment(shortUrlId, source);
+            visitorCounter.add(shortUrlId, source);
+            hotLinkCounter.increment(shortUrlId);
+        });
+    }
+
+    @Override
+    public Mono<ClickSeries> getClicks(String shortUrlId, String granularity, Instant from, Instant to) {
+        if (StringUtils.isBlank(shortUrlId)) {
+            return Mono.error(new MissingFieldException("Short URL ID isn't provided"));
+        }
+        Granularity bucketGranularity;
+        List<Instant> starts;
+        try {
+            bucketGranularity = granularity(granularity);
+            starts = bucketStarts(bucketGranularity, from, to, bucketGranularity.defaultRange(), maxBuckets);
+        } catch (InvalidFieldException e) {
+            return Mono.error(e);
+        }
+        return clickStats.findClicks(shortUrlId, bucketGranularity, starts)
+                .map(buckets -> new ClickSeries(bucketGranularity, buckets));
+    }
+
+    @Override
+    public Mono<ClickSources> getSources(String shortUrlId, Instant from, Instant to) {
+        if (StringUtils.isBlank(shortUrlId)) {
+            return Mono.error(new MissingFieldException("Short URL ID isn't provided"));
+        }
+        List<Instant> days;
+        try {
+            days = bucketStarts(Granularity.DAY, from, to, SOURCES_RANGE, maxBuckets);
+        } catch (InvalidFieldException e) {
+            return Mono.error(e);
+        }
+        return clickStats.findSources(shortUrlId, days);
+    }
+
+    @Override
+    public Mono<HotLinks> getHotLinks(Integer window, Integer count) {
+        int windowMinutes;
+        int hotLinksCount;
+        try {
+            windowMinutes = bounded(window, hotLinksWindow, hotLinksMaxWindow, WINDOW_ERROR);
+            hotLinksCount = bounded(count, HOT_LINKS_COUNT, hotLinksCapacity, COUNT_ERROR);
+        } catch (InvalidFieldException e) {
+            return Mono.error(e);
+        }
+        if (!hotLinks) {
+            return Mono.just(new HotLinks(windowMinutes, List.of()));
+        }
+        return clickStats.findHotLinks(Instant.now(), windowMinutes, hotLinksCount)
+                .map(links -> new HotLinks(windowMinutes, links));
+    }
+
+    private Mono<Url> insert(String fullUrl, Instant expiresAt, boolean deduplicate, int attempt) {
+        if (attempt > attemptLimit) {
+            metrics.idExhausted(1);
+            return Mono.error(new ShortUrlIdGenerationException(ID_GENERATION_ERROR));
+        }
+        return Mono.fromCallable(idGenerator::generateId)
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(shortUrlId -> {
+                    var url = newUrl(fullUrl, shortUrlId);
+                    url.setExpiresAt(expiresAt);
+                    return repo.insertIfAbsent(url, deduplicate).map(storedId -> {
+                        url.setShortUrlId(storedId);
+                        idFilter.add(storedId);
+                        return url;
+                    });
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    metrics.idCollisions(1);
+                    return insert(fullUrl, expiresAt, deduplicate, attempt + 1);
+                }));
+    }
+
+    private Mono<Void> insertAll(String[] fullUrls, List<ShortUrlRequest> requests, List<Integer> pending,
+                                 boolean deduplicate, CreationResult[] results, int attempt) {
+        if (pending.isEmpty()) {
+            return Mono.empty();
+        }
+        if (attempt > attemptLimit) {
+            metrics.idExhausted(pending.size());
+            for (var index : pending) {
+                results[index] = CreationResult.failed(fullUrls[index], ID_GENERATION_ERROR);
+            }
+            return Mono.empty();
+        }
+        return Mono.fromCallable(() -> idGenerator.generateIds(pending.size()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(shortUrlIds -> {
+                    var urls = new ArrayList<Url>(pending.size());
+                    for (var i = 0; i < pending.size(); i++) {
+                        var url = newUrl(fullUrls[pending.get(i)], shortUrlIds.get(i));
+                        url.setExpiresAt(requests.get(pending.get(i)).expiresAt());
+                        urls.add(url);
+                    }
+                    return repo.insertAllIfAbsent(urls, deduplicate).flatMap(storedIds -> {
+                        var collided = new ArrayList<Integer>();
+                        var created = new ArrayList<String>(pending.size());
+                        for (var i = 0; i < pending.size(); i++) {
+                            if (storedIds.get(i) != null) {
+                                var url = urls.get(i);
+                                url.setShortUrlId(storedIds.get(i));
+                                results[pending.get(i)] = CreationResult.created(url);
+                                created.add(storedIds.get(i));
+                            } else {
+                                collided.add(pending.get(i));
+                            }
+                        }
+                        idFilter.addAll(created);
+                        metrics.idCollisions(collided.size());
+                        return insertAll(fullUrls, requests, collided, deduplicate, results, attempt + 1);
+                    });
+                });
+    }
+
+    private Url newUrl(String fullUrl, String shortUrlId) {
+        var url = new Url();
+        url.setFullUrl(fullUrl);
+        url.setShortUrlId(shortUrlId);
+        return url;
+    }
+
+    /**
+     * Loads a missing location without blocking and caches it, checking it and skipping unknown short URL IDs like the
+     * blocking service does.
+     */
+    private Mono<String> loadLocation(String shortUrlId) {
+        if (!idFilter.mightExist(shortUrlId) || cache.isNotFound(shortUrlId)) {
+            return Mono.error(notFound(shortUrlId));
+        }
+        return repo.findByShortUrlId(shortUrlId).switchIfEmpty(Mono.defer(() -> {
+            cache.putNotFound(shortUrlId);
+            return Mono.error(notFound(shortUrlId));
+        })).handle((url, sink) -> {
+            var location = util.normaliseUrl(url.getFullUrl());
+            if (location == null && util.isParsableUrl(url.getFullUrl())) {
+                // Stored before full URLs were normalised, and valid under the check of the time.
+                location = url.getFullUrl();
+            }
+            if (location == null) {
+                log.error("{} is persisted but isn't a valid URL", url.getFullUrl());
+                sink.error(new InvalidFieldException(String.format(URL_FORMAT_ERROR, url.getFullUrl())));
+                return;
+            }
+            cache.put(shortUrlId, new Location(location, url.getExpiresAt()));
+            sink.next(location);
+        });
+    }
+}
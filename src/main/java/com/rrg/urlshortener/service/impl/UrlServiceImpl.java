@@ -1,10 +1,30 @@
 package com.rrg.urlshortener.service.impl;
 
+import com.rrg.urlshortener.cache.RedirectCache;
+import com.rrg.urlshortener.cache.RedirectCache.Location;
+import com.rrg.urlshortener.cache.ShortUrlIdFilter;
+import com.rrg.urlshortener.counter.ClickCounter;
+import com.rrg.urlshortener.counter.HotLinkCounter;
+import com.rrg.urlshortener.counter.UniqueVisitorCounter;
+import com.rrg.urlshortener.counter.VisitCounter;
 import com.rrg.urlshortener.exception.InvalidFieldException;
 import com.rrg.urlshortener.exception.MissingFieldException;
 import com.rrg.urlshortener.exception.ResourceNotFoundException;
 import com.rrg.urlshortener.exception.ShortUrlIdGenerationException;
+import com.rrg.urlshortener.generator.IdGenerator;
+import com.rrg.urlshortener.metrics.UrlMetrics;
+import com.rrg.urlshortener.metrics.UrlMetrics.Operation;
+import com.rrg.urlshortener.model.ClickSeries;
+import com.rrg.urlshortener.model.ClickSources;
+import com.rrg.urlshortener.model.CreationResult;
+import com.rrg.urlshortener.model.Granularity;
+import com.rrg.urlshortener.model.HotLinks;
+import com.rrg.urlshortener.model.ShortUrlRequest;
 import com.rrg.urlshortener.model.Url;
+import com.rrg.urlshortener.model.UrlPage;
+import com.rrg.urlshortener.model.VisitSource;
+import com.rrg.urlshortener.repository.ClickStatsMapping;
+import com.rrg.urlshortener.repository.ClickStatsRepository;
 import com.rrg.urlshortener.repository.UrlRepository;
 import com.rrg.urlshortener.service.UrlService;
 import com.rrg.urlshortener.util.UrlUtil;
@@ -15,101 +35,391 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
 
-import java.net.MalformedURLException;
-import java.net.URISyntaxException;
-import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @Slf4j
 @Service
 @Qualifier("urlService")
 public class UrlServiceImpl implements UrlService {
 
-    private static final String URL_FORMAT_ERROR = "%s isn't a valid URL, it needs a protocol, domain and TLD";
+    static final String URL_FORMAT_ERROR = "%s isn't a valid URL, it needs a protocol, domain and TLD";
+    static final String MISSING_URL_ERROR = "URL isn't provided";
+    static final String ID_GENERATION_ERROR = "Couldn't generate Short URL ID";
+    static final String EXPIRY_ERROR = "%s is in the past, a short URL needs to expire in the future";
+    static final String FIRST_CURSOR = "0";
+    static final String GRANULARITY_ERROR = "%s isn't a valid granularity, it needs to be minute, hour or day";
+    static final String RANGE_ERROR = "from needs to be before to";
+    static final String BUCKETS_ERROR = "At most %d buckets can be returned at once";
+    static final Duration SOURCES_RANGE = Duration.ofDays(7);
+    static final String WINDOW_ERROR = "Window needs to be between 1 and %d minutes";
+    static final String COUNT_ERROR = "Count needs to be between 1 and %d";
+    static final int HOT_LINKS_COUNT = 10;
 
     @Value("${attempt.limit}")
     private int attemptLimit;
+    @Value("${create.deduplicate}")
+    private boolean deduplicateByDefault;
+    @Value("${lookup.max-batch-size}")
+    private int lookupMaxBatchSize;
+    @Value("${search.page-size}")
+    private int searchPageSize;
+    @Value("${search.max-page-size}")
+    private int searchMaxPageSize;
+    @Value("${analytics.max-buckets}")
+    private int maxBuckets;
+    @Value("${analytics.unique-visitors.enabled}")
+    private boolean uniqueVisitors;
+    @Value("${analytics.hot-links.enabled}")
+    private boolean hotLinks;
+    @Value("${analytics.hot-links.window-minutes}")
+    private int hotLinksWindow;
+    @Value("${analytics.hot-links.max-window-minutes}")
+    private int hotLinksMaxWindow;
+    @Value("${analytics.hot-links.capacity}")
+    private int hotLinksCapacity;
 
     private final UrlUtil util;
     private final UrlRepository repo;
+    private final RedirectCache cache;
+    private final ShortUrlIdFilter idFilter;
+    private final VisitCounter visitCounter;
+    private final ClickCounter clickCounter;
+    private final UniqueVisitorCounter visitorCounter;
+    private final HotLinkCounter hotLinkCounter;
+    private final ClickStatsRepository clickStats;
+    private final IdGenerator idGenerator;
+    private final UrlMetrics metrics;
 
-    public UrlServiceImpl(UrlUtil util, UrlRepository repo) {
+    public UrlServiceImpl(UrlUtil util, UrlRepository repo, RedirectCache cache, ShortUrlIdFilter idFilter,
+                          VisitCounter visitCounter, ClickCounter clickCounter, UniqueVisitorCounter visitorCounter,
+                          HotLinkCounter hotLinkCounter, ClickStatsRepository clickStats, IdGenerator idGenerator,
+                          UrlMetrics metrics) {
         this.util = util;
         this.repo = repo;
+        this.cache = cache;
+        this.idFilter = idFilter;
+        this.visitCounter = visitCounter;
+        this.clickCounter = clickCounter;
+        this.visitorCounter = visitorCounter;
+        this.hotLinkCounter = hotLinkCounter;
+        this.clickStats = clickStats;
+        this.idGenerator = idGenerator;
+        this.metrics = metrics;
     }
 
     @Override
-    public Url createShortUrl(String fullUrl) {
+    public Url createShortUrl(String fullUrl, Boolean deduplicate, Instant expiresAt) {
+        return metrics.time(Operation.CREATE, () -> create(fullUrl, deduplicate, expiresAt));
+    }
+
+    private Url create(String fullUrl, Boolean deduplicate, Instant expiresAt) {
         if (StringUtils.isBlank(fullUrl)) {
-            throw new MissingFieldException("URL isn't provided");
-        }
-        if (util.isValidUrl(fullUrl)) {
-            var shortUrlId = StringUtils.EMPTY;
-            var attempt = 1;
-            while (attempt <= attemptLimit) {
-                shortUrlId = util.generateId();
-                if (repo.findByShortUrlId(shortUrlId).isEmpty()) {
-                    break;
-                } else {
-                    shortUrlId = StringUtils.EMPTY;
-                    attempt++;
+            throw new MissingFieldException(MISSING_URL_ERROR);
+        }
+        if (isPast(expiresAt)) {
+            throw new InvalidFieldException(String.format(EXPIRY_ERROR, expiresAt));
+        }
+        var canonicalUrl = util.normaliseUrl(fullUrl);
+        if (canonicalUrl != null) {
+            var deduplicateUrl = deduplicates(deduplicate, expiresAt);
+            for (var attempt = 1; attempt <= attemptLimit; attempt++) {
+                var url = newUrl(canonicalUrl, idGenerator.generateId());
+                url.setExpiresAt(expiresAt);
+                var shortUrlId = repo.insertIfAbsent(url, deduplicateUrl);
+                if (shortUrlId != null) {
+                    url.setShortUrlId(shortUrlId);
+                    idFilter.add(shortUrlId);
+                    return url;
                 }
+                metrics.idCollisions(1);
             }
-            if (StringUtils.EMPTY.equals(shortUrlId)) {
-                throw new ShortUrlIdGenerationException("Couldn't generate Short URL ID");
-            }
-            return saveUrl(fullUrl, shortUrlId);
+            metrics.idExhausted(1);
+            throw new ShortUrlIdGenerationException(ID_GENERATION_ERROR);
         }
         throw new InvalidFieldException(String.format(URL_FORMAT_ERROR, fullUrl));
     }
 
     @Override
-    public HttpHeaders processRedirection(String shortUrlId) {
-        var url = getUrlByShortUrlId(shortUrlId);
-        try {
-            var uri = new URL(url.getFullUrl()).toURI();
-            var headers = new HttpHeaders();
-            headers.setLocation(uri);
-            incrementVisits(url);
-            return headers;
-        } catch (URISyntaxException | MalformedURLException e) {
-            log.error("{} is persisted but isn't a valid URL", url.getFullUrl(), e);
-            throw new InvalidFieldException(String.format(URL_FORMAT_ERROR, url.getFullUrl()));
+    public List<CreationResult> createShortUrls(List<ShortUrlRequest> requests) {
+        return metrics.time(Operation.CREATE_BATCH, () -> createAll(requests));
+    }
+
+    private List<CreationResult> createAll(List<ShortUrlRequest> requests) {
+        var results = new CreationResult[requests.size()];
+        var canonicalUrls = new String[requests.size()];
+        var pendingByDeduplicate = new LinkedHashMap<Boolean, List<Integer>>();
+        for (var i = 0; i < requests.size(); i++) {
+            var request = requests.get(i);
+            if (StringUtils.isBlank(request.fullUrl())) {
+                results[i] = CreationResult.failed(request.fullUrl(), MISSING_URL_ERROR);
+            } else if (isPast(request.expiresAt())) {
+                results[i] = CreationResult.failed(request.fullUrl(), String.format(EXPIRY_ERROR, request.expiresAt()));
+            } else if ((canonicalUrls[i] = util.normaliseUrl(request.fullUrl())) == null) {
+                results[i] = CreationResult.failed(request.fullUrl(), String.format(URL_FORMAT_ERROR, request.fullUrl()));
+            } else {
+                var deduplicate = deduplicates(request.deduplicate(), request.expiresAt());
+                pendingByDeduplicate.computeIfAbsent(deduplicate, key -> new ArrayList<>()).add(i);
+            }
         }
+        pendingByDeduplicate.forEach((deduplicate, pending) ->
+                insertAll(canonicalUrls, requests, pending, deduplicate, results));
+        return Arrays.asList(results);
+    }
+
+    @Override
+    public HttpHeaders processRedirection(String shortUrlId, VisitSource source) {
+        var headers = new HttpHeaders();
+        headers.set(HttpHeaders.LOCATION, resolveRedirection(shortUrlId, source));
+        return headers;
+    }
+
+    @Override
+    public String resolveRedirection(String shortUrlId, VisitSource source) {
+        return metrics.time(Operation.REDIRECT, () -> resolve(shortUrlId, source));
+    }
+
+    private String resolve(String shortUrlId, VisitSource source) {
+        requireShortUrlId(shortUrlId);
+        var location = cache.get(shortUrlId, this::loadLocation);
+        incrementVisits(shortUrlId);
+        clickCounter.increment(shortUrlId, source);
+        visitorCounter.add(shortUrlId, source);
+        hotLinkCounter.increment(shortUrlId);
+        return location;
     }
 
     @Override
     public Url getUrlByShortUrlId(String shortUrlId) {
-        if (StringUtils.isBlank(shortUrlId)) {
-            throw new MissingFieldException("Short URL ID isn't provided");
+        requireShortUrlId(shortUrlId);
+        return repo.findByShortUrlId(shortUrlId).orElseThrow(() -> notFound(shortUrlId));
+    }
+
+    @Override
+    public Long countUniqueVisitors(String shortUrlId) {
+        requireShortUrlId(shortUrlId);
+        return uniqueVisitors ? clickStats.countUniqueVisitors(shortUrlId) : null;
+    }
+
+    @Override
+    public Map<String, Url> getUrlsByShortUrlIds(List<String> shortUrlIds) {
+        return metrics.time(Operation.LOOKUP, () -> findAll(shortUrlIds));
+    }
+
+    private Map<String, Url> findAll(List<String> shortUrlIds) {
+        if (shortUrlIds == null || shortUrlIds.isEmpty()) {
+            throw new MissingFieldException("Short URL IDs aren't provided");
         }
-        return repo.findByShortUrlId(shortUrlId)
-                .orElseThrow(() -> new ResourceNotFoundException(String.format("No resource found for %s", shortUrlId)));
+        if (shortUrlIds.size() > lookupMaxBatchSize) {
+            throw new InvalidFieldException(
+                    String.format("At most %d short URL IDs can be looked up at once", lookupMaxBatchSize));
+        }
+        var distinctIds = shortUrlIds.stream().filter(StringUtils::isNotBlank).distinct().toList();
+        if (distinctIds.isEmpty()) {
+            return Map.of();
+        }
+        return repo.findAllByShortUrlIds(distinctIds);
     }
 
     @Override
-    public List<Url> getUrlsByFullUrl(String fullUrl) {
+    public UrlPage getUrlsByFullUrl(String fullUrl, String cursor, Integer count) {
+        return metrics.time(Operation.SEARCH, () -> search(fullUrl, cursor, count));
+    }
+
+    private UrlPage search(String fullUrl, String cursor, Integer count) {
         if (StringUtils.isBlank(fullUrl)) {
             throw new MissingFieldException("Full Url isn't provided");
         }
-        fullUrl = util.sanitiseUrl(fullUrl);
-        if (util.isValidUrl(fullUrl)) {
-            return repo.findAllByFullUrl(fullUrl);
+        if (cursor != null && !StringUtils.isNumeric(cursor)) {
+            throw new InvalidFieldException(String.format("%s isn't a valid cursor", cursor));
+        }
+        if (count != null && (count < 1 || count > searchMaxPageSize)) {
+            throw new InvalidFieldException(String.format(COUNT_ERROR, searchMaxPageSize));
+        }
+        var canonicalUrl = util.normaliseUrl(fullUrl);
+        if (canonicalUrl != null) {
+            return repo.findPageByFullUrl(canonicalUrl, cursor != null ? cursor : FIRST_CURSOR,
+                    count != null ? count : searchPageSize);
         }
         throw new InvalidFieldException(String.format(URL_FORMAT_ERROR, fullUrl));
     }
 
     @Override
     public Url saveUrl(String fullUrl, String shortUrlId) {
+        var savedUrl = repo.save(newUrl(util.sanitiseUrl(fullUrl), shortUrlId));
+        cache.invalidate(shortUrlId);
+        idFilter.add(shortUrlId);
+        return savedUrl;
+    }
+
+    @Override
+    public void incrementVisits(String shortUrlId) {
+        visitCounter.increment(shortUrlId);
+    }
+
+    @Override
+    public ClickSeries getClicks(String shortUrlId, String granularity, Instant from, Instant to) {
+        requireShortUrlId(shortUrlId);
+        var bucketGranularity = granularity(granularity);
+        var starts = bucketStarts(bucketGranularity, from, to, bucketGranularity.defaultRange(), maxBuckets);
+        return new ClickSeries(bucketGranularity, clickStats.findClicks(shortUrlId, bucketGranularity, starts));
+    }
+
+    @Override
+    public ClickSources getSources(String shortUrlId, Instant from, Instant to) {
+        requireShortUrlId(shortUrlId);
+        return clickStats.findSources(shortUrlId, bucketStarts(Granularity.DAY, from, to, SOURCES_RANGE, maxBuckets));
+    }
+
+    @Override
+    public HotLinks getHotLinks(Integer window, Integer count) {
+        var windowMinutes = bounded(window, hotLinksWindow, hotLinksMaxWindow, WINDOW_ERROR);
+        var hotLinksCount = bounded(count, HOT_LINKS_COUNT, hotLinksCapacity, COUNT_ERROR);
+        if (!hotLinks) {
+            return new HotLinks(windowMinutes, List.of());
+        }
+        return new HotLinks(windowMinutes, clickStats.findHotLinks(Instant.now(), windowMinutes, hotLinksCount));
+    }
+
+    private void insertAll(String[] fullUrls, List<ShortUrlRequest> requests, List<Integer> pending,
+                           boolean deduplicate, CreationResult[] results) {
+        for (var attempt = 1; attempt <= attemptLimit && !pending.isEmpty(); attempt++) {
+            var shortUrlIds = idGenerator.generateIds(pending.size());
+            var urls = new ArrayList<Url>(pending.size());
+            for (var i = 0; i < pending.size(); i++) {
+                var url = newUrl(fullUrls[pending.get(i)], shortUrlIds.get(i));
+                url.setExpiresAt(requests.get(pending.get(i)).expiresAt());
+                urls.add(url);
+            }
+            var storedIds = repo.insertAllIfAbsent(urls, deduplicate);
+            var collided = new ArrayList<Integer>();
+            var created = new ArrayList<String>(pending.size());
+            for (var i = 0; i < pending.size(); i++) {
+                if (storedIds.get(i) != null) {
+                    var url = urls.get(i);
+                    url.setShortUrlId(storedIds.get(i));
+                    results[pending.get(i)] = CreationResult.created(url);
+                    created.add(storedIds.get(i));
+                } else {
+                    collided.add(pending.get(i));
+                }
+            }
+            idFilter.addAll(created);
+            metrics.idCollisions(collided.size());
+            pending = collided;
+        }
+        metrics.idExhausted(pending.size());
+        for (var index : pending) {
+            results[index] = CreationResult.failed(fullUrls[index], ID_GENERATION_ERROR);
+        }
+    }
+
+    /**
+     * A short URL with an expiry is never deduplicated, so a full URL isn't mapped to a short URL that stops existing
+     * while the mapping is still in use.
+     */
+    static boolean deduplicates(Boolean deduplicate, Instant expiresAt, boolean deduplicateByDefault) {
+        return expiresAt == null && (deduplicate != null ? deduplicate : deduplicateByDefault);
+    }
+
+    /**
+     * The exception doesn't fill in a stack trace, so it's cheap to throw for every unknown short URL ID.
+     */
+    static ResourceNotFoundException notFound(String shortUrlId) {
+        return new ResourceNotFoundException(String.format("No resource found for %s", shortUrlId));
+    }
+
+    static boolean isPast(Instant expiresAt) {
+        return expiresAt != null && !expiresAt.isAfter(Instant.now());
+    }
+
+    static Granularity granularity(String granularity) {
+        if (granularity == null) {
+            return Granularity.HOUR;
+        }
+        try {
+            return Granularity.valueOf(granularity.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidFieldException(String.format(GRANULARITY_ERROR, granularity));
+        }
+    }
+
+    /**
+     * @return {@code value}, or {@code defaultValue} when null, after checking it's between 1 and {@code max}
+     */
+    static int bounded(Integer value, int defaultValue, int max, String error) {
+        if (value != null && (value < 1 || value > max)) {
+            throw new InvalidFieldException(String.format(error, max));
+        }
+        return value != null ? value : Math.min(defaultValue, max);
+    }
+
+    /**
+     * @param defaultRange the range before {@code to} when {@code from} isn't given, ending with the bucket holding
+     *                     {@code to}
+     * @return the start of each bucket of the range
+     */
+    static List<Instant> bucketStarts(Granularity granularity, Instant from, Instant to, Duration defaultRange,
+                                      int maxBuckets) {
+        var end = to != null ? to : Instant.now();
+        var unit = granularity.unit().getDuration();
+        var start = from != null ? from : end.truncatedTo(granularity.unit()).minus(defaultRange).plus(unit);
+        if (!start.isBefore(end)) {
+            throw new InvalidFieldException(RANGE_ERROR);
+        }
+        var length = Duration.between(start.truncatedTo(granularity.unit()), end);
+        if (length.compareTo(unit.multipliedBy(maxBuckets)) > 0) {
+            throw new InvalidFieldException(String.format(BUCKETS_ERROR, maxBuckets));
+        }
+        return ClickStatsMapping.bucketStarts(granularity, start, end);
+    }
+
+    private boolean deduplicates(Boolean deduplicate, Instant expiresAt) {
+        return deduplicates(deduplicate, expiresAt, deduplicateByDefault);
+    }
+
+    private Url newUrl(String fullUrl, String shortUrlId) {
         var url = new Url();
-        url.setFullUrl(util.sanitiseUrl(fullUrl));
+        url.setFullUrl(fullUrl);
         url.setShortUrlId(shortUrlId);
-        return repo.save(url);
+        return url;
     }
 
-    @Override
-    public void incrementVisits(Url url) {
-        url.setVisits(url.getVisits() + 1);
-        repo.save(url);
+    /**
+     * Full URLs are stored in canonical form, so on a cache miss they only need checking, which allocates nothing,
+     * before being used as the location as is. A short URL ID that was never created, or wasn't found recently, is
+     * answered without a lookup, and one that isn't found is remembered for {@code redirect.not-found-cache.ttl}.
+     */
+    private Location loadLocation(String shortUrlId) {
+        if (!idFilter.mightExist(shortUrlId) || cache.isNotFound(shortUrlId)) {
+            throw notFound(shortUrlId);
+        }
+        var url = repo.findByShortUrlId(shortUrlId).orElse(null);
+        if (url == null) {
+            cache.putNotFound(shortUrlId);
+            throw notFound(shortUrlId);
+        }
+        var location = util.normaliseUrl(url.getFullUrl());
+        if (location == null && util.isParsableUrl(url.getFullUrl())) {
+            // Stored before full URLs were normalised, and valid under the check of the time.
+            location = url.getFullUrl();
+        }
+        if (location == null) {
+            log.error("{} is persisted but isn't a valid URL", url.getFullUrl());
+            throw new InvalidFieldException(String.format(URL_FORMAT_ERROR, url.getFullUrl()));
+        }
+        return new Location(location, url.getExpiresAt());
+    }
+
+    private void requireShortUrlId(String shortUrlId) {
+        if (StringUtils.isBlank(shortUrlId)) {
+            throw new MissingFieldException("Short URL ID isn't provided");
+        }
     }
 }
@@ -0,0 +1,145 @@
+package com.rrg.urlshortener.tiering;
+
+import com.rrg.urlshortener.model.Url;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * The short URLs moved out of REDIS by {@link UrlDemoter}, in an H2 MVStore file under {@code tiering.data-dir}.
+ * MVStore appends changed pages to the end of the file rather than rewriting them in place, and keeps the pages read
+ * most in a cache of {@code tiering.cache-size-mb}. A short URL is stored as its visits, expiry in epoch milliseconds
+ * when it has one, and full URL, separated by spaces, which a valid full URL never holds. Expired short URLs are
+ * ignored, and removed by {@link #removeExpired(int)}.
+ * <p>
+ * The file belongs to the instance that opened it, so short URLs moved there are only found by that instance.
+ */
+@Component
+@ConditionalOnProperty(name = "tiering.enabled", havingValue = "true")
+public class ColdUrlStore implements DisposableBean {
+
+    private static final String FILE_NAME = "urls.mv.db";
+    private static final String MAP_NAME = "urls";
+
+    private final MVStore store;
+    private final MVMap<String, String> urls;
+    private String sweepFrom;
+
+    public ColdUrlStore(@Value("${tiering.data-dir}") Path dataDir,
+                        @Value("${tiering.cache-size-mb}") int cacheSizeMb) throws IOException {
+        Files.createDirectories(dataDir);
+        this.store = new MVStore.Builder()
+                .fileName(dataDir.resolve(FILE_NAME).toString())
+                .cacheSize(cacheSizeMb)
+                .compress()
+                .open();
+        this.urls = store.openMap(MAP_NAME);
+    }
+
+    public Url get(String shortUrlId) {
+        var value = urls.get(shortUrlId);
+        if (value == null || isExpired(value)) {
+            return null;
+        }
+        var url = new Url();
+        url.setShortUrlId(shortUrlId);
+        url.setVisits(visits(value));
+        url.setExpiresAt(expiresAt(value));
+        url.setFullUrl(value.substring(value.lastIndexOf(' ') + 1));
+        return url;
+    }
+
+    public boolean contains(String shortUrlId) {
+        var value = urls.get(shortUrlId);
+        return value != null && !isExpired(value);
+    }
+
+    /**
+     * Writes the URLs to the file before returning, so they can be deleted from REDIS.
+     */
+    public void putAll(Collection<Url> coldUrls) {
+        for (var url : coldUrls) {
+            var expiresAt = url.getExpiresAt() == null ? "" : url.getExpiresAt().toEpochMilli() + " ";
+            urls.put(url.getShortUrlId(), url.getVisits() + " " + expiresAt + url.getFullUrl());
+        }
+        store.commit();
+    }
+
+    /**
+     * Adds visits to the short URLs held here, visits of other short URLs are dropped.
+     */
+    public void addVisits(Map<String, Long> visitsByShortUrlId) {
+        visitsByShortUrlId.forEach((shortUrlId, visits) -> urls.computeIfPresent(shortUrlId,
+                (id, value) -> (visits(value) + visits) + value.substring(value.indexOf(' '))));
+    }
+
+    public void removeAll(Collection<String> shortUrlIds) {
+        shortUrlIds.forEach(urls::remove);
+    }
+
+    /**
+     * Removes the expired short URLs among the next {@code count} entries, continuing where the previous call stopped
+     * and starting over once the end is reached, so that each call only reads part of the file.
+     *
+     * @return the number of short URLs removed
+     */
+    public int removeExpired(int count) {
+        var expired = new ArrayList<String>();
+        var cursor = urls.cursor(sweepFrom);
+        var read = 0;
+        String last = null;
+        while (read < count && cursor.hasNext()) {
+            last = cursor.next();
+            if (isExpired(cursor.getValue())) {
+                expired.add(last);
+            }
+            read++;
+        }
+        sweepFrom = read < count ? null : urls.higherKey(last);
+        removeAll(expired);
+        return expired.size();
+    }
+
+    /**
+     * Passes the ID of every short URL of the store to the action, expired or not.
+     */
+    public void forEachShortUrlId(Consumer<String> action) {
+        urls.keySet().forEach(action);
+    }
+
+    public long size() {
+        return urls.sizeAsLong();
+    }
+
+    private long visits(String value) {
+        return Long.parseLong(value, 0, value.indexOf(' '), 10);
+    }
+
+    private Instant expiresAt(String value) {
+        var first = value.indexOf(' ');
+        var last = value.lastIndexOf(' ');
+        return first == last ? null : Instant.ofEpochMilli(Long.parseLong(value, first + 1, last, 10));
+    }
+
+    private boolean isExpired(String value) {
+        var expiresAt = expiresAt(value);
+        return expiresAt != null && !expiresAt.isAfter(Instant.now());
+    }
+
+    @Override
+    public void destroy() {
+        store.close();
+    }
+}
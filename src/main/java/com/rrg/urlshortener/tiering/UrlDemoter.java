@@ -0,0 +1,168 @@
+package com.rrg.urlshortener.tiering;
+
+import com.rrg.urlshortener.config.RedisTopology;
+import com.rrg.urlshortener.model.Url;
+import com.rrg.urlshortener.repository.UrlRedisMapping;
+import com.rrg.urlshortener.repository.UrlRedisMapping.InsertCall;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Moves the short URLs whose hash wasn't read or written for {@code tiering.idle-time} to the {@link ColdUrlStore},
+ * scanning the hashes every {@code tiering.demotion.interval-ms}. The repositories move a short URL back to REDIS when
+ * it's read again, so REDIS only holds the short URLs in use. The index and deduplication entries of the full URL stay
+ * in REDIS, so searches and deduplication still find the short URLs moved out.
+ * <p>
+ * The idle time is REDIS's {@code OBJECT IDLETIME}, which isn't kept under an LFU {@code maxmemory-policy}. A short URL
+ * is written to the cold store first, then deleted from REDIS unless visits were added meanwhile. Visits flushed
+ * after it's deleted are added to the cold store instead.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "tiering.enabled", havingValue = "true")
+public class UrlDemoter {
+
+    private static final RedisScript<Long> DELETE_IF_UNCHANGED =
+            RedisScript.of(new ClassPathResource("scripts/delete-if-unchanged.lua"), Long.class);
+    private static final byte[] SCRIPT_LOAD = "LOAD".getBytes(StandardCharsets.UTF_8);
+
+    @Value("${tiering.idle-time}")
+    private Duration idleTime;
+    @Value("${tiering.demotion.batch-size}")
+    private int batchSize;
+
+    private final StringRedisTemplate template;
+    private final UrlRedisMapping mapping;
+    private final ColdUrlStore coldStore;
+
+    public UrlDemoter(StringRedisTemplate template, UrlRedisMapping mapping, ColdUrlStore coldStore,
+                      @Value("${redis.topology}") RedisTopology topology) {
+        if (topology == RedisTopology.CLUSTER) {
+            throw new IllegalStateException("tiering.enabled isn't supported with redis.topology=cluster");
+        }
+        this.template = template;
+        this.mapping = mapping;
+        this.coldStore = coldStore;
+    }
+
+    @Scheduled(fixedDelayString = "${tiering.demotion.interval-ms}")
+    public void demote() {
+        // Only hashes match, the index sets of the hash format share the key prefix of the short URLs.
+        var options = ScanOptions.scanOptions().match(mapping.key("*")).type(DataType.HASH).count(batchSize).build();
+        var demoted = 0;
+        var batch = new ArrayList<String>(batchSize);
+        try (var cursor = template.scan(options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == batchSize) {
+                    demoted += demote(batch);
+                    batch.clear();
+                }
+            }
+        }
+        demoted += demote(batch);
+        if (demoted > 0) {
+            log.info("Moved {} short URLs idle for {} to the cold store, which holds {}", demoted, idleTime,
+                    coldStore.size());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private int demote(List<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        var idleTimes = template.executePipelined((RedisCallback<Object>) connection -> {
+            keys.forEach(key -> connection.keyCommands().idletime(bytes(key)));
+            return null;
+        });
+        var prefixLength = mapping.key("").length();
+        var idleIds = new ArrayList<String>(keys.size());
+        for (var i = 0; i < keys.size(); i++) {
+            if (idleTimes.get(i) != null && ((Duration) idleTimes.get(i)).compareTo(idleTime) >= 0) {
+                idleIds.add(keys.get(i).substring(prefixLength));
+            }
+        }
+        if (idleIds.isEmpty()) {
+            return 0;
+        }
+
+        var hashes = template.executePipelined((RedisCallback<Object>) connection -> {
+            idleIds.forEach(shortUrlId -> connection.hashCommands().hGetAll(bytes(mapping.key(shortUrlId))));
+            return null;
+        });
+        var urls = new ArrayList<Url>(idleIds.size());
+        var visits = new ArrayList<String>(idleIds.size());
+        for (var i = 0; i < idleIds.size(); i++) {
+            var hash = (Map<String, String>) hashes.get(i);
+            var url = mapping.read(idleIds.get(i), hash);
+            if (url != null) {
+                urls.add(url);
+                visits.add(hash.getOrDefault(mapping.visitsField(), ""));
+            }
+        }
+        coldStore.putAll(urls);
+
+        var calls = urls.stream().map(url -> mapping.insertCall(url, false)).toList();
+        var sha = bytes(DELETE_IF_UNCHANGED.getSha1());
+        // The scripting commands of the Jedis connection can't be pipelined, raw commands can.
+        var results = template.executePipelined((RedisCallback<Object>) connection -> {
+            connection.execute("SCRIPT", SCRIPT_LOAD, bytes(DELETE_IF_UNCHANGED.getScriptAsString()));
+            for (var i = 0; i < calls.size(); i++) {
+                connection.execute("EVALSHA", evalShaArgs(sha, calls.get(i), visits.get(i)));
+            }
+            return null;
+        });
+        var demoted = new ArrayList<InsertCall>(calls.size());
+        var kept = new ArrayList<String>();
+        for (var i = 0; i < calls.size(); i++) {
+            if (Long.valueOf(1).equals(results.get(i + 1))) {
+                demoted.add(calls.get(i));
+            } else {
+                kept.add(calls.get(i).shortUrlId());
+            }
+        }
+        coldStore.removeAll(kept);
+        removeFromKeyspace(demoted);
+        return demoted.size();
+    }
+
+    /**
+     * Deletes the hash with the set of the index keys holding the short URL, which only the hash format keeps.
+     */
+    private byte[][] evalShaArgs(byte[] sha, InsertCall call, String visits) {
+        var keys = call.indexesKey() == null ? List.of(call.hashKey()) : List.of(call.hashKey(), call.indexesKey());
+        return Stream.of(Stream.of(sha, bytes(String.valueOf(keys.size()))),
+                        Stream.concat(keys.stream(), Stream.of(mapping.visitsField(), visits)).map(this::bytes))
+                .flatMap(args -> args)
+                .toArray(byte[][]::new);
+    }
+
+    private void removeFromKeyspace(List<InsertCall> demoted) {
+        if (demoted.isEmpty() || demoted.get(0).keyspaceKey() == null) {
+            return;
+        }
+        template.opsForSet().remove(demoted.get(0).keyspaceKey(),
+                demoted.stream().map(InsertCall::shortUrlId).toArray());
+    }
+
+    private byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
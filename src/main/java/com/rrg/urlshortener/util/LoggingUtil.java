@@ -1,34 +0,0 @@
-package com.rrg.urlshortener.util;
-
-import jakarta.servlet.FilterChain;
-import jakarta.servlet.ServletException;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
-import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
-import org.springframework.stereotype.Component;
-import org.springframework.web.filter.OncePerRequestFilter;
-import org.springframework.web.util.ContentCachingRequestWrapper;
-import org.springframework.web.util.ContentCachingResponseWrapper;
-
-import java.io.IOException;
-
-@Slf4j
-@Component
-public class LoggingUtil extends OncePerRequestFilter {
-
-    @Override
-    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
-        var requestWrapper = new ContentCachingRequestWrapper(request);
-        var responseWrapper = new ContentCachingResponseWrapper(response);
-        filterChain.doFilter(requestWrapper, responseWrapper);
-        logResponse(requestWrapper, responseWrapper);
-    }
-
-    private void logResponse(ContentCachingRequestWrapper requestWrapper, ContentCachingResponseWrapper responseWrapper) throws IOException {
-        String query = requestWrapper.getQueryString() != null ? requestWrapper.getQueryString() : StringUtils.EMPTY;
-        log.info("Request {} {} {} {}", requestWrapper.getMethod(), requestWrapper.getRequestURI(), query, new String(requestWrapper.getContentAsByteArray()));
-        log.info("Response {} {} {}", requestWrapper.getMethod(), requestWrapper.getRequestURI(), new String(responseWrapper.getContentAsByteArray()));
-        responseWrapper.copyBodyToResponse();
-    }
-}
@@ -12,6 +12,26 @@ import java.util.Random;
 @Component
 public class UrlUtil {
 
+    private static final String HTTP = "http://";
+    private static final String HTTPS = "https://";
+    private static final String PUNYCODE_PREFIX = "xn--";
+    private static final int HTTP_PORT = 80;
+    private static final int HTTPS_PORT = 443;
+    private static final int MAX_PORT = 65535;
+    private static final int MAX_HOST_LENGTH = 253;
+    private static final int MAX_LABEL_LENGTH = 63;
+    /**
+     * The ASCII characters allowed after the authority of a URI, {@code %} aside as it must start an escape.
+     */
+    private static final boolean[] URI_CHARS = new boolean[128];
+
+    static {
+        var allowed = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-._~:/?#@!$&'()*+,;=";
+        for (var i = 0; i < allowed.length(); i++) {
+            URI_CHARS[allowed.charAt(i)] = true;
+        }
+    }
+
     @Value("${id.length}")
     private int idLength;
     @Value("${permitted.chars}")
@@ -27,7 +47,28 @@ public class UrlUtil {
         return idBuilder.toString();
     }
 
+    public String encode(long value) {
+        var base = permittedChars.length();
+        var idBuilder = new StringBuilder();
+        do {
+            idBuilder.append(permittedChars.charAt((int) (value % base)));
+            value /= base;
+        } while (value > 0);
+        while (idBuilder.length() < idLength) {
+            idBuilder.append(permittedChars.charAt(0));
+        }
+        return idBuilder.reverse().toString();
+    }
+
     public boolean isValidUrl(String url) {
+        return normaliseUrl(url) != null;
+    }
+
+    /**
+     * The check full URLs were validated with before {@link #normaliseUrl(String)}, which also accepts other protocols
+     * than http and https, user info and hosts without a TLD, so the short URLs stored back then still redirect.
+     */
+    public boolean isParsableUrl(String url) {
         try {
             new URL(url).toURI();
             return true;
@@ -42,4 +83,139 @@ public class UrlUtil {
         }
         return url;
     }
+
+    /**
+     * Validates the URL and returns its canonical form in a single pass, without parsing it into objects or throwing.
+     * A valid URL has an http or https protocol, a domain with a TLD (or an IPv4 address), an optional port, and only
+     * characters allowed in a URI after them. The canonical form has a lower-case protocol and domain, no default port
+     * and no trailing slash at the end of its path. A URL already in canonical form is returned as is, so validating
+     * it allocates nothing.
+     *
+     * @return the canonical form of the URL, or null if it isn't valid
+     */
+    public String normaliseUrl(String url) {
+        if (url == null) {
+            return null;
+        }
+        int schemeLength;
+        if (url.regionMatches(true, 0, HTTPS, 0, HTTPS.length())) {
+            schemeLength = HTTPS.length();
+        } else if (url.regionMatches(true, 0, HTTP, 0, HTTP.length())) {
+            schemeLength = HTTP.length();
+        } else {
+            return null;
+        }
+        var canonical = url.startsWith(schemeLength == HTTPS.length() ? HTTPS : HTTP);
+        var length = url.length();
+
+        var hostStart = schemeLength;
+        var i = hostStart;
+        var labelStart = i;
+        var labels = 0;
+        var labelAlphabetic = true;
+        var numericLabels = 0;
+        var labelValue = 0;
+        for (; i < length; i++) {
+            var c = url.charAt(i);
+            if (c == ':' || c == '/' || c == '?' || c == '#') {
+                break;
+            }
+            if (c == '.') {
+                if (!isValidLabel(url, labelStart, i)) {
+                    return null;
+                }
+                numericLabels += isNumericLabel(url, labelStart, i, labelValue) ? 1 : 0;
+                labels++;
+                labelStart = i + 1;
+                labelAlphabetic = true;
+                labelValue = 0;
+            } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                canonical &= c >= 'a';
+                labelValue = Integer.MAX_VALUE;
+            } else if (c >= '0' && c <= '9') {
+                labelAlphabetic = false;
+                labelValue = labelValue > 255 ? labelValue : labelValue * 10 + (c - '0');
+            } else if (c == '-') {
+                labelAlphabetic = false;
+                labelValue = Integer.MAX_VALUE;
+            } else {
+                return null;
+            }
+        }
+        var hostEnd = i;
+        if (hostEnd - hostStart > MAX_HOST_LENGTH || labels == 0 || !isValidLabel(url, labelStart, hostEnd)) {
+            return null;
+        }
+        var ipv4 = labels == 3 && numericLabels == 3 && isNumericLabel(url, labelStart, hostEnd, labelValue);
+        var tldLength = hostEnd - labelStart;
+        var validTld = (labelAlphabetic && tldLength >= 2) || url.startsWith(PUNYCODE_PREFIX, labelStart);
+        if (!ipv4 && !validTld) {
+            return null;
+        }
+
+        var portEnd = hostEnd;
+        var defaultPort = false;
+        if (i < length && url.charAt(i) == ':') {
+            var port = 0;
+            for (i++; i < length && url.charAt(i) >= '0' && url.charAt(i) <= '9'; i++) {
+                port = port > MAX_PORT ? port : port * 10 + (url.charAt(i) - '0');
+            }
+            if (i == hostEnd + 1 || port < 1 || port > MAX_PORT) {
+                return null;
+            }
+            if (i < length && url.charAt(i) != '/' && url.charAt(i) != '?' && url.charAt(i) != '#') {
+                return null;
+            }
+            portEnd = i;
+            defaultPort = port == (schemeLength == HTTPS.length() ? HTTPS_PORT : HTTP_PORT);
+            canonical &= !defaultPort;
+        }
+
+        var queryOrFragment = false;
+        var fragment = false;
+        for (; i < length; i++) {
+            var c = url.charAt(i);
+            if (c == '#') {
+                if (fragment) {
+                    return null;
+                }
+                fragment = true;
+                queryOrFragment = true;
+            } else if (c == '?') {
+                queryOrFragment = true;
+            } else if (c == '%') {
+                if (i + 2 >= length || !isHexDigit(url.charAt(i + 1)) || !isHexDigit(url.charAt(i + 2))) {
+                    return null;
+                }
+                i += 2;
+            } else if (c >= URI_CHARS.length || !URI_CHARS[c]) {
+                return null;
+            }
+        }
+        var end = !queryOrFragment && length > portEnd && url.charAt(length - 1) == '/' ? length - 1 : length;
+        canonical &= end == length;
+        if (canonical) {
+            return url;
+        }
+
+        var builder = new StringBuilder(end);
+        builder.append(schemeLength == HTTPS.length() ? HTTPS : HTTP);
+        for (var j = hostStart; j < hostEnd; j++) {
+            builder.append(Character.toLowerCase(url.charAt(j)));
+        }
+        builder.append(url, defaultPort ? portEnd : hostEnd, end);
+        return builder.toString();
+    }
+
+    private boolean isValidLabel(String url, int start, int end) {
+        return end > start && end - start <= MAX_LABEL_LENGTH && url.charAt(start) != '-' && url.charAt(end - 1) != '-';
+    }
+
+    private boolean isNumericLabel(String url, int start, int end, int value) {
+        return value <= 255 && (end - start == 1 || url.charAt(start) != '0');
+    }
+
+    private boolean isHexDigit(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
 }
@@ -0,0 +1,56 @@
+package com.rrg.urlshortener.util;
+
+import com.rrg.urlshortener.model.VisitSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Reads the {@link VisitSource} of a redirection from its request, on the servlet and reactive stacks alike. When
+ * {@code analytics.unique-visitors.enabled}, the visitor is a 64-bit FNV-1a hash of the parts of
+ * {@code analytics.unique-visitors.client-key}, the client address for {@value #REMOTE_ADDRESS} and the header of that
+ * name for any other part. The client key itself is never stored, REDIS hashes the visitor again into its sketch.
+ */
+@Component
+public class VisitSourceResolver {
+
+    public static final String REMOTE_ADDRESS = "remote-address";
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    @Value("${analytics.country-header}")
+    private String countryHeader;
+    @Value("${analytics.unique-visitors.enabled}")
+    private boolean uniqueVisitors;
+    @Value("${analytics.unique-visitors.client-key}")
+    private List<String> clientKey;
+
+    /**
+     * @param headers       the first value of a request header by name
+     * @param remoteAddress the address of the client, only read when part of the client key
+     */
+    public VisitSource resolve(UnaryOperator<String> headers, Supplier<String> remoteAddress) {
+        var visitor = uniqueVisitors ? visitor(headers, remoteAddress) : VisitSource.NO_VISITOR;
+        return VisitSource.of(headers.apply(HttpHeaders.REFERER), headers.apply(countryHeader), visitor);
+    }
+
+    private long visitor(UnaryOperator<String> headers, Supplier<String> remoteAddress) {
+        var hash = FNV_OFFSET_BASIS;
+        for (var part : clientKey) {
+            var value = REMOTE_ADDRESS.equals(part) ? remoteAddress.get() : headers.apply(part);
+            if (value != null) {
+                for (var i = 0; i < value.length(); i++) {
+                    hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+                }
+            }
+            // Separates the parts, so that moving characters from one part to the next changes the hash.
+            hash = (hash ^ 0xffff) * FNV_PRIME;
+        }
+        return hash == VisitSource.NO_VISITOR ? 1 : hash;
+    }
+}
@@ -0,0 +1,27 @@
+-- Moves a short URL from the @RedisHash format to the compact format, unless its full URL changed since it was read.
+-- Visits already counted in the compact hash are kept, and so is the expiry of the hash.
+-- KEYS[1] hash, KEYS[2] set of its index keys, KEYS[3] keyspace set, KEYS[4] full URL index set,
+-- KEYS[5] compact hash, KEYS[6] compact full URL index set
+-- ARGV[1] ID, ARGV[2] full URL, ARGV[3] and ARGV[4] full URL and visits fields of the hash, ARGV[5] and ARGV[6]
+-- those of the compact hash, ARGV[7] its expiry field
+-- Returns true once moved, false when the hash is gone or holds another full URL
+if redis.call('HGET', KEYS[1], ARGV[3]) ~= ARGV[2] then
+    return false
+end
+local visits = tonumber(redis.call('HGET', KEYS[1], ARGV[4]) or '0')
+local ttl = redis.call('PTTL', KEYS[1])
+redis.call('HSET', KEYS[5], ARGV[5], ARGV[2])
+if visits > 0 then
+    redis.call('HINCRBY', KEYS[5], ARGV[6], visits)
+end
+if ttl > 0 then
+    local now = redis.call('TIME')
+    local expiresAt = string.format('%d', now[1] * 1000 + math.floor(now[2] / 1000) + ttl)
+    redis.call('HSET', KEYS[5], ARGV[7], expiresAt)
+    redis.call('PEXPIREAT', KEYS[5], expiresAt)
+end
+redis.call('SADD', KEYS[6], ARGV[1])
+redis.call('SREM', KEYS[4], ARGV[1])
+redis.call('SREM', KEYS[3], ARGV[1])
+redis.call('DEL', KEYS[1], KEYS[2])
+return true
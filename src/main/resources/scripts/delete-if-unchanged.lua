@@ -0,0 +1,12 @@
+-- Deletes a short URL hash, and the keys only it uses, once it's copied to the cold store, unless visits were added
+-- since it was read.
+-- KEYS[1] hash
+-- KEYS[2..n] other keys of the short URL
+-- ARGV[1] visits field
+-- ARGV[2] visits read, empty when the field wasn't set
+-- Returns 1 when the keys were deleted, 0 otherwise
+if redis.call('EXISTS', KEYS[1]) == 0 or (redis.call('HGET', KEYS[1], ARGV[1]) or '') ~= ARGV[2] then
+    return 0
+end
+redis.call('DEL', unpack(KEYS))
+return 1
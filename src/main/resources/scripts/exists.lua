@@ -0,0 +1,4 @@
+-- Checks a key on the primary, as scripts are never sent to replicas.
+-- KEYS[1] key
+-- Returns 1 when the key exists, 0 otherwise
+return redis.call('EXISTS', KEYS[1])
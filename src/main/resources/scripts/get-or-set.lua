@@ -0,0 +1,11 @@
+-- Maps a deduplicated full URL to a short URL ID unless it's already mapped, run on the primary so that the mapping
+-- read is never a stale replica copy.
+-- KEYS[1] deduplication key
+-- ARGV[1] short URL ID
+-- Returns the short URL ID the full URL is mapped to
+local existing = redis.call('GET', KEYS[1])
+if existing then
+    return existing
+end
+redis.call('SET', KEYS[1], ARGV[1])
+return ARGV[1]
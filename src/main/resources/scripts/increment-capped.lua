@@ -0,0 +1,23 @@
+-- Adds visits to the fields of a hash, adding those of new fields to an overflow field once the hash holds the maximum
+-- number of fields, so a hash whose fields come from the client can't grow without bound.
+-- KEYS[1] hash
+-- ARGV[1] maximum number of fields, the overflow field aside
+-- ARGV[2] overflow field
+-- ARGV[3] expiry, in milliseconds since the epoch
+-- ARGV[4..] each field followed by the visits to add to it
+-- Returns the number of fields, the overflow field aside
+local max = tonumber(ARGV[1])
+local count = redis.call('HLEN', KEYS[1]) - redis.call('HEXISTS', KEYS[1], ARGV[2])
+for i = 4, #ARGV, 2 do
+    local field = ARGV[i]
+    if field ~= ARGV[2] and redis.call('HEXISTS', KEYS[1], field) == 0 then
+        if count < max then
+            count = count + 1
+        else
+            field = ARGV[2]
+        end
+    end
+    redis.call('HINCRBY', KEYS[1], field, ARGV[i + 1])
+end
+redis.call('PEXPIREAT', KEYS[1], ARGV[3])
+return count
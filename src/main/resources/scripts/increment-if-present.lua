@@ -0,0 +1,11 @@
+-- Adds visits to a short URL hash only if it exists, so that visits flushed after the hash was moved out of REDIS
+-- don't leave a hash holding nothing but visits.
+-- KEYS[1] hash
+-- ARGV[1] visits field
+-- ARGV[2] visits to add
+-- Returns 1 when the visits were added, 0 when the hash doesn't exist
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return 0
+end
+redis.call('HINCRBY', KEYS[1], ARGV[1], ARGV[2])
+return 1
@@ -0,0 +1,24 @@
+-- Writes a short URL hash in the compact layout together with its full URL index entry, unless the hash already
+-- exists. When deduplicating, the last key maps the full URL to its short URL ID and an existing mapping wins.
+-- KEYS[1] hash, KEYS[2] full URL index set, followed by the deduplication key when ARGV[2] is 1
+-- ARGV[1] ID, ARGV[2] deduplicate flag, ARGV[3] epoch millisecond the hash expires at, empty if it doesn't,
+-- ARGV[4..n] hash field and value pairs
+-- Returns the short URL ID the full URL is stored under, or false when the ID is already taken
+if ARGV[2] == '1' then
+    local existing = redis.call('GET', KEYS[3])
+    if existing then
+        return existing
+    end
+end
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    return false
+end
+redis.call('HSET', KEYS[1], unpack(ARGV, 4))
+redis.call('SADD', KEYS[2], ARGV[1])
+if ARGV[2] == '1' then
+    redis.call('SET', KEYS[3], ARGV[1])
+end
+if ARGV[3] ~= '' then
+    redis.call('PEXPIREAT', KEYS[1], ARGV[3])
+end
+return ARGV[1]
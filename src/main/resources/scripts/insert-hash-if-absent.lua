@@ -0,0 +1,12 @@
+-- Writes a short URL hash unless it already exists, the single-slot first step of an insert on a cluster.
+-- KEYS[1] hash
+-- ARGV[1] epoch millisecond the hash expires at, empty if it doesn't, ARGV[2..n] hash field and value pairs
+-- Returns true when the hash was written, false when the ID is already taken
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    return false
+end
+redis.call('HSET', KEYS[1], unpack(ARGV, 2))
+if ARGV[1] ~= '' then
+    redis.call('PEXPIREAT', KEYS[1], ARGV[1])
+end
+return true
@@ -0,0 +1,32 @@
+-- Writes a short URL hash together with its keyspace and secondary index entries, unless the hash already exists.
+-- When deduplicating, the last key maps the full URL to its short URL ID and an existing mapping wins.
+-- KEYS[1] hash, KEYS[2] keyspace set, KEYS[3] set of index keys holding the ID, KEYS[4..n] secondary index sets,
+-- followed by the deduplication key when ARGV[2] is 1
+-- ARGV[1] ID, ARGV[2] deduplicate flag, ARGV[3] epoch millisecond the hash and its set of index keys expire at,
+-- empty if they don't, ARGV[4..n] hash field and value pairs
+-- Returns the short URL ID the full URL is stored under, or false when the ID is already taken
+local indexes = #KEYS
+if ARGV[2] == '1' then
+    local existing = redis.call('GET', KEYS[#KEYS])
+    if existing then
+        return existing
+    end
+    indexes = indexes - 1
+end
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    return false
+end
+redis.call('HSET', KEYS[1], unpack(ARGV, 4))
+redis.call('SADD', KEYS[2], ARGV[1])
+for i = 4, indexes do
+    redis.call('SADD', KEYS[i], ARGV[1])
+    redis.call('SADD', KEYS[3], KEYS[i])
+end
+if ARGV[2] == '1' then
+    redis.call('SET', KEYS[#KEYS], ARGV[1])
+end
+if ARGV[3] ~= '' then
+    redis.call('PEXPIREAT', KEYS[1], ARGV[3])
+    redis.call('PEXPIREAT', KEYS[3], ARGV[3])
+end
+return ARGV[1]
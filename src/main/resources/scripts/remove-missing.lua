@@ -0,0 +1,12 @@
+-- Removes the IDs of short URLs whose hash doesn't exist from a set, checked on the primary so that a hash missing
+-- from a lagging replica isn't taken for a removed one.
+-- KEYS[1] set, KEYS[2..n] hash of each ID
+-- ARGV[1..n] IDs
+-- Returns the number of IDs removed
+local removed = 0
+for i = 1, #ARGV do
+    if redis.call('EXISTS', KEYS[i + 1]) == 0 then
+        removed = removed + redis.call('SREM', KEYS[1], ARGV[i])
+    end
+end
+return removed
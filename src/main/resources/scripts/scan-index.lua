@@ -0,0 +1,20 @@
+-- Scans a page of a secondary index set, continuing past empty SSCAN steps until the page has enough members.
+-- KEYS[1] index set
+-- ARGV[1] cursor to scan from, ARGV[2] number of members wanted
+-- Returns the next cursor, 0 once the scan is done, followed by the distinct members found
+local cursor = ARGV[1]
+local count = tonumber(ARGV[2])
+local page = { cursor }
+local seen = {}
+repeat
+    local step = redis.call('SSCAN', KEYS[1], cursor, 'COUNT', count - (#page - 1))
+    cursor = step[1]
+    for _, member in ipairs(step[2]) do
+        if not seen[member] then
+            seen[member] = true
+            page[#page + 1] = member
+        end
+    end
+until #page - 1 >= count or cursor == '0'
+page[1] = cursor
+return page
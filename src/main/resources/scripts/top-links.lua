@@ -0,0 +1,8 @@
+-- Sums the visits of the sorted sets of the minutes of a window and returns the short URLs with the most visits.
+-- KEYS[1] scratch key holding the sum, removed before returning, KEYS[2..n] sorted set of each minute
+-- ARGV[1] number of short URLs wanted
+-- Returns the short URL IDs each followed by its visits, most visits first
+redis.call('ZUNIONSTORE', KEYS[1], #KEYS - 1, unpack(KEYS, 2))
+local top = redis.call('ZREVRANGE', KEYS[1], 0, tonumber(ARGV[1]) - 1, 'WITHSCORES')
+redis.call('DEL', KEYS[1])
+return top
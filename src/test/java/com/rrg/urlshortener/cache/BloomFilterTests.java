@@ -0,0 +1,69 @@
+package com.rrg.urlshortener.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTests {
+
+    private static final int ITEMS = 10_000;
+
+    @DisplayName("JUnit test for mightContain method which finds every item added")
+    @Test
+    void givenAddedItems_whenMightContain_thenReturnTrue() {
+        var filter = new BloomFilter(ITEMS, 0.01);
+
+        for (var i = 0; i < ITEMS; i++) {
+            filter.add("id" + i);
+        }
+
+        for (var i = 0; i < ITEMS; i++) {
+            assertTrue(filter.mightContain("id" + i));
+        }
+    }
+
+    @DisplayName("JUnit test for mightContain method which finds few items that weren't added")
+    @Test
+    void givenFullFilter_whenMightContain_thenFalsePositiveRateIsBounded() {
+        var filter = new BloomFilter(ITEMS, 0.01);
+        for (var i = 0; i < ITEMS; i++) {
+            filter.add("id" + i);
+        }
+
+        var falsePositives = 0;
+        for (var i = 0; i < ITEMS; i++) {
+            if (filter.mightContain("unknown" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < ITEMS * 0.02, falsePositives + " false positives");
+    }
+
+    @DisplayName("JUnit test for BloomFilter constructor which sizes the filter for the false positive rate")
+    @Test
+    void givenExpectedItems_whenBloomFilter_thenSizedForRate() {
+        var filter = new BloomFilter(1_000_000, 0.01);
+
+        assertEquals(9_585_088, filter.bitSize());
+        assertEquals(7, filter.hashCount());
+        assertFalse(new BloomFilter(0, 0.01).mightContain("AbCdEfG"));
+    }
+
+    @DisplayName("JUnit test for index method which reaches the bits past 2^32 of a large filter")
+    @Test
+    void givenMoreThan2To32Bits_whenIndex_thenUseHighBits() {
+        var bits = 1L << 40;
+        var highBits = 0;
+        for (var i = 0; i < 100; i++) {
+            var index = BloomFilter.index(i * 0x9e3779b97f4a7c15L, ~i * 0xc2b2ae3d27d4eb4fL, i % 7, bits);
+            assertTrue(index >= 0 && index < bits);
+            if (index >= 1L << 32) {
+                highBits++;
+            }
+        }
+
+        assertTrue(highBits > 90, highBits + " indexes past 2^32");
+    }
+}
@@ -0,0 +1,112 @@
+package com.rrg.urlshortener.cache;
+
+import com.rrg.urlshortener.config.RedisTopology;
+import com.rrg.urlshortener.repository.UrlRedisMapping;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ShortUrlIdFilterTests {
+
+    @Mock
+    private StringRedisTemplate template;
+    @Mock
+    private UrlRedisMapping mapping;
+    @Mock
+    private Cursor<byte[]> keys;
+
+    private RedirectCache cache;
+    private ShortUrlIdFilter idFilter;
+
+    @BeforeEach
+    public void setup() throws IllegalAccessException {
+        cache = new RedirectCache(100, Duration.ofMinutes(1), 100, Duration.ofSeconds(5), new SimpleMeterRegistry());
+        idFilter = new ShortUrlIdFilter(template, mapping, cache, Optional.empty(), RedisTopology.STANDALONE,
+                new SimpleMeterRegistry());
+        FieldUtils.writeField(idFilter, "enabled", true, true);
+        FieldUtils.writeField(idFilter, "expectedIds", 1000L, true);
+        FieldUtils.writeField(idFilter, "falsePositiveRate", 0.01, true);
+        FieldUtils.writeField(idFilter, "batchSize", 2, true);
+    }
+
+    @DisplayName("JUnit test for mightExist method which lets every ID through until the filter is built")
+    @Test
+    void givenNoResync_whenMightExist_thenReturnTrue() {
+        assertTrue(idFilter.mightExist("lMnOpQr"));
+    }
+
+    @DisplayName("JUnit test for resync method which builds the filter from the short URL keys")
+    @Test
+    @SuppressWarnings("unchecked")
+    void givenShortUrlKeys_whenResync_thenOnlyTheirIdsMightExist() {
+        when(mapping.key(anyString())).thenAnswer(invocation -> "url:" + invocation.getArgument(0));
+        when(template.executeWithStickyConnection(any(RedisCallback.class))).thenReturn(keys);
+        when(keys.hasNext()).thenReturn(true, true, false);
+        when(keys.next()).thenReturn(bytes("url:AbCdEfG"), bytes("url:aB1cD2e"));
+
+        idFilter.resync();
+
+        assertTrue(idFilter.mightExist("AbCdEfG"));
+        assertTrue(idFilter.mightExist("aB1cD2e"));
+        assertFalse(idFilter.mightExist("lMnOpQr"));
+        verify(keys).close();
+    }
+
+    @DisplayName("JUnit test for addAll method which adds the IDs, forgets they weren't found and publishes them")
+    @Test
+    @SuppressWarnings("unchecked")
+    void givenCreatedIds_whenAddAll_thenAddedAndPublished() {
+        when(mapping.key(anyString())).thenAnswer(invocation -> "url:" + invocation.getArgument(0));
+        when(template.executeWithStickyConnection(any(RedisCallback.class))).thenReturn(keys);
+        idFilter.resync();
+        cache.putNotFound("AbCdEfG");
+
+        idFilter.addAll(List.of("AbCdEfG", "aB1cD2e", "lMnOpQr"));
+        idFilter.publish();
+
+        assertTrue(idFilter.mightExist("AbCdEfG"));
+        assertFalse(cache.isNotFound("AbCdEfG"));
+        verify(template).convertAndSend(ShortUrlIdFilter.CHANNEL, "AbCdEfG\naB1cD2e");
+        verify(template).convertAndSend(ShortUrlIdFilter.CHANNEL, "lMnOpQr");
+    }
+
+    @DisplayName("JUnit test for resync method which keeps the current filter when the scan fails")
+    @Test
+    @SuppressWarnings("unchecked")
+    void givenFailedScan_whenResync_thenFilterIsKept() {
+        when(mapping.key(anyString())).thenAnswer(invocation -> "url:" + invocation.getArgument(0));
+        when(template.executeWithStickyConnection(any(RedisCallback.class)))
+                .thenReturn(keys)
+                .thenThrow(new IllegalStateException("Connection refused"));
+        idFilter.resync();
+        idFilter.add("AbCdEfG");
+
+        idFilter.resync();
+
+        assertTrue(idFilter.mightExist("AbCdEfG"));
+        assertFalse(idFilter.mightExist("lMnOpQr"));
+    }
+
+    private static byte[] bytes(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -4,11 +4,29 @@ import com.rrg.urlshortener.TestUtil;
 import com.rrg.urlshortener.exception.InvalidFieldException;
 import com.rrg.urlshortener.exception.MissingFieldException;
 import com.rrg.urlshortener.exception.ResourceNotFoundException;
+import com.rrg.urlshortener.metrics.UrlMetrics;
+import com.rrg.urlshortener.model.ClickBucket;
+import com.rrg.urlshortener.model.ClickSeries;
+import com.rrg.urlshortener.model.ClickSources;
+import com.rrg.urlshortener.model.Granularity;
+import com.rrg.urlshortener.model.HotLink;
+import com.rrg.urlshortener.model.HotLinks;
 import com.rrg.urlshortener.model.Url;
+import com.rrg.urlshortener.model.UrlPage;
+import com.rrg.urlshortener.model.VisitSource;
+import com.rrg.urlshortener.openapi.model.HotShortUrlsDto;
+import com.rrg.urlshortener.openapi.model.ShortUrlClicksDto;
 import com.rrg.urlshortener.openapi.model.ShortUrlCreateDto;
 import com.rrg.urlshortener.openapi.model.ShortUrlDto;
+import com.rrg.urlshortener.openapi.model.ShortUrlLookupDto;
+import com.rrg.urlshortener.openapi.model.ShortUrlLookupResultDto;
 import com.rrg.urlshortener.openapi.model.ShortUrlMetricsDto;
+import com.rrg.urlshortener.openapi.model.ShortUrlSearchDto;
+import com.rrg.urlshortener.openapi.model.ShortUrlSourcesDto;
 import com.rrg.urlshortener.service.impl.UrlServiceImpl;
+import com.rrg.urlshortener.util.VisitSourceResolver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -16,16 +34,24 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.net.URI;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -33,11 +59,16 @@ import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(UrlsApiController.class)
+@Import({VisitSourceResolver.class, UrlMetrics.class, SimpleMeterRegistry.class})
+@TestPropertySource(properties = "redirect.fast-path.enabled=false")
 class UrlsApiControllerTests extends TestUtil {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @MockBean
     private UrlServiceImpl urlService;
 
@@ -55,7 +86,7 @@ class UrlsApiControllerTests extends TestUtil {
         dto.setFullUrl(TEST_FULL_URL);
         var url = testUrls.get(0);
 
-        when(urlService.createShortUrl(dto.getFullUrl())).thenReturn(url);
+        when(urlService.createShortUrl(dto.getFullUrl(), null, null)).thenReturn(url);
 
         var result = this.mockMvc.perform(post("/urls")
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -70,13 +101,31 @@ class UrlsApiControllerTests extends TestUtil {
         assertNotNull(returnDto.getTimestamp());
     }
 
+    @DisplayName("JUnit test for createShortUrl POST method with deduplication which returns code 201")
+    @Test
+    void givenFullUrlWithDeduplication_whenCreateShortUrl_thenReturnShortUrlDto() throws Exception {
+        var dto = new ShortUrlCreateDto();
+        dto.setFullUrl(TEST_FULL_URL);
+        dto.setDeduplicate(true);
+        var url = testUrls.get(0);
+
+        when(urlService.createShortUrl(TEST_FULL_URL, true, null)).thenReturn(url);
+
+        this.mockMvc.perform(post("/urls")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(mapToJson(dto)))
+                .andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(content().string(containsString(url.getShortUrlId())));
+    }
+
     @DisplayName("JUnit test for createShortUrl POST method which returns code 400 for MissingFieldException")
     @Test
     void givenEmptyFullUrl_whenCreateShortUrl_thenReturnError400() throws Exception {
         var dto = new ShortUrlCreateDto();
         dto.setFullUrl(StringUtils.EMPTY);
 
-        when(urlService.createShortUrl(dto.getFullUrl())).thenThrow(MissingFieldException.class);
+        when(urlService.createShortUrl(dto.getFullUrl(), null, null)).thenThrow(MissingFieldException.class);
 
         this.mockMvc.perform(post("/urls")
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -91,7 +140,7 @@ class UrlsApiControllerTests extends TestUtil {
         var dto = new ShortUrlCreateDto();
         dto.setFullUrl(INCORRECT_TEST_FULL_URL);
 
-        when(urlService.createShortUrl(dto.getFullUrl())).thenThrow(InvalidFieldException.class);
+        when(urlService.createShortUrl(dto.getFullUrl(), null, null)).thenThrow(InvalidFieldException.class);
 
         this.mockMvc.perform(post("/urls")
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -105,7 +154,7 @@ class UrlsApiControllerTests extends TestUtil {
     void givenFullUrl_whenGetShortUrlIdsByFullUrl_thenReturnShortUrlMetricsDtoList() throws Exception {
         var urls = testUrls;
 
-        when(urlService.getUrlsByFullUrl(TEST_FULL_URL)).thenReturn(urls);
+        when(urlService.getUrlsByFullUrl(TEST_FULL_URL, null, null)).thenReturn(new UrlPage(urls, null));
 
         this.mockMvc.perform(get("/urls")
                         .queryParam("fullUrl", TEST_FULL_URL)
@@ -118,10 +167,72 @@ class UrlsApiControllerTests extends TestUtil {
                 .andExpect(content().string(containsString(String.valueOf(urls.get(1).getVisits()))));
     }
 
+    @DisplayName("JUnit test for getShortUrlIdsByFullUrl GET method with a cursor which returns the next cursor")
+    @Test
+    void givenCursorAndCount_whenGetShortUrlIdsByFullUrl_thenReturnNextCursor() throws Exception {
+        when(urlService.getUrlsByFullUrl(TEST_FULL_URL, "112", 2)).thenReturn(new UrlPage(testUrls, "56"));
+
+        var result = this.mockMvc.perform(get("/urls")
+                        .queryParam("fullUrl", TEST_FULL_URL)
+                        .queryParam("cursor", "112")
+                        .queryParam("count", "2")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn();
+
+        var returnDto = mapFromJson(result.getResponse().getContentAsString(), ShortUrlSearchDto.class);
+        assertEquals(2, returnDto.getShortUrlIds().size());
+        assertEquals("56", returnDto.getNextCursor());
+    }
+
+    @DisplayName("JUnit test for lookupShortUrls POST method which returns code 200")
+    @Test
+    void givenShortUrlIds_whenLookupShortUrls_thenReturnShortUrlLookupResultDto() throws Exception {
+        var url = testUrls.get(0);
+        var dto = new ShortUrlLookupDto();
+        dto.setShortUrlIds(List.of(url.getShortUrlId(), "missing"));
+
+        when(urlService.getUrlsByShortUrlIds(dto.getShortUrlIds())).thenReturn(Map.of(url.getShortUrlId(), url));
+
+        var result = this.mockMvc.perform(post("/urls/lookup")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(mapToJson(dto)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn();
+
+        var returnDto = mapFromJson(result.getResponse().getContentAsString(), ShortUrlLookupResultDto.class);
+        assertEquals(2, returnDto.getUrls().size());
+        var found = returnDto.getUrls().get(0);
+        assertEquals(url.getShortUrlId(), found.getShortUrlId());
+        assertEquals(url.getFullUrl(), found.getFullUrl());
+        assertEquals(url.getVisits(), found.getVisits());
+        assertTrue(found.getFound());
+        var missing = returnDto.getUrls().get(1);
+        assertEquals("missing", missing.getShortUrlId());
+        assertFalse(missing.getFound());
+    }
+
+    @DisplayName("JUnit test for lookupShortUrls POST method which returns code 400 for InvalidFieldException")
+    @Test
+    void givenTooManyShortUrlIds_whenLookupShortUrls_thenReturnError400() throws Exception {
+        var dto = new ShortUrlLookupDto();
+        dto.setShortUrlIds(List.of("AbCdEfG", "aB1cD2e"));
+
+        when(urlService.getUrlsByShortUrlIds(dto.getShortUrlIds())).thenThrow(InvalidFieldException.class);
+
+        this.mockMvc.perform(post("/urls/lookup")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(mapToJson(dto)))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+
     @DisplayName("JUnit test for getShortUrlIdsByFullUrl GET method which returns code 400 for MissingFieldException")
     @Test
     void givenEmptyFullUrl_whenGetShortUrlIdsByFullUrl_thenReturnError400() throws Exception {
-        when(urlService.getUrlsByFullUrl(StringUtils.EMPTY)).thenThrow(MissingFieldException.class);
+        when(urlService.getUrlsByFullUrl(StringUtils.EMPTY, null, null)).thenThrow(MissingFieldException.class);
 
         this.mockMvc.perform(get("/urls")
                         .queryParam("fullUrl", StringUtils.EMPTY)
@@ -133,7 +244,7 @@ class UrlsApiControllerTests extends TestUtil {
     @DisplayName("JUnit test for getShortUrlIdsByFullUrl GET method which returns code 400 for InvalidFieldException")
     @Test
     void givenIncorrectFullUrl_whenGetShortUrlIdsByFullUrl_thenReturnError400() throws Exception {
-        when(urlService.getUrlsByFullUrl(INCORRECT_TEST_FULL_URL)).thenThrow(InvalidFieldException.class);
+        when(urlService.getUrlsByFullUrl(INCORRECT_TEST_FULL_URL, null, null)).thenThrow(InvalidFieldException.class);
 
         this.mockMvc.perform(get("/urls")
                         .queryParam("fullUrl", INCORRECT_TEST_FULL_URL)
@@ -149,7 +260,7 @@ class UrlsApiControllerTests extends TestUtil {
         var headers = new HttpHeaders();
         headers.setLocation(new URI(TEST_FULL_URL));
 
-        when(urlService.processRedirection(shortUrlId)).thenReturn(headers);
+        when(urlService.processRedirection(shortUrlId, VisitSource.UNKNOWN)).thenReturn(headers);
 
         this.mockMvc.perform(get("/urls/" + shortUrlId)
                         .contentType(MediaType.APPLICATION_JSON_VALUE))
@@ -158,10 +269,29 @@ class UrlsApiControllerTests extends TestUtil {
                 .andExpect(header().string("Location", TEST_FULL_URL));
     }
 
+    @DisplayName("JUnit test for getRedirection GET method which counts the referrer and country of the visit")
+    @Test
+    void givenRefererAndCountry_whenGetRedirection_thenProcessRedirectionWithSource() throws Exception {
+        var shortUrlId = "aB1cD2e";
+        var source = new VisitSource("news.example.com", "FR");
+        var headers = new HttpHeaders();
+        headers.setLocation(new URI(TEST_FULL_URL));
+
+        when(urlService.processRedirection(shortUrlId, source)).thenReturn(headers);
+
+        this.mockMvc.perform(get("/urls/" + shortUrlId)
+                        .header(HttpHeaders.REFERER, "https://News.Example.com:8443/article?id=1")
+                        .header("CF-IPCountry", "fr"))
+                .andDo(print())
+                .andExpect(status().isSeeOther());
+
+        verify(urlService).processRedirection(shortUrlId, source);
+    }
+
     @DisplayName("JUnit test for getRedirection GET method which returns code 400 FOR MissingFieldException")
     @Test
     void givenMissingShortUrlId_whenGetRedirection_thenReturnError400() throws Exception {
-        when(urlService.processRedirection(StringUtils.SPACE)).thenThrow(MissingFieldException.class);
+        when(urlService.processRedirection(StringUtils.SPACE, VisitSource.UNKNOWN)).thenThrow(MissingFieldException.class);
 
         this.mockMvc.perform(get("/urls/" + StringUtils.SPACE)
                         .contentType(MediaType.APPLICATION_JSON_VALUE))
@@ -174,7 +304,7 @@ class UrlsApiControllerTests extends TestUtil {
     void givenShortUrlId_whenGetRedirection_thenReturnError400() throws Exception {
         var shortUrlId = "aBcDeFg";
 
-        when(urlService.processRedirection(shortUrlId)).thenThrow(InvalidFieldException.class);
+        when(urlService.processRedirection(shortUrlId, VisitSource.UNKNOWN)).thenThrow(InvalidFieldException.class);
 
         this.mockMvc.perform(get("/urls/" + shortUrlId)
                         .contentType(MediaType.APPLICATION_JSON_VALUE))
@@ -187,12 +317,15 @@ class UrlsApiControllerTests extends TestUtil {
     void givenUnknownShortUrlId_whenGetRedirection_thenReturnError404() throws Exception {
         var unknownId = "lMnOpQr";
 
-        when(urlService.processRedirection(unknownId)).thenThrow(ResourceNotFoundException.class);
+        when(urlService.processRedirection(unknownId, VisitSource.UNKNOWN)).thenThrow(ResourceNotFoundException.class);
+        var errors = meterRegistry.counter("api.errors", "exception", "ResourceNotFoundException", "status", "404");
+        var counted = errors.count();
 
         this.mockMvc.perform(get("/urls/" + unknownId)
                         .contentType(MediaType.APPLICATION_JSON_VALUE))
                 .andDo(print())
                 .andExpect(status().isNotFound());
+        assertEquals(counted + 1, errors.count());
     }
 
     @DisplayName("JUnit test for get getMetricsByShortUrlId GET method")
@@ -201,6 +334,7 @@ class UrlsApiControllerTests extends TestUtil {
         var url = testUrls.get(0);
 
         when(urlService.getUrlByShortUrlId(url.getShortUrlId())).thenReturn(url);
+        when(urlService.countUniqueVisitors(url.getShortUrlId())).thenReturn(1L);
 
         var result = this.mockMvc.perform(get("/urls/" + url.getShortUrlId() + "/metrics")
                         .contentType(MediaType.APPLICATION_JSON_VALUE))
@@ -211,6 +345,7 @@ class UrlsApiControllerTests extends TestUtil {
         var returnDto = mapFromJson(result.getResponse().getContentAsString(), ShortUrlMetricsDto.class);
         assertEquals(url.getShortUrlId(), returnDto.getShortUrlId());
         assertEquals(url.getVisits(), returnDto.getVisits());
+        assertEquals(1L, returnDto.getUniqueVisitors());
     }
 
     @DisplayName("JUnit test for get getMetricsByShortUrlId GET method which returns code 400 for MissingFieldException")
@@ -236,4 +371,92 @@ class UrlsApiControllerTests extends TestUtil {
                 .andDo(print())
                 .andExpect(status().isNotFound());
     }
+
+    @DisplayName("JUnit test for getClicksByShortUrlId GET method which returns code 200")
+    @Test
+    void givenRange_whenGetClicksByShortUrlId_thenReturnShortUrlClicksDto() throws Exception {
+        var shortUrlId = "aB1cD2e";
+        var from = Instant.parse("2024-01-01T10:00:00Z");
+        var to = Instant.parse("2024-01-01T12:00:00Z");
+        var series = new ClickSeries(Granularity.HOUR, List.of(new ClickBucket(from, 3),
+                new ClickBucket(Instant.parse("2024-01-01T11:00:00Z"), 0)));
+
+        when(urlService.getClicks(shortUrlId, "hour", from, to)).thenReturn(series);
+
+        var result = this.mockMvc.perform(get("/urls/" + shortUrlId + "/metrics/clicks")
+                        .param("granularity", "hour")
+                        .param("from", "2024-01-01T11:00:00+01:00")
+                        .param("to", "2024-01-01T12:00:00Z"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn();
+
+        var returnDto = mapFromJson(result.getResponse().getContentAsString(), ShortUrlClicksDto.class);
+        assertEquals(shortUrlId, returnDto.getShortUrlId());
+        assertEquals("hour", returnDto.getGranularity());
+        assertEquals(2, returnDto.getBuckets().size());
+        assertEquals(from, returnDto.getBuckets().get(0).getStart().toInstant());
+        assertEquals(3, returnDto.getBuckets().get(0).getVisits());
+    }
+
+    @DisplayName("JUnit test for getClicksByShortUrlId GET method which returns code 400 for an invalid date-time")
+    @Test
+    void givenInvalidDateTime_whenGetClicksByShortUrlId_thenReturnError400() throws Exception {
+        this.mockMvc.perform(get("/urls/aB1cD2e/metrics/clicks")
+                        .param("from", "yesterday"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(urlService);
+    }
+
+    @DisplayName("JUnit test for getSourcesByShortUrlId GET method which returns code 200")
+    @Test
+    void givenShortUrlId_whenGetSourcesByShortUrlId_thenReturnShortUrlSourcesDto() throws Exception {
+        var shortUrlId = "aB1cD2e";
+        var sources = new ClickSources(Map.of("news.example.com", 5L), Map.of("FR", 4L, VisitSource.UNKNOWN_COUNTRY, 1L));
+
+        when(urlService.getSources(shortUrlId, null, null)).thenReturn(sources);
+
+        var result = this.mockMvc.perform(get("/urls/" + shortUrlId + "/metrics/sources"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn();
+
+        var returnDto = mapFromJson(result.getResponse().getContentAsString(), ShortUrlSourcesDto.class);
+        assertEquals(shortUrlId, returnDto.getShortUrlId());
+        assertEquals("news.example.com", returnDto.getReferrers().get(0).getName());
+        assertEquals(5, returnDto.getReferrers().get(0).getVisits());
+        assertEquals(2, returnDto.getCountries().size());
+    }
+
+    @DisplayName("JUnit test for getHotShortUrls GET method which returns code 200")
+    @Test
+    void givenWindowAndCount_whenGetHotShortUrls_thenReturnHotShortUrlsDto() throws Exception {
+        var hotLinks = new HotLinks(15, List.of(new HotLink("aB1cD2e", 12), new HotLink("AbCdEfG", 3)));
+
+        when(urlService.getHotLinks(15, 2)).thenReturn(hotLinks);
+
+        var result = this.mockMvc.perform(get("/urls/hot").param("window", "15").param("count", "2"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn();
+
+        var returnDto = mapFromJson(result.getResponse().getContentAsString(), HotShortUrlsDto.class);
+        assertEquals(15, returnDto.getWindowMinutes());
+        assertEquals(2, returnDto.getShortUrls().size());
+        assertEquals("aB1cD2e", returnDto.getShortUrls().get(0).getShortUrlId());
+        assertEquals(12, returnDto.getShortUrls().get(0).getVisits());
+    }
+
+    @DisplayName("JUnit test for getHotShortUrls GET method which returns code 400")
+    @Test
+    void givenInvalidWindow_whenGetHotShortUrls_thenReturn400() throws Exception {
+        when(urlService.getHotLinks(0, null))
+                .thenThrow(new InvalidFieldException("Window needs to be between 1 and 60 minutes"));
+
+        this.mockMvc.perform(get("/urls/hot").param("window", "0"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
 }
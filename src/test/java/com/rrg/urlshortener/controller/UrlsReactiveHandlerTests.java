@@ -0,0 +1,246 @@
+package com.rrg.urlshortener.controller;
+
+import com.rrg.urlshortener.TestUtil;
+import com.rrg.urlshortener.exception.ReactiveExceptionHandler;
+import com.rrg.urlshortener.exception.ResourceNotFoundException;
+import com.rrg.urlshortener.metrics.UrlMetrics;
+import com.rrg.urlshortener.model.CreationResult;
+import com.rrg.urlshortener.model.HotLink;
+import com.rrg.urlshortener.model.HotLinks;
+import com.rrg.urlshortener.model.ShortUrlRequest;
+import com.rrg.urlshortener.model.UrlPage;
+import com.rrg.urlshortener.model.VisitSource;
+import com.rrg.urlshortener.openapi.model.ErrorDto;
+import com.rrg.urlshortener.openapi.model.HotShortUrlsDto;
+import com.rrg.urlshortener.openapi.model.ShortUrlBatchResultDto;
+import com.rrg.urlshortener.openapi.model.ShortUrlMetricsDto;
+import com.rrg.urlshortener.service.ReactiveUrlService;
+import com.rrg.urlshortener.util.VisitSourceResolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UrlsReactiveHandlerTests extends TestUtil {
+
+    private static final String SECOND_FULL_URL = "https://example.org";
+
+    @Mock
+    private ReactiveUrlService urlService;
+
+    private WebTestClient client;
+
+    @BeforeEach
+    public void setup() throws IllegalAccessException {
+        var sourceResolver = new VisitSourceResolver();
+        FieldUtils.writeField(sourceResolver, "countryHeader", "CF-IPCountry", true);
+        var handler = new UrlsReactiveHandler(urlService, sourceResolver);
+        FieldUtils.writeField(handler, "chunkSize", 2, true);
+        var strategies = HandlerStrategies.builder()
+                .exceptionHandler(new ReactiveExceptionHandler(ServerCodecConfigurer.create(),
+                        new UrlMetrics(new SimpleMeterRegistry())))
+                .build();
+        client = WebTestClient.bindToRouterFunction(new UrlsReactiveRouter().urlsRoutes(handler))
+                .handlerStrategies(strategies)
+                .build();
+    }
+
+    @DisplayName("JUnit test for reactive getRedirection GET method which returns code 303")
+    @Test
+    void givenShortUrlId_whenGetRedirection_thenReturn303() {
+        when(urlService.resolveRedirection("AbCdEfG", new VisitSource("t.co", "US")))
+                .thenReturn(Mono.just(TEST_FULL_URL));
+
+        client.get().uri("/urls/AbCdEfG")
+                .header(HttpHeaders.REFERER, "https://t.co/xYz")
+                .header("CF-IPCountry", "us")
+                .exchange()
+                .expectStatus().isSeeOther()
+                .expectHeader().valueEquals(HttpHeaders.LOCATION, TEST_FULL_URL);
+    }
+
+    @DisplayName("JUnit test for reactive getMetricsByShortUrlId GET method which reports the unique visitors")
+    @Test
+    void givenShortUrlId_whenGetMetricsByShortUrlId_thenReturnVisitsAndUniqueVisitors() {
+        var url = getTestUrls().get(0);
+        when(urlService.getUrlByShortUrlId(url.getShortUrlId())).thenReturn(Mono.just(url));
+        when(urlService.countUniqueVisitors(url.getShortUrlId())).thenReturn(Mono.just(1L));
+
+        client.get().uri("/urls/" + url.getShortUrlId() + "/metrics")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(ShortUrlMetricsDto.class)
+                .value(metrics -> {
+                    assertEquals(url.getVisits(), metrics.getVisits());
+                    assertEquals(1L, metrics.getUniqueVisitors());
+                });
+    }
+
+    @DisplayName("JUnit test for reactive getMetricsByShortUrlId GET method which returns code 404 for an unknown ID")
+    @Test
+    void givenUnknownShortUrlId_whenGetMetricsByShortUrlId_thenReturn404() {
+        when(urlService.getUrlByShortUrlId("AbCdEfG"))
+                .thenReturn(Mono.error(new ResourceNotFoundException("No resource found for AbCdEfG")));
+
+        client.get().uri("/urls/AbCdEfG/metrics")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody(ErrorDto.class)
+                .value(error -> assertEquals("No resource found for AbCdEfG", error.getMessage()));
+    }
+
+    @DisplayName("JUnit test for reactive getClicksByShortUrlId GET method which returns code 400 for an invalid date-time")
+    @Test
+    void givenInvalidDateTime_whenGetClicksByShortUrlId_thenReturn400() {
+        client.get().uri("/urls/AbCdEfG/metrics/clicks?granularity=day&to=tomorrow")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(ErrorDto.class)
+                .value(error -> assertEquals(
+                        "tomorrow isn't a valid to, it needs to be an ISO 8601 date-time", error.getMessage()));
+
+        verifyNoInteractions(urlService);
+    }
+
+    @DisplayName("JUnit test for reactive getHotShortUrls GET method which returns code 200")
+    @Test
+    void givenWindow_whenGetHotShortUrls_thenReturnHotShortUrlsDto() {
+        when(urlService.getHotLinks(15, null))
+                .thenReturn(Mono.just(new HotLinks(15, List.of(new HotLink("aB1cD2e", 12)))));
+
+        client.get().uri("/urls/hot?window=15")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(HotShortUrlsDto.class)
+                .value(returnDto -> {
+                    assertEquals(15, returnDto.getWindowMinutes());
+                    assertEquals("aB1cD2e", returnDto.getShortUrls().get(0).getShortUrlId());
+                    assertEquals(12, returnDto.getShortUrls().get(0).getVisits());
+                });
+    }
+
+    @DisplayName("JUnit test for reactive getHotShortUrls GET method which returns code 400 for an invalid count")
+    @Test
+    void givenInvalidCount_whenGetHotShortUrls_thenReturn400() {
+        client.get().uri("/urls/hot?count=ten")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(ErrorDto.class)
+                .value(error -> assertEquals("ten isn't a valid count", error.getMessage()));
+
+        verifyNoInteractions(urlService);
+    }
+
+    @DisplayName("JUnit test for reactive createShortUrls POST method with a JSON array which returns code 200")
+    @Test
+    void givenJsonArray_whenCreateShortUrls_thenStreamResultPerLine() throws Exception {
+        when(urlService.createShortUrls(List.of(new ShortUrlRequest(TEST_FULL_URL, null),
+                new ShortUrlRequest(INCORRECT_TEST_FULL_URL, true))))
+                .thenReturn(Mono.just(List.of(new CreationResult(TEST_FULL_URL, "AbCdEfG", null),
+                        CreationResult.failed(INCORRECT_TEST_FULL_URL, "invalid"))));
+        when(urlService.createShortUrls(List.of(new ShortUrlRequest(SECOND_FULL_URL, null))))
+                .thenReturn(Mono.just(List.of(new CreationResult(SECOND_FULL_URL, "aB1cD2e", null))));
+
+        var body = client.post().uri("/urls/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[{\"fullUrl\":\"" + TEST_FULL_URL + "\"},"
+                        + "{\"fullUrl\":\"" + INCORRECT_TEST_FULL_URL + "\",\"deduplicate\":true},"
+                        + "{\"fullUrl\":\"" + SECOND_FULL_URL + "\"}]")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        var lines = body.lines().toList();
+        assertEquals(3, lines.size());
+        assertEquals("AbCdEfG", mapFromJson(lines.get(0), ShortUrlBatchResultDto.class).getShortUrlId());
+        assertEquals("invalid", mapFromJson(lines.get(1), ShortUrlBatchResultDto.class).getError());
+        var third = mapFromJson(lines.get(2), ShortUrlBatchResultDto.class);
+        assertEquals(2, third.getIndex());
+        assertEquals("aB1cD2e", third.getShortUrlId());
+        verify(urlService, times(2)).createShortUrls(anyList());
+    }
+
+    @DisplayName("JUnit test for reactive createShortUrls POST method which reports a later failure in-band")
+    @Test
+    void givenFailingSecondChunk_whenCreateShortUrls_thenStreamErrorLine() throws Exception {
+        when(urlService.createShortUrls(List.of(new ShortUrlRequest(TEST_FULL_URL, null),
+                new ShortUrlRequest(TEST_FULL_URL, null))))
+                .thenReturn(Mono.just(List.of(new CreationResult(TEST_FULL_URL, "AbCdEfG", null),
+                        new CreationResult(TEST_FULL_URL, "aB1cD2e", null))));
+        when(urlService.createShortUrls(List.of(new ShortUrlRequest(SECOND_FULL_URL, null))))
+                .thenReturn(Mono.error(new IllegalStateException("Redis is unavailable")));
+
+        var body = client.post().uri("/urls/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"fullUrl\":\"" + TEST_FULL_URL + "\"}\n{\"fullUrl\":\"" + TEST_FULL_URL + "\"}\n"
+                        + "{\"fullUrl\":\"" + SECOND_FULL_URL + "\"}\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        var lines = body.lines().toList();
+        assertEquals(3, lines.size());
+        var last = mapFromJson(lines.get(2), ShortUrlBatchResultDto.class);
+        assertEquals(2, last.getIndex());
+        assertEquals("Redis is unavailable", last.getError());
+    }
+
+    @DisplayName("JUnit test for reactive createShortUrls POST method with invalid JSON which returns code 400")
+    @Test
+    void givenInvalidJson_whenCreateShortUrls_thenReturn400() {
+        client.post().uri("/urls/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[{\"fullUrl\":")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(ErrorDto.class)
+                .value(error -> assertEquals(UrlsStreamingController.INVALID_BODY_ERROR, error.getMessage()));
+    }
+
+    @DisplayName("JUnit test for reactive streamShortUrlIdsByFullUrl GET method which follows the cursor")
+    @Test
+    void givenMultiplePages_whenStreamShortUrlIdsByFullUrl_thenStreamEveryPage() throws Exception {
+        var urls = getTestUrls();
+        when(urlService.getUrlsByFullUrl(TEST_FULL_URL, null, null))
+                .thenReturn(Mono.just(new UrlPage(List.of(urls.get(0)), "42")));
+        when(urlService.getUrlsByFullUrl(TEST_FULL_URL, "42", null))
+                .thenReturn(Mono.just(new UrlPage(List.of(urls.get(1)), null)));
+
+        var body = client.get().uri(builder -> builder.path("/urls/stream").queryParam("fullUrl", TEST_FULL_URL).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        var lines = body.lines().toList();
+        assertEquals(2, lines.size());
+        assertEquals("AbCdEfG", mapFromJson(lines.get(0), ShortUrlMetricsDto.class).getShortUrlId());
+        assertEquals("aB1cD2e", mapFromJson(lines.get(1), ShortUrlMetricsDto.class).getShortUrlId());
+    }
+}
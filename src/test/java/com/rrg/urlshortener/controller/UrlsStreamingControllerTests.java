@@ -0,0 +1,167 @@
+package com.rrg.urlshortener.controller;
+
+import com.rrg.urlshortener.TestUtil;
+import com.rrg.urlshortener.exception.InvalidFieldException;
+import com.rrg.urlshortener.metrics.UrlMetrics;
+import com.rrg.urlshortener.model.CreationResult;
+import com.rrg.urlshortener.model.ShortUrlRequest;
+import com.rrg.urlshortener.model.UrlPage;
+import com.rrg.urlshortener.openapi.model.ShortUrlBatchResultDto;
+import com.rrg.urlshortener.openapi.model.ShortUrlMetricsDto;
+import com.rrg.urlshortener.service.impl.UrlServiceImpl;
+import com.rrg.urlshortener.util.VisitSourceResolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(UrlsStreamingController.class)
+@Import({VisitSourceResolver.class, UrlMetrics.class, SimpleMeterRegistry.class})
+@TestPropertySource(properties = "batch.create.chunk-size=2")
+class UrlsStreamingControllerTests extends TestUtil {
+
+    private static final String SECOND_FULL_URL = "https://example.org";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private UrlServiceImpl urlService;
+
+    @DisplayName("JUnit test for createShortUrls POST method with a JSON array which returns code 200")
+    @Test
+    void givenJsonArray_whenCreateShortUrls_thenStreamResultPerLine() throws Exception {
+        when(urlService.createShortUrls(List.of(new ShortUrlRequest(TEST_FULL_URL, null),
+                new ShortUrlRequest(INCORRECT_TEST_FULL_URL, true))))
+                .thenReturn(List.of(new CreationResult(TEST_FULL_URL, "AbCdEfG", null),
+                        CreationResult.failed(INCORRECT_TEST_FULL_URL, "invalid")));
+        when(urlService.createShortUrls(List.of(new ShortUrlRequest(SECOND_FULL_URL, null))))
+                .thenReturn(List.of(new CreationResult(SECOND_FULL_URL, "aB1cD2e", null)));
+
+        var result = this.mockMvc.perform(post("/urls/batch")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("[{\"fullUrl\":\"" + TEST_FULL_URL + "\"},"
+                                + "{\"fullUrl\":\"" + INCORRECT_TEST_FULL_URL + "\",\"deduplicate\":true},"
+                                + "{\"fullUrl\":\"" + SECOND_FULL_URL + "\"}]"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        var lines = result.getResponse().getContentAsString().lines().toList();
+        assertEquals(3, lines.size());
+        lines.forEach(line -> assertTrue(line.startsWith("{")));
+        var first = mapFromJson(lines.get(0), ShortUrlBatchResultDto.class);
+        assertEquals(0, first.getIndex());
+        assertEquals("AbCdEfG", first.getShortUrlId());
+        var second = mapFromJson(lines.get(1), ShortUrlBatchResultDto.class);
+        assertEquals(1, second.getIndex());
+        assertNull(second.getShortUrlId());
+        assertEquals("invalid", second.getError());
+        var third = mapFromJson(lines.get(2), ShortUrlBatchResultDto.class);
+        assertEquals(2, third.getIndex());
+        assertEquals("aB1cD2e", third.getShortUrlId());
+        verify(urlService, times(2)).createShortUrls(anyList());
+    }
+
+    @DisplayName("JUnit test for createShortUrls POST method with newline-delimited JSON which returns code 200")
+    @Test
+    void givenNdjson_whenCreateShortUrls_thenStreamResultPerLine() throws Exception {
+        when(urlService.createShortUrls(List.of(new ShortUrlRequest(TEST_FULL_URL, null))))
+                .thenReturn(List.of(new CreationResult(TEST_FULL_URL, "AbCdEfG", null)));
+
+        var result = this.mockMvc.perform(post("/urls/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON_VALUE)
+                        .content("{\"fullUrl\":\"" + TEST_FULL_URL + "\"}\n"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn();
+
+        var lines = result.getResponse().getContentAsString().lines().toList();
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).startsWith("{"));
+        assertEquals("AbCdEfG", mapFromJson(lines.get(0), ShortUrlBatchResultDto.class).getShortUrlId());
+    }
+
+    @DisplayName("JUnit test for createShortUrls POST method with an invalid body which returns code 400")
+    @Test
+    void givenInvalidJson_whenCreateShortUrls_thenReturn400() throws Exception {
+        this.mockMvc.perform(post("/urls/batch")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("[{\"fullUrl\":"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+
+    @DisplayName("JUnit test for createShortUrls POST method with an invalid item after the first chunk")
+    @Test
+    void givenInvalidItemAfterFirstChunk_whenCreateShortUrls_thenStreamErrorLine() throws Exception {
+        when(urlService.createShortUrls(anyList()))
+                .thenReturn(List.of(new CreationResult(TEST_FULL_URL, "AbCdEfG", null),
+                        new CreationResult(TEST_FULL_URL, "aB1cD2e", null)));
+
+        var result = this.mockMvc.perform(post("/urls/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON_VALUE)
+                        .content("{\"fullUrl\":\"" + TEST_FULL_URL + "\"}\n{\"fullUrl\":\"" + TEST_FULL_URL + "\"}\n"
+                                + "{\"fullUrl\":"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn();
+
+        var lines = result.getResponse().getContentAsString().lines().toList();
+        assertEquals(3, lines.size());
+        var error = mapFromJson(lines.get(2), ShortUrlBatchResultDto.class);
+        assertEquals(2, error.getIndex());
+        assertEquals("Request body isn't valid JSON", error.getError());
+    }
+
+    @DisplayName("JUnit test for streamShortUrlIdsByFullUrl GET method which returns code 200")
+    @Test
+    void givenFullUrl_whenStreamShortUrlIdsByFullUrl_thenStreamEveryPage() throws Exception {
+        var urls = getTestUrls();
+
+        when(urlService.getUrlsByFullUrl(TEST_FULL_URL, null, null)).thenReturn(new UrlPage(List.of(urls.get(0)), "56"));
+        when(urlService.getUrlsByFullUrl(TEST_FULL_URL, "56", null)).thenReturn(new UrlPage(List.of(urls.get(1)), null));
+
+        var result = this.mockMvc.perform(get("/urls/stream").queryParam("fullUrl", TEST_FULL_URL))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        var lines = result.getResponse().getContentAsString().lines().toList();
+        assertEquals(2, lines.size());
+        assertEquals(urls.get(0).getShortUrlId(), mapFromJson(lines.get(0), ShortUrlMetricsDto.class).getShortUrlId());
+        assertEquals(urls.get(1).getShortUrlId(), mapFromJson(lines.get(1), ShortUrlMetricsDto.class).getShortUrlId());
+    }
+
+    @DisplayName("JUnit test for streamShortUrlIdsByFullUrl GET method which returns code 400 for InvalidFieldException")
+    @Test
+    void givenIncorrectFullUrl_whenStreamShortUrlIdsByFullUrl_thenReturnError400() throws Exception {
+        when(urlService.getUrlsByFullUrl(INCORRECT_TEST_FULL_URL, null, null)).thenThrow(InvalidFieldException.class);
+
+        this.mockMvc.perform(get("/urls/stream").queryParam("fullUrl", INCORRECT_TEST_FULL_URL))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,124 @@
+package com.rrg.urlshortener.counter;
+
+import com.rrg.urlshortener.model.Click;
+import com.rrg.urlshortener.model.VisitSource;
+import com.rrg.urlshortener.repository.ClickStatsRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClickCounterTests {
+
+    private static final int BATCH_SIZE = 2;
+    private static final int MAX_PENDING_PER_LINK = 3;
+    private static final Instant NOW = Instant.parse("2024-01-01T10:15:42Z");
+    private static final long MINUTE = NOW.getEpochSecond() / 60;
+    private static final VisitSource SOURCE = new VisitSource("t.co", "FR");
+
+    @Mock
+    private ClickStatsRepository repo;
+
+    private MeterRegistry meterRegistry;
+    private ClickCounter clickCounter;
+
+    @BeforeEach
+    public void setup() throws IllegalAccessException {
+        meterRegistry = new SimpleMeterRegistry();
+        clickCounter = new ClickCounter(repo, MAX_PENDING_PER_LINK, meterRegistry);
+        FieldUtils.writeField(clickCounter, "enabled", true, true);
+        FieldUtils.writeField(clickCounter, "batchSize", BATCH_SIZE, true);
+        FieldUtils.writeField(clickCounter, "clock", Clock.fixed(NOW, ZoneOffset.UTC), true);
+    }
+
+    @DisplayName("JUnit test for flush method which writes the clicks of a minute and source once")
+    @Test
+    void givenIncrements_whenFlush_thenIncrementClicksOnce() {
+        clickCounter.increment("AbCdEfG", SOURCE);
+        clickCounter.increment("AbCdEfG", SOURCE);
+        clickCounter.increment("AbCdEfG", VisitSource.UNKNOWN);
+
+        clickCounter.flush();
+        clickCounter.flush();
+
+        verify(repo, times(1)).incrementClicks(Map.of(new Click("AbCdEfG", MINUTE, SOURCE), 2L,
+                new Click("AbCdEfG", MINUTE, VisitSource.UNKNOWN), 1L));
+        verifyNoMoreInteractions(repo);
+    }
+
+    @DisplayName("JUnit test for flush method which splits clicks into batches")
+    @Test
+    void givenIncrementsAboveBatchSize_whenFlush_thenIncrementClicksInBatches() {
+        clickCounter.increment("AbCdEfG", SOURCE);
+        clickCounter.increment("aB1cD2e", SOURCE);
+        clickCounter.increment("lMnOpQr", SOURCE);
+
+        clickCounter.flush();
+
+        verify(repo, times(2)).incrementClicks(anyMap());
+    }
+
+    @DisplayName("JUnit test for flush method which retries clicks after a failure")
+    @Test
+    void givenFailingRepository_whenFlush_thenClicksAreRetried() {
+        var clicks = Map.of(new Click("AbCdEfG", MINUTE, SOURCE), 1L);
+        clickCounter.increment("AbCdEfG", SOURCE);
+        doThrow(new IllegalStateException("Redis unavailable")).doNothing().when(repo).incrementClicks(clicks);
+
+        clickCounter.flush();
+        clickCounter.flush();
+
+        verify(repo, times(2)).incrementClicks(clicks);
+    }
+
+    @DisplayName("JUnit test for increment method which folds the referrers of a short URL past its maximum")
+    @Test
+    void givenMoreReferrersThanMaxPendingPerLink_whenFlush_thenCountTheRestUnderOther() throws IllegalAccessException {
+        FieldUtils.writeField(clickCounter, "batchSize", 100, true);
+        var expected = new HashMap<Click, Long>();
+        for (var i = 0; i < MAX_PENDING_PER_LINK; i++) {
+            var source = new VisitSource("referrer" + i + ".com", "FR");
+            clickCounter.increment("AbCdEfG", source);
+            expected.put(new Click("AbCdEfG", MINUTE, source), 1L);
+        }
+        clickCounter.increment("AbCdEfG", new VisitSource("referrer3.com", "FR"));
+        clickCounter.increment("AbCdEfG", new VisitSource("referrer4.com", "FR"));
+        clickCounter.increment("AbCdEfG", new VisitSource("referrer0.com", "FR"));
+        clickCounter.increment("aB1cD2e", SOURCE);
+        expected.put(new Click("AbCdEfG", MINUTE, new VisitSource("referrer0.com", "FR")), 2L);
+        expected.put(new Click("AbCdEfG", MINUTE, VisitSource.FOLDED), 2L);
+        expected.put(new Click("aB1cD2e", MINUTE, SOURCE), 1L);
+
+        clickCounter.flush();
+
+        verify(repo, times(1)).incrementClicks(expected);
+        assertEquals(2, meterRegistry.counter("analytics.clicks.folded").count());
+    }
+
+    @DisplayName("JUnit test for increment method which counts nothing when analytics are disabled")
+    @Test
+    void givenAnalyticsDisabled_whenIncrement_thenNothingIsFlushed() throws IllegalAccessException {
+        FieldUtils.writeField(clickCounter, "enabled", false, true);
+
+        clickCounter.increment("AbCdEfG", SOURCE);
+        clickCounter.stop();
+
+        verifyNoInteractions(repo);
+    }
+}
@@ -0,0 +1,93 @@
+package com.rrg.urlshortener.counter;
+
+import com.rrg.urlshortener.repository.ClickStatsRepository;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HotLinkCounterTests {
+
+    private static final int CAPACITY = 2;
+    private static final Instant NOW = Instant.parse("2024-03-01T10:15:42Z");
+    private static final Instant MINUTE = Instant.parse("2024-03-01T10:15:00Z");
+
+    @Mock
+    private ClickStatsRepository repo;
+
+    private HotLinkCounter hotLinkCounter;
+
+    @BeforeEach
+    public void setup() throws IllegalAccessException {
+        hotLinkCounter = new HotLinkCounter(repo, CAPACITY);
+        FieldUtils.writeField(hotLinkCounter, "enabled", true, true);
+        FieldUtils.writeField(hotLinkCounter, "clock", Clock.fixed(NOW, ZoneOffset.UTC), true);
+    }
+
+    @DisplayName("JUnit test for flush method which adds the visits to the current minute once")
+    @Test
+    void givenVisits_whenFlush_thenAddVisitsToCurrentMinuteOnce() {
+        hotLinkCounter.increment("AbCdEfG");
+        hotLinkCounter.increment("AbCdEfG");
+        hotLinkCounter.increment("aB1cD2e");
+
+        hotLinkCounter.flush();
+        hotLinkCounter.flush();
+
+        verify(repo, times(1)).addHotLinks(MINUTE, Map.of("AbCdEfG", 2L, "aB1cD2e", 1L));
+        verifyNoMoreInteractions(repo);
+    }
+
+    @DisplayName("JUnit test for flush method which keeps the short URLs with the most visits")
+    @Test
+    @SuppressWarnings("unchecked")
+    void givenMoreShortUrlsThanCapacity_whenFlush_thenAddAtMostCapacity() {
+        for (var i = 0; i < 100; i++) {
+            hotLinkCounter.increment("id" + i);
+        }
+
+        hotLinkCounter.stop();
+
+        ArgumentCaptor<Map<String, Long>> visits = ArgumentCaptor.forClass(Map.class);
+        verify(repo).addHotLinks(eq(MINUTE), visits.capture());
+        assertTrue(visits.getValue().size() <= CAPACITY);
+    }
+
+    @DisplayName("JUnit test for increment method which does nothing when disabled")
+    @Test
+    void givenDisabled_whenFlush_thenNothingIsAdded() throws IllegalAccessException {
+        FieldUtils.writeField(hotLinkCounter, "enabled", false, true);
+        hotLinkCounter.increment("AbCdEfG");
+
+        hotLinkCounter.flush();
+
+        verifyNoInteractions(repo);
+    }
+
+    @DisplayName("JUnit test for flush method which drops the visits after a failure")
+    @Test
+    void givenFailingRepository_whenFlush_thenVisitsAreDropped() {
+        hotLinkCounter.increment("AbCdEfG");
+        doThrow(new IllegalStateException("Redis unavailable")).when(repo).addHotLinks(any(), anyMap());
+
+        hotLinkCounter.flush();
+        hotLinkCounter.flush();
+
+        verify(repo, times(1)).addHotLinks(any(), anyMap());
+    }
+}
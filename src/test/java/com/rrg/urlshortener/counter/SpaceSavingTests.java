@@ -0,0 +1,66 @@
+package com.rrg.urlshortener.counter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingTests {
+
+    @DisplayName("JUnit test for offer method which counts exactly below capacity")
+    @Test
+    void givenFewerItemsThanCapacity_whenOffer_thenCountsAreExact() {
+        var sketch = new SpaceSaving(3);
+
+        sketch.offer("AbCdEfG");
+        sketch.offer("AbCdEfG");
+        sketch.offer("aB1cD2e", 5);
+
+        assertEquals(Map.of("AbCdEfG", 2L, "aB1cD2e", 5L), sketch.counts());
+    }
+
+    @DisplayName("JUnit test for offer method which keeps at most capacity counters")
+    @Test
+    void givenMoreItemsThanCapacity_whenOffer_thenCountersAreBounded() {
+        var sketch = new SpaceSaving(10);
+
+        for (var i = 0; i < 1000; i++) {
+            sketch.offer("id" + i);
+        }
+
+        var counts = sketch.counts();
+        assertEquals(10, counts.size());
+        assertEquals(1000, counts.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @DisplayName("JUnit test for offer method which keeps the heavy hitters among rare items")
+    @Test
+    void givenHeavyHittersAmongRareItems_whenOffer_thenHeavyHittersAreKept() {
+        var sketch = new SpaceSaving(10);
+
+        for (var i = 0; i < 1000; i++) {
+            sketch.offer("hot");
+            if (i % 2 == 0) {
+                sketch.offer("warm");
+            }
+            sketch.offer("rare" + i);
+        }
+
+        // A count is overestimated by at most the stream length over the capacity.
+        var counts = sketch.counts();
+        assertTrue(counts.get("hot") >= 1000 && counts.get("hot") <= 1000 + 2500 / 10);
+        assertTrue(counts.get("warm") >= 500 && counts.get("warm") <= 500 + 2500 / 10);
+    }
+
+    @DisplayName("JUnit test for isEmpty method")
+    @Test
+    void givenNewSketch_whenOffer_thenIsNoLongerEmpty() {
+        var sketch = new SpaceSaving(1);
+
+        assertTrue(sketch.isEmpty());
+        sketch.offer("AbCdEfG");
+        assertFalse(sketch.isEmpty());
+    }
+}
@@ -0,0 +1,136 @@
+package com.rrg.urlshortener.counter;
+
+import com.rrg.urlshortener.model.VisitSource;
+import com.rrg.urlshortener.repository.ClickStatsRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UniqueVisitorCounterTests {
+
+    private static final int BATCH_SIZE = 2;
+    private static final int MAX_PENDING = 3;
+    private static final int MAX_PENDING_PER_LINK = 2;
+
+    @Mock
+    private ClickStatsRepository repo;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private UniqueVisitorCounter visitorCounter;
+
+    @BeforeEach
+    public void setup() throws IllegalAccessException {
+        visitorCounter = new UniqueVisitorCounter(repo, MAX_PENDING, MAX_PENDING_PER_LINK, meterRegistry);
+        FieldUtils.writeField(visitorCounter, "batchSize", BATCH_SIZE, true);
+    }
+
+    @DisplayName("JUnit test for flush method which sends each visitor once")
+    @Test
+    void givenRepeatedVisitors_whenFlush_thenAddDistinctVisitorsOnce() {
+        visitorCounter.add("AbCdEfG", new VisitSource("t.co", "FR", 7));
+        visitorCounter.add("AbCdEfG", new VisitSource("direct", "FR", 7));
+        visitorCounter.add("AbCdEfG", new VisitSource("t.co", "US", 9));
+
+        visitorCounter.flush();
+        visitorCounter.flush();
+
+        verify(repo, times(1)).addVisitors(Map.of("AbCdEfG", Set.of(7L, 9L)));
+        verifyNoMoreInteractions(repo);
+    }
+
+    @DisplayName("JUnit test for add method which ignores sources without a visitor")
+    @Test
+    void givenSourcesWithoutVisitor_whenFlush_thenNothingIsAdded() {
+        visitorCounter.add("AbCdEfG", VisitSource.UNKNOWN);
+
+        visitorCounter.stop();
+
+        verifyNoInteractions(repo);
+    }
+
+    @DisplayName("JUnit test for flush method which splits short URLs into batches")
+    @Test
+    void givenVisitorsAboveBatchSize_whenFlush_thenAddVisitorsInBatches() {
+        visitorCounter.add("AbCdEfG", new VisitSource("t.co", "FR", 7));
+        visitorCounter.add("aB1cD2e", new VisitSource("t.co", "FR", 7));
+        visitorCounter.add("lMnOpQr", new VisitSource("t.co", "FR", 7));
+
+        visitorCounter.flush();
+
+        verify(repo, times(2)).addVisitors(anyMap());
+    }
+
+    @DisplayName("JUnit test for flush method which retries visitors after a failure")
+    @Test
+    void givenFailingRepository_whenFlush_thenVisitorsAreRetried() {
+        visitorCounter.add("AbCdEfG", new VisitSource("t.co", "FR", 7));
+        doThrow(new IllegalStateException("Redis unavailable")).doNothing().when(repo)
+                .addVisitors(Map.of("AbCdEfG", Set.of(7L)));
+
+        visitorCounter.flush();
+        visitorCounter.add("AbCdEfG", new VisitSource("t.co", "FR", 8));
+        visitorCounter.flush();
+
+        verify(repo).addVisitors(Map.of("AbCdEfG", Set.of(7L, 8L)));
+    }
+
+    @DisplayName("JUnit test for add method which drops the visitors of a short URL past its maximum")
+    @Test
+    void givenVisitorsAboveMaxPendingPerLink_whenFlush_thenDropVisitorsPastIt() {
+        visitorCounter.add("AbCdEfG", new VisitSource("t.co", "FR", 7));
+        visitorCounter.add("AbCdEfG", new VisitSource("t.co", "FR", 8));
+        visitorCounter.add("AbCdEfG", new VisitSource("t.co", "FR", 9));
+        visitorCounter.add("AbCdEfG", new VisitSource("t.co", "FR", 7));
+
+        visitorCounter.flush();
+
+        verify(repo).addVisitors(Map.of("AbCdEfG", Set.of(7L, 8L)));
+        assertEquals(1, meterRegistry.get("analytics.unique-visitors.dropped").counter().count());
+    }
+
+    @DisplayName("JUnit test for flush method which keeps at most the maximum of visitors while failing")
+    @Test
+    void givenFailingRepository_whenAddAboveMaxPending_thenDropVisitorsPastIt() throws IllegalAccessException {
+        FieldUtils.writeField(visitorCounter, "batchSize", MAX_PENDING, true);
+        doThrow(new IllegalStateException("Redis unavailable")).doNothing().when(repo).addVisitors(anyMap());
+        visitorCounter.add("AbCdEfG", new VisitSource("t.co", "FR", 7));
+        visitorCounter.add("aB1cD2e", new VisitSource("t.co", "FR", 7));
+
+        visitorCounter.flush();
+        visitorCounter.add("lMnOpQr", new VisitSource("t.co", "FR", 7));
+        visitorCounter.add("lMnOpQr", new VisitSource("t.co", "FR", 8));
+        visitorCounter.flush();
+
+        verify(repo).addVisitors(Map.of("AbCdEfG", Set.of(7L), "aB1cD2e", Set.of(7L)));
+        verify(repo).addVisitors(Map.of("AbCdEfG", Set.of(7L), "aB1cD2e", Set.of(7L), "lMnOpQr", Set.of(7L)));
+        assertEquals(1, meterRegistry.get("analytics.unique-visitors.dropped").counter().count());
+    }
+
+    @DisplayName("JUnit test for flush method which frees the room of the flushed visitors")
+    @Test
+    void givenFlushedVisitors_whenAdd_thenVisitorsAreKept() {
+        visitorCounter.add("AbCdEfG", new VisitSource("t.co", "FR", 7));
+        visitorCounter.add("AbCdEfG", new VisitSource("t.co", "FR", 8));
+        visitorCounter.add("aB1cD2e", new VisitSource("t.co", "FR", 7));
+
+        visitorCounter.flush();
+        visitorCounter.add("lMnOpQr", new VisitSource("t.co", "FR", 7));
+        visitorCounter.flush();
+
+        verify(repo).addVisitors(Map.of("lMnOpQr", Set.of(7L)));
+        assertEquals(0, meterRegistry.get("analytics.unique-visitors.dropped").counter().count());
+    }
+}
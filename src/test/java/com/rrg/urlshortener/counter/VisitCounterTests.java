@@ -0,0 +1,100 @@
+package com.rrg.urlshortener.counter;
+
+import com.rrg.urlshortener.repository.UrlRepository;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VisitCounterTests {
+
+    private static final int BATCH_SIZE = 2;
+
+    @Mock
+    private UrlRepository repo;
+
+    @InjectMocks
+    private VisitCounter visitCounter;
+
+    @BeforeEach
+    public void setup() throws IllegalAccessException {
+        FieldUtils.writeField(visitCounter, "batchSize", BATCH_SIZE, true);
+        FieldUtils.writeField(visitCounter, "flushOnShutdown", true, true);
+    }
+
+    @DisplayName("JUnit test for flush method which writes accumulated visits once")
+    @Test
+    void givenIncrements_whenFlush_thenIncrementVisitsOnce() {
+        visitCounter.increment("AbCdEfG");
+        visitCounter.increment("AbCdEfG");
+        visitCounter.increment("AbCdEfG");
+
+        visitCounter.flush();
+        visitCounter.flush();
+
+        verify(repo, times(1)).incrementVisits(Map.of("AbCdEfG", 3L));
+        verifyNoMoreInteractions(repo);
+    }
+
+    @DisplayName("JUnit test for flush method which splits visits into batches")
+    @Test
+    void givenIncrementsAboveBatchSize_whenFlush_thenIncrementVisitsInBatches() {
+        visitCounter.increment("AbCdEfG");
+        visitCounter.increment("aB1cD2e");
+        visitCounter.increment("lMnOpQr");
+
+        visitCounter.flush();
+
+        verify(repo, times(2)).incrementVisits(anyMap());
+    }
+
+    @DisplayName("JUnit test for flush method which retries visits after a failure")
+    @Test
+    void givenFailingRepository_whenFlush_thenVisitsAreRetried() {
+        visitCounter.increment("AbCdEfG");
+        doThrow(new IllegalStateException("Redis unavailable")).doNothing().when(repo).incrementVisits(Map.of("AbCdEfG", 1L));
+
+        visitCounter.flush();
+        visitCounter.flush();
+
+        verify(repo, times(2)).incrementVisits(Map.of("AbCdEfG", 1L));
+    }
+
+    @DisplayName("JUnit test for flush method which keeps counts exact under concurrent increments")
+    @Test
+    void givenConcurrentIncrements_whenFlush_thenNoVisitIsLost() throws InterruptedException {
+        var executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    visitCounter.increment("AbCdEfG");
+                    if (j % 1_000 == 0) {
+                        visitCounter.flush();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+        visitCounter.stop();
+
+        var total = mockingDetails(repo).getInvocations().stream()
+                .map(invocation -> invocation.<Map<String, Long>>getArgument(0))
+                .mapToLong(visits -> visits.getOrDefault("AbCdEfG", 0L))
+                .sum();
+        assertEquals(80_000, total);
+    }
+}
@@ -0,0 +1,114 @@
+package com.rrg.urlshortener.filter;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccessLogFilterTests {
+
+    private static final String REQUEST_BODY = "{\"fullUrl\":\"https://example.com\"}";
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger("access");
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    public void setup() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        logger.detachAppender(appender);
+    }
+
+    @DisplayName("JUnit test for doFilter method which logs the request without its bodies")
+    @Test
+    void givenSuccessfulRequest_whenDoFilter_thenLogAccessWithoutBodies() throws Exception {
+        var filter = new AccessLogFilter(new String[]{}, 0, true, 1024);
+        var request = new MockHttpServletRequest("POST", "/urls");
+        request.setContent(REQUEST_BODY.getBytes(StandardCharsets.UTF_8));
+        var response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain(new EchoServlet(201)));
+
+        assertEquals(1, appender.list.size());
+        var line = appender.list.get(0).getFormattedMessage();
+        assertTrue(line.startsWith("method=POST path=/urls query= status=201 durationMs="));
+        assertFalse(line.contains("requestBody"));
+        assertEquals(REQUEST_BODY, response.getContentAsString());
+    }
+
+    @DisplayName("JUnit test for doFilter method which logs the bodies of an error response")
+    @Test
+    void givenErrorResponse_whenDoFilter_thenLogAccessWithBodies() throws Exception {
+        var filter = new AccessLogFilter(new String[]{}, 0, true, 1024);
+        var request = new MockHttpServletRequest("POST", "/urls");
+        request.setContent(REQUEST_BODY.getBytes(StandardCharsets.UTF_8));
+        var response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain(new EchoServlet(400)));
+
+        var line = appender.list.get(0).getFormattedMessage();
+        assertTrue(line.contains("status=400"));
+        assertTrue(line.endsWith("requestBody=" + REQUEST_BODY + " responseBody=" + REQUEST_BODY));
+    }
+
+    @DisplayName("JUnit test for doFilter method which cuts logged bodies at the maximum length")
+    @Test
+    void givenSampledRequest_whenDoFilter_thenLogTruncatedBodies() throws Exception {
+        var filter = new AccessLogFilter(new String[]{}, 1, false, 5);
+        var request = new MockHttpServletRequest("POST", "/urls");
+        request.setContent(REQUEST_BODY.getBytes(StandardCharsets.UTF_8));
+        var response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain(new EchoServlet(201)));
+
+        var line = appender.list.get(0).getFormattedMessage();
+        assertTrue(line.endsWith("requestBody={\"ful... responseBody={\"ful..."));
+        assertEquals(REQUEST_BODY, response.getContentAsString());
+    }
+
+    @DisplayName("JUnit test for doFilter method which skips excluded paths")
+    @Test
+    void givenExcludedPath_whenDoFilter_thenNothingIsLogged() throws Exception {
+        var filter = new AccessLogFilter(new String[]{"/actuator/**", "/urls/*"}, 1, true, 1024);
+        var request = new MockHttpServletRequest("GET", "/urls/AbCdEfG");
+        var response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain(new EchoServlet(303)));
+
+        assertTrue(appender.list.isEmpty());
+    }
+
+    private static class EchoServlet extends HttpServlet {
+
+        private final int status;
+
+        EchoServlet(int status) {
+            this.status = status;
+        }
+
+        @Override
+        protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            response.setStatus(status);
+            request.getInputStream().transferTo(response.getOutputStream());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.rrg.urlshortener.filter;
+
+import com.rrg.urlshortener.exception.ResourceNotFoundException;
+import com.rrg.urlshortener.model.VisitSource;
+import com.rrg.urlshortener.service.UrlService;
+import com.rrg.urlshortener.util.VisitSourceResolver;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RedirectFilterTests {
+
+    private static final String TEST_FULL_URL = "https://example.com";
+
+    @Mock
+    private UrlService urlService;
+    @Mock
+    private HandlerExceptionResolver exceptionResolver;
+
+    private RedirectFilter filter;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        var sourceResolver = new VisitSourceResolver();
+        FieldUtils.writeField(sourceResolver, "countryHeader", "CF-IPCountry", true);
+        var handlerMapping = new RequestMappingHandlerMapping();
+        var handlerMethod = Object.class.getMethod("toString");
+        for (var path : new String[]{"/urls/{shortUrlId}", "/urls/{shortUrlId}/metrics", "/urls/stream", "/urls/hot"}) {
+            handlerMapping.registerMapping(RequestMappingInfo.paths(path).build(), new Object(), handlerMethod);
+        }
+        var handlerMappings = new StaticListableBeanFactory(Map.of("requestMappingHandlerMapping", handlerMapping))
+                .getBeanProvider(RequestMappingHandlerMapping.class);
+        filter = new RedirectFilter(urlService, sourceResolver, exceptionResolver, handlerMappings);
+    }
+
+    @DisplayName("JUnit test for RedirectFilter which redirects without reaching the rest of the chain")
+    @Test
+    void givenShortUrlId_whenFilter_thenRedirect() throws Exception {
+        var chain = new MockFilterChain();
+        var response = new MockHttpServletResponse();
+
+        var request = new MockHttpServletRequest("GET", "/urls/AbCdEfG");
+        request.addHeader("Referer", "https://t.co/xYz");
+        request.addHeader("CF-IPCountry", "DE");
+
+        when(urlService.resolveRedirection("AbCdEfG", new VisitSource("t.co", "DE"))).thenReturn(TEST_FULL_URL);
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals(303, response.getStatus());
+        assertEquals(TEST_FULL_URL, response.getHeader("Location"));
+        assertNull(chain.getRequest());
+    }
+
+    @DisplayName("JUnit test for RedirectFilter which leaves other paths and methods to the rest of the chain")
+    @Test
+    void givenOtherRequests_whenFilter_thenContinueChain() throws Exception {
+        var requests = new MockHttpServletRequest[]{
+                new MockHttpServletRequest("GET", "/urls"),
+                new MockHttpServletRequest("GET", "/urls/"),
+                new MockHttpServletRequest("GET", "/urls/stream"),
+                new MockHttpServletRequest("GET", "/urls/hot"),
+                new MockHttpServletRequest("GET", "/urls/AbCdEfG/metrics"),
+                new MockHttpServletRequest("GET", "/urls/AbCdEfG/metrics/clicks"),
+                new MockHttpServletRequest("GET", "/urls/AbC%20dEfG"),
+                new MockHttpServletRequest("POST", "/urls/AbCdEfG")};
+
+        for (var request : requests) {
+            var chain = new MockFilterChain();
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+            assertSame(request, chain.getRequest(), request.getMethod() + " " + request.getRequestURI());
+        }
+        verifyNoInteractions(urlService);
+    }
+
+    @DisplayName("JUnit test for RedirectFilter which renders a failed lookup with the exception resolver")
+    @Test
+    void givenUnknownShortUrlId_whenFilter_thenResolveException() throws Exception {
+        var chain = new MockFilterChain();
+        var exception = new ResourceNotFoundException("No resource found for AbCdEfG");
+
+        when(urlService.resolveRedirection("AbCdEfG", VisitSource.UNKNOWN)).thenThrow(exception);
+        when(exceptionResolver.resolveException(any(), any(), isNull(), eq(exception))).thenReturn(new ModelAndView());
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/urls/AbCdEfG"), new MockHttpServletResponse(), chain);
+
+        verify(exceptionResolver).resolveException(any(), any(), isNull(), eq(exception));
+        assertNull(chain.getRequest());
+    }
+}
@@ -0,0 +1,72 @@
+package com.rrg.urlshortener.generator;
+
+import com.rrg.urlshortener.exception.ShortUrlIdGenerationException;
+import com.rrg.urlshortener.util.UrlUtil;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BlockIdGeneratorTests {
+
+    private static final long BLOCK_SIZE = 2;
+
+    @Mock
+    private StringRedisTemplate template;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private BlockIdGenerator generator;
+
+    @BeforeEach
+    public void setup() throws IllegalAccessException {
+        var util = new UrlUtil();
+        FieldUtils.writeField(util, "idLength", 7, true);
+        FieldUtils.writeField(util, "permittedChars", "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789", true);
+        generator = new BlockIdGenerator(util, template);
+        FieldUtils.writeField(generator, "blockSize", BLOCK_SIZE, true);
+        when(template.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @DisplayName("JUnit test for generateId method which leases a new block once the current one is used")
+    @Test
+    void givenExhaustedBlock_whenGenerateId_thenLeaseNextBlock() {
+        when(valueOperations.increment("id:sequence", BLOCK_SIZE)).thenReturn(2L, 4L);
+
+        assertEquals("aaaaaaa", generator.generateId());
+        assertEquals("aaaaaab", generator.generateId());
+        assertEquals("aaaaaac", generator.generateId());
+        assertEquals("aaaaaad", generator.generateId());
+        verify(valueOperations, times(2)).increment("id:sequence", BLOCK_SIZE);
+    }
+
+    @DisplayName("JUnit test for generateIds method which leases a block large enough for all IDs at once")
+    @Test
+    void givenMoreIdsThanBlockSize_whenGenerateIds_thenLeaseOneLargerBlock() {
+        when(valueOperations.increment("id:sequence", 5L)).thenReturn(5L);
+
+        assertEquals(List.of("aaaaaaa", "aaaaaab", "aaaaaac", "aaaaaad", "aaaaaae"), generator.generateIds(5));
+        verify(valueOperations, times(1)).increment(eq("id:sequence"), anyLong());
+    }
+
+    @DisplayName("JUnit test for generateId method which throws ShortUrlIdGenerationException")
+    @Test
+    void givenNoSequence_whenGenerateId_thenThrowsShortUrlIdGenerationException() {
+        when(valueOperations.increment("id:sequence", BLOCK_SIZE)).thenReturn(null);
+
+        assertThrows(ShortUrlIdGenerationException.class, () -> generator.generateId());
+    }
+}
@@ -0,0 +1,114 @@
+package com.rrg.urlshortener.generator;
+
+import com.rrg.urlshortener.exception.ShortUrlIdGenerationException;
+import com.rrg.urlshortener.util.UrlUtil;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeIdGeneratorTests {
+
+    private UrlUtil util;
+    private MutableClock clock;
+
+    @BeforeEach
+    public void setup() throws IllegalAccessException {
+        util = new UrlUtil();
+        FieldUtils.writeField(util, "idLength", 7, true);
+        FieldUtils.writeField(util, "permittedChars", "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789", true);
+        clock = new MutableClock(SnowflakeIdGenerator.EPOCH + 1_000);
+    }
+
+    @DisplayName("JUnit test for generateId method which returns unique IDs across nodes")
+    @Test
+    void givenTwoNodes_whenGenerateId_thenReturnUniqueIds() {
+        var firstNode = new SnowflakeIdGenerator(util, 1, clock);
+        var secondNode = new SnowflakeIdGenerator(util, 2, clock);
+        var ids = new HashSet<String>();
+
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(firstNode.generateId());
+            ids.add(secondNode.generateId());
+            if (i % 1_000 == 0) {
+                clock.advance();
+            }
+        }
+
+        assertEquals(20_000, ids.size());
+    }
+
+    @DisplayName("JUnit test for generateId method which throws ShortUrlIdGenerationException")
+    @Test
+    void givenClockMovingBackwards_whenGenerateId_thenThrowsShortUrlIdGenerationException() {
+        var generator = new SnowflakeIdGenerator(util, 1, clock);
+        generator.generateId();
+        clock.rewind();
+
+        assertThrows(ShortUrlIdGenerationException.class, generator::generateId);
+    }
+
+    @DisplayName("JUnit test for SnowflakeIdGenerator constructor which throws IllegalArgumentException")
+    @Test
+    void givenOutOfRangeNodeId_whenCreate_thenThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(util, 1024, clock));
+    }
+
+    @DisplayName("JUnit test for generateId method which returns IDs longer than id.length")
+    @Test
+    void givenDefaultPermittedChars_whenGenerateId_thenReturnIdsOfUpTo11Chars() {
+        var before2030 = new SnowflakeIdGenerator(util, 1,
+                new MutableClock(Instant.parse("2030-01-01T00:00:00Z").toEpochMilli()));
+        var after2030 = new SnowflakeIdGenerator(util, 1,
+                new MutableClock(Instant.parse("2031-01-01T00:00:00Z").toEpochMilli()));
+
+        assertEquals(10, before2030.generateId().length());
+        assertEquals(11, after2030.generateId().length());
+        assertEquals(11, util.encode(Long.MAX_VALUE).length());
+    }
+
+    private static class MutableClock extends Clock {
+
+        private long millis;
+
+        MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        void advance() {
+            millis++;
+        }
+
+        void rewind() {
+            millis--;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis());
+        }
+    }
+}
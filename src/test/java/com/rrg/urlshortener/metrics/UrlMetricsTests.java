@@ -0,0 +1,80 @@
+package com.rrg.urlshortener.metrics;
+
+import com.rrg.urlshortener.exception.ResourceNotFoundException;
+import com.rrg.urlshortener.metrics.UrlMetrics.Operation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UrlMetricsTests {
+
+    private SimpleMeterRegistry meterRegistry;
+    private UrlMetrics metrics;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new UrlMetrics(meterRegistry);
+    }
+
+    @DisplayName("JUnit test for time method which records the outcome of a blocking call")
+    @Test
+    void givenBlockingCalls_whenTime_thenRecordByOutcome() {
+        assertEquals("AbCdEfG", metrics.time(Operation.CREATE, () -> "AbCdEfG"));
+        assertThrows(ResourceNotFoundException.class, () -> metrics.time(Operation.REDIRECT, () -> {
+            throw new ResourceNotFoundException("Short URL ID not found");
+        }));
+
+        assertEquals(1, timerCount("create", "success"));
+        assertEquals(0, timerCount("create", "error"));
+        assertEquals(1, timerCount("redirect", "error"));
+    }
+
+    @DisplayName("JUnit test for time method which records the outcome of a reactive call on subscription")
+    @Test
+    void givenReactiveCalls_whenTime_thenRecordByOutcome() {
+        var created = metrics.time(Operation.CREATE_BATCH, Mono.just("AbCdEfG"));
+        var failed = metrics.time(Operation.LOOKUP, Mono.error(new ResourceNotFoundException("Short URL ID not found")));
+        assertEquals(0, timerCount("create-batch", "success"));
+
+        created.block();
+        created.block();
+        assertThrows(ResourceNotFoundException.class, failed::block);
+
+        assertEquals(2, timerCount("create-batch", "success"));
+        assertEquals(1, timerCount("lookup", "error"));
+    }
+
+    @DisplayName("JUnit test for idCollisions and idExhausted methods which count the IDs")
+    @Test
+    void givenCollisions_whenIdCollisions_thenCount() {
+        metrics.idCollisions(3);
+        metrics.idCollisions(0);
+        metrics.idExhausted(1);
+
+        assertEquals(3, meterRegistry.counter("urls.id.collisions").count());
+        assertEquals(1, meterRegistry.counter("urls.id.exhausted").count());
+    }
+
+    @DisplayName("JUnit test for error method which counts by exception and status")
+    @Test
+    void givenErrors_whenError_thenCountByExceptionAndStatus() {
+        metrics.error(new ResourceNotFoundException("Short URL ID not found"), HttpStatus.NOT_FOUND);
+        metrics.error(new ResourceNotFoundException("Short URL ID not found"), HttpStatus.NOT_FOUND);
+        metrics.error(new IllegalStateException(), HttpStatus.INTERNAL_SERVER_ERROR);
+
+        assertEquals(2, meterRegistry.counter("api.errors", "exception", "ResourceNotFoundException", "status", "404")
+                .count());
+        assertEquals(1, meterRegistry.counter("api.errors", "exception", "IllegalStateException", "status", "500")
+                .count());
+    }
+
+    private long timerCount(String operation, String outcome) {
+        return meterRegistry.timer("urls.operations", "operation", operation, "outcome", outcome).count();
+    }
+}
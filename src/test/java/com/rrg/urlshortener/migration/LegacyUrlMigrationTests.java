@@ -0,0 +1,114 @@
+package com.rrg.urlshortener.migration;
+
+import com.rrg.urlshortener.model.Url;
+import com.rrg.urlshortener.repository.UrlRepository;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LegacyUrlMigrationTests {
+
+    @Mock
+    private StringRedisTemplate template;
+    @Mock
+    private UrlRepository repo;
+    @Mock
+    private SetOperations<String, String> setOps;
+    @Mock
+    private HashOperations<String, Object, Object> hashOps;
+    @Mock
+    private Cursor<String> cursor;
+
+    @InjectMocks
+    private LegacyUrlMigration migration;
+
+    @BeforeEach
+    public void setup() throws IllegalAccessException {
+        FieldUtils.writeField(migration, "batchSize", 10, true);
+        when(template.opsForSet()).thenReturn(setOps);
+        when(template.opsForHash()).thenReturn(hashOps);
+        when(setOps.scan(eq("Url"), any())).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, false);
+        when(cursor.next()).thenReturn("1");
+    }
+
+    @DisplayName("JUnit test for run method which migrates a legacy short URL and deletes its legacy key")
+    @Test
+    void givenFreeShortUrlId_whenRun_thenMigrateAndDeleteLegacyKey() {
+        when(hashOps.entries("Url:1")).thenReturn(Map.of("shortUrlId", "AbCdEfG", "fullUrl", "https://example.com"));
+        when(repo.insertIfAbsent(any(Url.class), eq(false))).thenReturn("AbCdEfG");
+        when(setOps.members("Url:1:idx")).thenReturn(Set.of("Url:shortUrlId:AbCdEfG"));
+
+        migration.run(null);
+
+        verify(setOps).remove("Url:shortUrlId:AbCdEfG", "1");
+        verify(template).delete(List.of("Url:1", "Url:1:idx", "Url:1:phantom"));
+        verify(setOps).remove("Url", "1");
+        verify(setOps, never()).move(any(), any(), any());
+    }
+
+    @DisplayName("JUnit test for run method which keeps a legacy short URL whose ID is taken by another full URL")
+    @Test
+    void givenShortUrlIdTaken_whenRun_thenKeepLegacyKey() {
+        when(hashOps.entries("Url:1")).thenReturn(Map.of("shortUrlId", "AbCdEfG", "fullUrl", "https://example.com"));
+        when(repo.insertIfAbsent(any(Url.class), eq(false))).thenReturn(null);
+        var stored = new Url();
+        stored.setShortUrlId("AbCdEfG");
+        stored.setFullUrl("https://other.example.com");
+        when(repo.findByShortUrlId("AbCdEfG")).thenReturn(Optional.of(stored));
+
+        migration.run(null);
+
+        verify(setOps).move("Url", "1", LegacyUrlMigration.SKIPPED_KEY);
+        verify(template, never()).delete(anyCollection());
+        verify(setOps, never()).remove(any(), any());
+    }
+
+    @DisplayName("JUnit test for run method which deletes a legacy short URL migrated by an earlier run")
+    @Test
+    void givenShortUrlIdTakenBySameFullUrl_whenRun_thenDeleteLegacyKey() {
+        when(hashOps.entries("Url:1")).thenReturn(Map.of("shortUrlId", "AbCdEfG", "fullUrl", "https://example.com"));
+        when(repo.insertIfAbsent(any(Url.class), eq(false))).thenReturn(null);
+        var stored = new Url();
+        stored.setShortUrlId("AbCdEfG");
+        stored.setFullUrl("https://example.com");
+        when(repo.findByShortUrlId("AbCdEfG")).thenReturn(Optional.of(stored));
+
+        migration.run(null);
+
+        verify(template).delete(List.of("Url:1", "Url:1:idx", "Url:1:phantom"));
+        verify(setOps, never()).move(any(), any(), any());
+    }
+
+    @DisplayName("JUnit test for run method which keeps a legacy short URL without a short URL ID")
+    @Test
+    void givenMissingShortUrlId_whenRun_thenKeepLegacyKey() {
+        when(hashOps.entries("Url:1")).thenReturn(Map.of("fullUrl", "https://example.com"));
+
+        migration.run(null);
+
+        verify(setOps).move("Url", "1", LegacyUrlMigration.SKIPPED_KEY);
+        verify(template, never()).delete(anyCollection());
+        verifyNoInteractions(repo);
+    }
+}
@@ -0,0 +1,106 @@
+package com.rrg.urlshortener.repository;
+
+import com.rrg.urlshortener.model.Click;
+import com.rrg.urlshortener.model.ClickBucket;
+import com.rrg.urlshortener.model.Granularity;
+import com.rrg.urlshortener.model.HotLink;
+import com.rrg.urlshortener.model.VisitSource;
+import com.rrg.urlshortener.repository.ClickStatsMapping.Increment;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClickStatsMappingTests {
+
+    private final ClickStatsMapping mapping = new ClickStatsMapping();
+
+    @BeforeEach
+    public void setup() throws IllegalAccessException {
+        FieldUtils.writeField(mapping, "minuteRetention", Duration.ofDays(2), true);
+        FieldUtils.writeField(mapping, "hourRetention", Duration.ofDays(35), true);
+        FieldUtils.writeField(mapping, "dayRetention", Duration.ofDays(400), true);
+        FieldUtils.writeField(mapping, "sourcesRetention", Duration.ofDays(90), true);
+        FieldUtils.writeField(mapping, "hotLinksMaxWindow", 60, true);
+        FieldUtils.writeField(mapping, "maxReferrers", 100, true);
+    }
+
+    @DisplayName("JUnit test for increments method which adds a click to its buckets and sources")
+    @Test
+    void givenClick_whenIncrements_thenReturnBucketAndSourceFields() {
+        var minute = Instant.parse("2024-02-29T23:59:00Z").getEpochSecond() / 60;
+
+        var increments = mapping.increments(new Click("AbCdEfG", minute, new VisitSource("t.co", "FR")));
+
+        assertEquals(List.of(
+                new Increment("stats:{AbCdEfG}:m:2024022923", "59", Instant.parse("2024-03-03T00:00:00Z")),
+                new Increment("stats:{AbCdEfG}:h:20240229", "23", Instant.parse("2024-04-05T00:00:00Z")),
+                new Increment("stats:{AbCdEfG}:d:202402", "29", Instant.parse("2025-04-05T00:00:00Z")),
+                new Increment("stats:{AbCdEfG}:r:20240229", "t.co", Instant.parse("2024-05-30T00:00:00Z"), 100),
+                new Increment("stats:{AbCdEfG}:c:20240229", "FR", Instant.parse("2024-05-30T00:00:00Z"))),
+                increments);
+    }
+
+    @DisplayName("JUnit test for hotLinksKeys method which returns the sum key then the minutes of the window")
+    @Test
+    void givenWindow_whenHotLinksKeys_thenReturnSumKeyThenMinutes() {
+        var keys = mapping.hotLinksKeys(Instant.parse("2024-03-01T00:01:42Z"), 3);
+
+        assertEquals(List.of("stats:{hot}:t:sum", "stats:{hot}:t:202402292359", "stats:{hot}:t:202403010000",
+                "stats:{hot}:t:202403010001"), keys);
+        assertEquals(Instant.parse("2024-03-01T01:01:00Z"),
+                mapping.hotLinksExpireAt(Instant.parse("2024-03-01T00:00:00Z")));
+    }
+
+    @DisplayName("JUnit test for hotLinks method which reads the IDs and scores of ZREVRANGE WITHSCORES")
+    @Test
+    void givenTopWithScores_whenHotLinks_thenReturnHotLinks() {
+        var hotLinks = ClickStatsMapping.hotLinks(List.of("AbCdEfG", "12", "aB1cD2e", "3"));
+
+        assertEquals(List.of(new HotLink("AbCdEfG", 12), new HotLink("aB1cD2e", 3)), hotLinks);
+    }
+
+    @DisplayName("JUnit test for buckets method which reads the buckets across hashes, with zero for missing ones")
+    @Test
+    void givenHashes_whenBuckets_thenReturnBucketPerStart() {
+        var starts = ClickStatsMapping.bucketStarts(Granularity.MINUTE, Instant.parse("2024-01-01T10:58:30Z"),
+                Instant.parse("2024-01-01T11:01:00Z"));
+        var keys = mapping.bucketKeys("AbCdEfG", Granularity.MINUTE, starts);
+
+        var buckets = mapping.buckets("AbCdEfG", Granularity.MINUTE, starts,
+                Map.of("stats:{AbCdEfG}:m:2024010110", Map.of("58", "3"),
+                        "stats:{AbCdEfG}:m:2024010111", Map.of("0", "5", "1", "7")));
+
+        assertEquals(List.of("stats:{AbCdEfG}:m:2024010110", "stats:{AbCdEfG}:m:2024010111"), keys);
+        assertEquals(List.of(new ClickBucket(Instant.parse("2024-01-01T10:58:00Z"), 3),
+                new ClickBucket(Instant.parse("2024-01-01T10:59:00Z"), 0),
+                new ClickBucket(Instant.parse("2024-01-01T11:00:00Z"), 5)), buckets);
+    }
+
+    @DisplayName("JUnit test for sum method which adds up sources across days, most visited first")
+    @Test
+    void givenDailyHashes_whenSum_thenReturnTotalsByVisits() {
+        var visits = ClickStatsMapping.sum(List.of(Map.of("t.co", "2", "direct", "4"), Map.of("t.co", "3", "a.com", "5")));
+
+        assertEquals(List.of("a.com", "t.co", "direct"), List.copyOf(visits.keySet()));
+        assertEquals(5, visits.get("t.co"));
+    }
+
+    @DisplayName("JUnit test for VisitSource which reads the referrer host and country from headers")
+    @Test
+    void givenHeaders_whenVisitSourceOf_thenReturnHostAndCountry() {
+        assertEquals(new VisitSource("news.example.com", "FR"),
+                VisitSource.of("https://user@News.Example.com:8443/a?b#c", "fr"));
+        assertEquals(new VisitSource("[::1]", "US"), VisitSource.of("http://[::1]:80/", "US"));
+        assertEquals(VisitSource.UNKNOWN, VisitSource.of("android-app://", "FRA"));
+        assertEquals(VisitSource.UNKNOWN, VisitSource.of("not a url", "é1"));
+        assertEquals(VisitSource.UNKNOWN, VisitSource.of(null, null));
+    }
+}
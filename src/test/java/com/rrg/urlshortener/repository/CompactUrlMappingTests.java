@@ -0,0 +1,67 @@
+package com.rrg.urlshortener.repository;
+
+import com.rrg.urlshortener.TestUtil;
+import com.rrg.urlshortener.model.Url;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactUrlMappingTests extends TestUtil {
+
+    private final CompactUrlMapping mapping = new CompactUrlMapping();
+
+    @DisplayName("JUnit test for insertCall method which writes the full URL only until there are visits")
+    @Test
+    void givenUrlWithoutVisits_whenInsertCall_thenWriteFullUrlOnly() {
+        var url = newUrl("AbCdEfG", 0);
+
+        var call = mapping.insertCall(url, true);
+
+        assertEquals(List.of("u:AbCdEfG", mapping.fullUrlIndexKey(TEST_FULL_URL),
+                UrlRedisMapping.deduplicationKey(TEST_FULL_URL)), call.keys());
+        assertEquals(List.of("f", TEST_FULL_URL), call.hashFields());
+        assertEquals(List.of(mapping.fullUrlIndexKey(TEST_FULL_URL)), call.indexKeys());
+        assertNull(call.indexesKey());
+        assertNull(call.keyspaceKey());
+    }
+
+    @DisplayName("JUnit test for read method which reads back what insertCall writes")
+    @Test
+    void givenInsertedHash_whenRead_thenReturnSameUrl() {
+        var url = newUrl("AbCdEfG", 42);
+        var fields = mapping.insertCall(url, false).hashFields();
+        var hash = new HashMap<String, String>();
+        for (var i = 0; i < fields.size(); i += 2) {
+            hash.put(fields.get(i), fields.get(i + 1));
+        }
+
+        assertEquals(url, mapping.read("AbCdEfG", hash));
+        assertEquals(0, mapping.read("AbCdEfG", Map.of("f", TEST_FULL_URL)).getVisits());
+        assertNull(mapping.read("AbCdEfG", Map.of()));
+    }
+
+    @DisplayName("JUnit test for fullUrlIndexKey method which names the index after a fixed length digest")
+    @Test
+    void givenFullUrls_whenFullUrlIndexKey_thenReturnDistinctFixedLengthKeys() {
+        var key = mapping.fullUrlIndexKey(TEST_FULL_URL);
+        var longKey = mapping.fullUrlIndexKey(TEST_FULL_URL + "/" + "a".repeat(2000));
+
+        assertEquals(key, mapping.fullUrlIndexKey(TEST_FULL_URL));
+        assertNotEquals(key, longKey);
+        assertEquals("u:f:".length() + 22, key.length());
+        assertEquals(key.length(), longKey.length());
+    }
+
+    private Url newUrl(String shortUrlId, long visits) {
+        var url = new Url();
+        url.setShortUrlId(shortUrlId);
+        url.setFullUrl(TEST_FULL_URL);
+        url.setVisits(visits);
+        return url;
+    }
+}
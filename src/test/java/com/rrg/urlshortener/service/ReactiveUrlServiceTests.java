@@ -0,0 +1,249 @@
+package com.rrg.urlshortener.service;
+
+import com.rrg.urlshortener.TestUtil;
+import com.rrg.urlshortener.cache.RedirectCache;
+import com.rrg.urlshortener.cache.ShortUrlIdFilter;
+import com.rrg.urlshortener.config.RedisTopology;
+import com.rrg.urlshortener.counter.ClickCounter;
+import com.rrg.urlshortener.counter.HotLinkCounter;
+import com.rrg.urlshortener.counter.UniqueVisitorCounter;
+import com.rrg.urlshortener.counter.VisitCounter;
+import com.rrg.urlshortener.exception.InvalidFieldException;
+import com.rrg.urlshortener.exception.MissingFieldException;
+import com.rrg.urlshortener.exception.ResourceNotFoundException;
+import com.rrg.urlshortener.exception.ShortUrlIdGenerationException;
+import com.rrg.urlshortener.generator.IdGenerator;
+import com.rrg.urlshortener.metrics.UrlMetrics;
+import com.rrg.urlshortener.model.CreationResult;
+import com.rrg.urlshortener.model.ShortUrlRequest;
+import com.rrg.urlshortener.model.Url;
+import com.rrg.urlshortener.model.UrlPage;
+import com.rrg.urlshortener.model.VisitSource;
+import com.rrg.urlshortener.repository.ReactiveClickStatsRepository;
+import com.rrg.urlshortener.repository.ReactiveUrlRepository;
+import com.rrg.urlshortener.service.impl.ReactiveUrlServiceImpl;
+import com.rrg.urlshortener.util.UrlUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveUrlServiceTests extends TestUtil {
+
+    private static final int ATTEMPT_LIMIT = 3;
+    private static final int LOOKUP_MAX_BATCH_SIZE = 3;
+    private static final int SEARCH_PAGE_SIZE = 100;
+    private static final int SEARCH_MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BUCKETS = 1440;
+
+    @Mock
+    private ReactiveUrlRepository repo;
+    @Mock
+    private UrlUtil util;
+    @Mock
+    private VisitCounter visitCounter;
+    @Mock
+    private ClickCounter clickCounter;
+    @Mock
+    private UniqueVisitorCounter visitorCounter;
+    @Mock
+    private HotLinkCounter hotLinkCounter;
+    @Mock
+    private ReactiveClickStatsRepository clickStats;
+    @Mock
+    private IdGenerator idGenerator;
+    @Spy
+    private RedirectCache cache = new RedirectCache(100, Duration.ofMinutes(1), 100, Duration.ofSeconds(5),
+            new SimpleMeterRegistry());
+    @Spy
+    private ShortUrlIdFilter idFilter = new ShortUrlIdFilter(null, null, cache, Optional.empty(),
+            RedisTopology.STANDALONE, new SimpleMeterRegistry());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Spy
+    private UrlMetrics metrics = new UrlMetrics(meterRegistry);
+
+    @InjectMocks
+    private ReactiveUrlServiceImpl service;
+
+    private List<Url> testUrls;
+
+    @BeforeEach
+    public void setup() throws IllegalAccessException {
+        testUrls = getTestUrls();
+        FieldUtils.writeField(service, "attemptLimit", ATTEMPT_LIMIT, true);
+        FieldUtils.writeField(service, "deduplicateByDefault", false, true);
+        FieldUtils.writeField(service, "lookupMaxBatchSize", LOOKUP_MAX_BATCH_SIZE, true);
+        FieldUtils.writeField(service, "searchPageSize", SEARCH_PAGE_SIZE, true);
+        FieldUtils.writeField(service, "searchMaxPageSize", SEARCH_MAX_PAGE_SIZE, true);
+        FieldUtils.writeField(service, "maxBuckets", MAX_BUCKETS, true);
+    }
+
+    @DisplayName("JUnit test for reactive createShortUrl method which retries with a new ID when the ID is taken")
+    @Test
+    void givenTakenShortUrlId_whenCreateShortUrl_thenRetryWithNewId() {
+        when(idGenerator.generateId()).thenReturn("AbCdEfG", "aB1cD2e");
+        when(util.normaliseUrl(TEST_FULL_URL)).thenReturn(TEST_FULL_URL);
+        when(repo.insertIfAbsent(any(Url.class), eq(false))).thenReturn(Mono.empty())
+                .thenReturn(Mono.just("aB1cD2e"));
+
+        var createdUrl = service.createShortUrl(TEST_FULL_URL, null, null).block();
+
+        assertNotNull(createdUrl);
+        assertEquals("aB1cD2e", createdUrl.getShortUrlId());
+        assertEquals(TEST_FULL_URL, createdUrl.getFullUrl());
+        verify(repo, times(2)).insertIfAbsent(any(Url.class), eq(false));
+    }
+
+    @DisplayName("JUnit test for reactive createShortUrl method which signals an error once the attempts run out")
+    @Test
+    void givenTakenShortUrlIds_whenCreateShortUrl_thenSignalShortUrlIdGenerationException() {
+        when(idGenerator.generateId()).thenReturn("AbCdEfG");
+        when(util.normaliseUrl(TEST_FULL_URL)).thenReturn(TEST_FULL_URL);
+        when(repo.insertIfAbsent(any(Url.class), eq(false))).thenReturn(Mono.empty());
+
+        var created = service.createShortUrl(TEST_FULL_URL, null, null);
+
+        assertThrows(ShortUrlIdGenerationException.class, created::block);
+        verify(repo, times(ATTEMPT_LIMIT)).insertIfAbsent(any(Url.class), eq(false));
+        assertEquals(ATTEMPT_LIMIT, meterRegistry.counter("urls.id.collisions").count());
+        assertEquals(1, meterRegistry.counter("urls.id.exhausted").count());
+    }
+
+    @DisplayName("JUnit test for reactive createShortUrl method which signals validation errors without subscribing")
+    @Test
+    void givenInvalidFullUrl_whenCreateShortUrl_thenSignalError() {
+        assertThrows(MissingFieldException.class, () -> service.createShortUrl(" ", null, null).block());
+        assertThrows(InvalidFieldException.class, () -> service.createShortUrl(INCORRECT_TEST_FULL_URL, null, null).block());
+        verifyNoInteractions(repo, idGenerator);
+    }
+
+    @DisplayName("JUnit test for reactive createShortUrls method which retries only the collided URLs")
+    @Test
+    void givenCollidedShortUrlId_whenCreateShortUrls_thenRetryCollidedOnly() {
+        var secondFullUrl = TEST_FULL_URL + "/2";
+        when(util.normaliseUrl(TEST_FULL_URL)).thenReturn(TEST_FULL_URL);
+        when(util.normaliseUrl(INCORRECT_TEST_FULL_URL)).thenReturn(null);
+        when(util.normaliseUrl(secondFullUrl)).thenReturn(secondFullUrl);
+        when(idGenerator.generateIds(2)).thenReturn(List.of("AbCdEfG", "aB1cD2e"));
+        when(idGenerator.generateIds(1)).thenReturn(List.of("zYxWvUt"));
+        when(repo.insertAllIfAbsent(anyList(), eq(false)))
+                .thenReturn(Mono.just(Arrays.asList("AbCdEfG", null)))
+                .thenReturn(Mono.just(List.of("zYxWvUt")));
+
+        var results = service.createShortUrls(List.of(new ShortUrlRequest(TEST_FULL_URL, null),
+                new ShortUrlRequest(INCORRECT_TEST_FULL_URL, null),
+                new ShortUrlRequest(secondFullUrl, null))).block();
+
+        assertNotNull(results);
+        assertEquals(new CreationResult(TEST_FULL_URL, "AbCdEfG", null), results.get(0));
+        assertNull(results.get(1).shortUrlId());
+        assertNotNull(results.get(1).error());
+        assertEquals(new CreationResult(secondFullUrl, "zYxWvUt", null), results.get(2));
+        verify(repo, times(2)).insertAllIfAbsent(anyList(), eq(false));
+    }
+
+    @DisplayName("JUnit test for reactive getUrlByShortUrlId method which signals an error for an unknown ID")
+    @Test
+    void givenUnknownShortUrlId_whenGetUrlByShortUrlId_thenSignalResourceNotFoundException() {
+        when(repo.findByShortUrlId("AbCdEfG")).thenReturn(Mono.empty());
+
+        var url = service.getUrlByShortUrlId("AbCdEfG");
+
+        assertThrows(ResourceNotFoundException.class, url::block);
+    }
+
+    @DisplayName("JUnit test for reactive getUrlsByShortUrlIds method which rejects too many IDs")
+    @Test
+    void givenTooManyShortUrlIds_whenGetUrlsByShortUrlIds_thenSignalInvalidFieldException() {
+        var urls = service.getUrlsByShortUrlIds(List.of("a", "b", "c", "d"));
+
+        assertThrows(InvalidFieldException.class, urls::block);
+        verifyNoInteractions(repo);
+    }
+
+    @DisplayName("JUnit test for reactive getUrlsByFullUrl method which starts from the first cursor")
+    @Test
+    void givenFullUrl_whenGetUrlsByFullUrl_thenReturnFirstPage() {
+        var page = new UrlPage(testUrls, "42");
+        when(util.normaliseUrl(TEST_FULL_URL)).thenReturn(TEST_FULL_URL);
+        when(repo.findPageByFullUrl(TEST_FULL_URL, "0", SEARCH_PAGE_SIZE)).thenReturn(Mono.just(page));
+
+        assertEquals(page, service.getUrlsByFullUrl(TEST_FULL_URL, null, null).block());
+    }
+
+    @DisplayName("JUnit test for reactive resolveRedirection method which caches the location and counts visits")
+    @Test
+    void givenShortUrlId_whenResolveRedirection_thenCacheLocationAndCountVisits() {
+        var url = testUrls.get(0);
+        when(repo.findByShortUrlId(url.getShortUrlId())).thenReturn(Mono.just(url));
+        when(util.normaliseUrl(url.getFullUrl())).thenReturn(url.getFullUrl());
+
+        assertEquals(TEST_FULL_URL, service.resolveRedirection(url.getShortUrlId(), VisitSource.UNKNOWN).block());
+        assertEquals(TEST_FULL_URL, service.resolveRedirection(url.getShortUrlId(), VisitSource.UNKNOWN).block());
+
+        verify(repo, times(1)).findByShortUrlId(url.getShortUrlId());
+        verify(visitCounter, times(2)).increment(url.getShortUrlId());
+        verify(clickCounter, times(2)).increment(url.getShortUrlId(), VisitSource.UNKNOWN);
+    }
+
+    @DisplayName("JUnit test for reactive resolveRedirection method which remembers short URL IDs that aren't found")
+    @Test
+    void givenUnknownShortUrlId_whenResolveRedirection_thenRepositoryIsQueriedOnce() {
+        var shortUrlId = "lMnOpQr";
+        when(repo.findByShortUrlId(shortUrlId)).thenReturn(Mono.empty());
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> service.resolveRedirection(shortUrlId, VisitSource.UNKNOWN).block());
+        assertThrows(ResourceNotFoundException.class,
+                () -> service.resolveRedirection(shortUrlId, VisitSource.UNKNOWN).block());
+
+        verify(repo, times(1)).findByShortUrlId(shortUrlId);
+        verifyNoInteractions(visitCounter);
+    }
+
+    @DisplayName("JUnit test for reactive resolveRedirection method which skips the lookup of IDs the filter never saw")
+    @Test
+    void givenFilteredShortUrlId_whenResolveRedirection_thenRepositoryIsNotQueried() {
+        var shortUrlId = "lMnOpQr";
+        when(idFilter.mightExist(shortUrlId)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> service.resolveRedirection(shortUrlId, VisitSource.UNKNOWN).block());
+        verifyNoInteractions(repo);
+    }
+
+    @DisplayName("JUnit test for reactive getClicks method which signals InvalidFieldException for a reversed range")
+    @Test
+    void givenReversedRange_whenGetClicks_thenErrorInvalidFieldException() {
+        var from = Instant.parse("2024-01-02T00:00:00Z");
+        var to = Instant.parse("2024-01-01T00:00:00Z");
+
+        var clicks = service.getClicks("AbCdEfG", "day", from, to);
+
+        assertThrows(InvalidFieldException.class, clicks::block);
+        verifyNoInteractions(clickStats);
+    }
+}
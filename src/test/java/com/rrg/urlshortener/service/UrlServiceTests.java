@@ -1,14 +1,32 @@
 package com.rrg.urlshortener.service;
 
 import com.rrg.urlshortener.TestUtil;
+import com.rrg.urlshortener.cache.RedirectCache;
+import com.rrg.urlshortener.cache.ShortUrlIdFilter;
+import com.rrg.urlshortener.config.RedisTopology;
+import com.rrg.urlshortener.counter.ClickCounter;
+import com.rrg.urlshortener.counter.HotLinkCounter;
+import com.rrg.urlshortener.counter.UniqueVisitorCounter;
+import com.rrg.urlshortener.counter.VisitCounter;
 import com.rrg.urlshortener.exception.InvalidFieldException;
 import com.rrg.urlshortener.exception.MissingFieldException;
 import com.rrg.urlshortener.exception.ResourceNotFoundException;
 import com.rrg.urlshortener.exception.ShortUrlIdGenerationException;
+import com.rrg.urlshortener.generator.IdGenerator;
+import com.rrg.urlshortener.metrics.UrlMetrics;
+import com.rrg.urlshortener.model.ClickBucket;
+import com.rrg.urlshortener.model.CreationResult;
+import com.rrg.urlshortener.model.Granularity;
+import com.rrg.urlshortener.model.HotLink;
+import com.rrg.urlshortener.model.ShortUrlRequest;
 import com.rrg.urlshortener.model.Url;
+import com.rrg.urlshortener.model.UrlPage;
+import com.rrg.urlshortener.model.VisitSource;
+import com.rrg.urlshortener.repository.ClickStatsRepository;
 import com.rrg.urlshortener.repository.UrlRepository;
 import com.rrg.urlshortener.service.impl.UrlServiceImpl;
 import com.rrg.urlshortener.util.UrlUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.reflect.FieldUtils;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,23 +35,66 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class UrlServiceTests extends TestUtil {
 
     private static final int ATTEMPT_LIMIT = 5;
+    private static final int LOOKUP_MAX_BATCH_SIZE = 3;
+    private static final int SEARCH_PAGE_SIZE = 100;
+    private static final int SEARCH_MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BUCKETS = 1440;
+    private static final int HOT_LINKS_WINDOW = 5;
+    private static final int HOT_LINKS_MAX_WINDOW = 60;
+    private static final int HOT_LINKS_CAPACITY = 1000;
 
     @Mock
     private UrlRepository repo;
     @Mock
     private UrlUtil util;
+    @Mock
+    private VisitCounter visitCounter;
+    @Mock
+    private ClickCounter clickCounter;
+    @Mock
+    private UniqueVisitorCounter visitorCounter;
+    @Mock
+    private HotLinkCounter hotLinkCounter;
+    @Mock
+    private ClickStatsRepository clickStats;
+    @Mock
+    private IdGenerator idGenerator;
+    @Spy
+    private RedirectCache cache = new RedirectCache(100, Duration.ofMinutes(1), 100, Duration.ofSeconds(5),
+            new SimpleMeterRegistry());
+    @Spy
+    private ShortUrlIdFilter idFilter = new ShortUrlIdFilter(null, null, cache, Optional.empty(),
+            RedisTopology.STANDALONE, new SimpleMeterRegistry());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Spy
+    private UrlMetrics metrics = new UrlMetrics(meterRegistry);
 
     @InjectMocks
     private UrlServiceImpl service;
@@ -44,20 +105,108 @@ class UrlServiceTests extends TestUtil {
     public void setup() throws IllegalAccessException {
         testUrls = getTestUrls();
         FieldUtils.writeField(service, "attemptLimit", ATTEMPT_LIMIT, true);
+        FieldUtils.writeField(service, "deduplicateByDefault", false, true);
+        FieldUtils.writeField(service, "lookupMaxBatchSize", LOOKUP_MAX_BATCH_SIZE, true);
+        FieldUtils.writeField(service, "searchPageSize", SEARCH_PAGE_SIZE, true);
+        FieldUtils.writeField(service, "searchMaxPageSize", SEARCH_MAX_PAGE_SIZE, true);
+        FieldUtils.writeField(service, "maxBuckets", MAX_BUCKETS, true);
+        FieldUtils.writeField(service, "hotLinksWindow", HOT_LINKS_WINDOW, true);
+        FieldUtils.writeField(service, "hotLinksMaxWindow", HOT_LINKS_MAX_WINDOW, true);
+        FieldUtils.writeField(service, "hotLinksCapacity", HOT_LINKS_CAPACITY, true);
     }
 
     @DisplayName("JUnit test for createShortUrl method")
     @Test
     void givenFullUrl_whenCreateShortUrl_thenReturnUrl() {
-        var url = testUrls.get(0);
+        when(idGenerator.generateId()).thenReturn("AbCdEfG");
+        when(util.normaliseUrl(TEST_FULL_URL)).thenReturn(TEST_FULL_URL);
+        when(repo.insertIfAbsent(any(Url.class), eq(false))).thenReturn("AbCdEfG");
 
-        when(util.generateId()).thenReturn("AbCdEfG");
-        when(util.isValidUrl(TEST_FULL_URL)).thenReturn(true);
-        when(repo.findByShortUrlId("AbCdEfG")).thenReturn(Optional.empty());
-        when(service.saveUrl(TEST_FULL_URL, "AbCdEfG")).thenReturn(url);
+        var createdUrl = service.createShortUrl(TEST_FULL_URL, null, null);
 
-        var createdUrl = service.createShortUrl(TEST_FULL_URL);
         assertNotNull(createdUrl);
+        assertEquals("AbCdEfG", createdUrl.getShortUrlId());
+        assertEquals(TEST_FULL_URL, createdUrl.getFullUrl());
+        verify(repo, never()).findByShortUrlId("AbCdEfG");
+    }
+
+    @DisplayName("JUnit test for createShortUrl method which stores the canonical form of the full URL")
+    @Test
+    void givenNonCanonicalFullUrl_whenCreateShortUrl_thenStoreCanonicalFullUrl() {
+        var fullUrl = "HTTPS://Example.com/";
+
+        when(idGenerator.generateId()).thenReturn("AbCdEfG");
+        when(util.normaliseUrl(fullUrl)).thenReturn(TEST_FULL_URL);
+        when(repo.insertIfAbsent(any(Url.class), eq(false))).thenReturn("AbCdEfG");
+
+        var createdUrl = service.createShortUrl(fullUrl, null, null);
+
+        assertEquals(TEST_FULL_URL, createdUrl.getFullUrl());
+    }
+
+    @DisplayName("JUnit test for createShortUrl method which retries with a new ID when the ID is taken")
+    @Test
+    void givenTakenShortUrlId_whenCreateShortUrl_thenRetryWithNewId() {
+        when(idGenerator.generateId()).thenReturn("AbCdEfG", "aB1cD2e");
+        when(util.normaliseUrl(TEST_FULL_URL)).thenReturn(TEST_FULL_URL);
+        when(repo.insertIfAbsent(any(Url.class), eq(false))).thenReturn(null, "aB1cD2e");
+
+        var createdUrl = service.createShortUrl(TEST_FULL_URL, null, null);
+
+        assertEquals("aB1cD2e", createdUrl.getShortUrlId());
+        verify(repo, times(2)).insertIfAbsent(any(Url.class), eq(false));
+    }
+
+    @DisplayName("JUnit test for createShortUrl method which returns the existing short URL ID when deduplicating")
+    @Test
+    void givenShortenedFullUrl_whenCreateShortUrlWithDeduplication_thenReturnExistingShortUrlId() {
+        when(idGenerator.generateId()).thenReturn("AbCdEfG");
+        when(util.normaliseUrl(TEST_FULL_URL)).thenReturn(TEST_FULL_URL);
+        when(repo.insertIfAbsent(any(Url.class), eq(true))).thenReturn("aB1cD2e");
+
+        var createdUrl = service.createShortUrl(TEST_FULL_URL, true, null);
+
+        assertEquals("aB1cD2e", createdUrl.getShortUrlId());
+        assertEquals(TEST_FULL_URL, createdUrl.getFullUrl());
+    }
+
+    @DisplayName("JUnit test for createShortUrl method which doesn't deduplicate a short URL with an expiry")
+    @Test
+    void givenExpiry_whenCreateShortUrlWithDeduplication_thenInsertWithoutDeduplication() {
+        var expiresAt = Instant.now().plus(Duration.ofDays(1));
+
+        when(idGenerator.generateId()).thenReturn("AbCdEfG");
+        when(util.normaliseUrl(TEST_FULL_URL)).thenReturn(TEST_FULL_URL);
+        when(repo.insertIfAbsent(any(Url.class), eq(false))).thenReturn("AbCdEfG");
+
+        var createdUrl = service.createShortUrl(TEST_FULL_URL, true, expiresAt);
+
+        assertEquals("AbCdEfG", createdUrl.getShortUrlId());
+        assertEquals(expiresAt, createdUrl.getExpiresAt());
+        verify(repo, never()).insertIfAbsent(any(Url.class), eq(true));
+    }
+
+    @DisplayName("JUnit test for createShortUrl method which throws InvalidFieldException for a past expiry")
+    @Test
+    void givenPastExpiry_whenCreateShortUrl_thenThrowsInvalidFieldException() {
+        var expiresAt = Instant.now().minus(Duration.ofMinutes(1));
+
+        assertThrows(InvalidFieldException.class, () -> service.createShortUrl(TEST_FULL_URL, null, expiresAt));
+        verify(repo, never()).insertIfAbsent(any(Url.class), anyBoolean());
+    }
+
+    @DisplayName("JUnit test for createShortUrl method which deduplicates by default when configured")
+    @Test
+    void givenDeduplicationByDefault_whenCreateShortUrl_thenDeduplicate() throws IllegalAccessException {
+        FieldUtils.writeField(service, "deduplicateByDefault", true, true);
+
+        when(idGenerator.generateId()).thenReturn("AbCdEfG");
+        when(util.normaliseUrl(TEST_FULL_URL)).thenReturn(TEST_FULL_URL);
+        when(repo.insertIfAbsent(any(Url.class), eq(true))).thenReturn("AbCdEfG");
+
+        service.createShortUrl(TEST_FULL_URL, null, null);
+
+        verify(repo, never()).insertIfAbsent(any(Url.class), eq(false));
     }
 
     @DisplayName("JUnit test for createShortUrl method which throws ShortUrlIdGenerationException")
@@ -66,11 +215,14 @@ class UrlServiceTests extends TestUtil {
         var url = testUrls.get(0);
         var fullUrl = url.getFullUrl();
 
-        when(util.generateId()).thenReturn("AbCdEfG");
-        when(util.isValidUrl(TEST_FULL_URL)).thenReturn(true);
-        when(repo.findByShortUrlId("AbCdEfG")).thenReturn(Optional.of(url));
+        when(idGenerator.generateId()).thenReturn("AbCdEfG");
+        when(util.normaliseUrl(TEST_FULL_URL)).thenReturn(TEST_FULL_URL);
+        when(repo.insertIfAbsent(any(Url.class), eq(false))).thenReturn(null);
 
-        assertThrows(ShortUrlIdGenerationException.class, () -> service.createShortUrl(fullUrl));
+        assertThrows(ShortUrlIdGenerationException.class, () -> service.createShortUrl(fullUrl, null, null));
+        verify(repo, times(ATTEMPT_LIMIT)).insertIfAbsent(any(Url.class), eq(false));
+        assertEquals(ATTEMPT_LIMIT, meterRegistry.counter("urls.id.collisions").count());
+        assertEquals(1, meterRegistry.counter("urls.id.exhausted").count());
     }
 
     @DisplayName("JUnit test for createShortUrl method which throws MissingFieldException")
@@ -78,7 +230,7 @@ class UrlServiceTests extends TestUtil {
     void givenBlankUrl_whenCreateShortUrl_thenThrowsMissingFieldException() {
         var incorrectUrl = StringUtils.EMPTY;
 
-        assertThrows(MissingFieldException.class, () -> service.createShortUrl(incorrectUrl));
+        assertThrows(MissingFieldException.class, () -> service.createShortUrl(incorrectUrl, null, null));
     }
 
     @DisplayName("JUnit test for createShortUrl method which throws InvalidFieldException")
@@ -86,9 +238,52 @@ class UrlServiceTests extends TestUtil {
     void givenIncorrectUrl_whenCreateShortUrl_thenThrowsInvalidFieldException() {
         var incorrectUrl = INCORRECT_TEST_FULL_URL;
 
-        when(util.isValidUrl(incorrectUrl)).thenReturn(false);
+        when(util.normaliseUrl(incorrectUrl)).thenReturn(null);
 
-        assertThrows(InvalidFieldException.class, () -> service.createShortUrl(incorrectUrl));
+        assertThrows(InvalidFieldException.class, () -> service.createShortUrl(incorrectUrl, null, null));
+    }
+
+    @DisplayName("JUnit test for createShortUrls method with valid and invalid URLs")
+    @Test
+    void givenValidAndInvalidUrls_whenCreateShortUrls_thenReturnResultPerUrl() {
+        var requests = List.of(new ShortUrlRequest(TEST_FULL_URL, null),
+                new ShortUrlRequest(INCORRECT_TEST_FULL_URL, null),
+                new ShortUrlRequest(StringUtils.EMPTY, null));
+
+        when(util.normaliseUrl(TEST_FULL_URL)).thenReturn(TEST_FULL_URL);
+        when(util.normaliseUrl(INCORRECT_TEST_FULL_URL)).thenReturn(null);
+        when(idGenerator.generateIds(1)).thenReturn(List.of("AbCdEfG"));
+        when(repo.insertAllIfAbsent(anyList(), eq(false))).thenReturn(List.of("AbCdEfG"));
+
+        var results = service.createShortUrls(requests);
+
+        assertEquals(3, results.size());
+        assertEquals(new CreationResult(TEST_FULL_URL, "AbCdEfG", null), results.get(0));
+        assertNull(results.get(1).shortUrlId());
+        assertNotNull(results.get(1).error());
+        assertNull(results.get(2).shortUrlId());
+        assertNotNull(results.get(2).error());
+    }
+
+    @DisplayName("JUnit test for createShortUrls method which retries taken short URL IDs only")
+    @Test
+    void givenTakenShortUrlId_whenCreateShortUrls_thenRetryCollidedUrlsOnly() {
+        var requests = List.of(new ShortUrlRequest(TEST_FULL_URL, null), new ShortUrlRequest(TEST_FULL_URL, null));
+        var storedIds = new ArrayList<String>();
+        storedIds.add(null);
+        storedIds.add("aB1cD2e");
+
+        when(util.normaliseUrl(TEST_FULL_URL)).thenReturn(TEST_FULL_URL);
+        when(idGenerator.generateIds(2)).thenReturn(List.of("AbCdEfG", "aB1cD2e"));
+        when(idGenerator.generateIds(1)).thenReturn(List.of("XyZ1234"));
+        when(repo.insertAllIfAbsent(anyList(), eq(false))).thenReturn(storedIds)
+                .thenReturn(List.of("XyZ1234"));
+
+        var results = service.createShortUrls(requests);
+
+        assertEquals("XyZ1234", results.get(0).shortUrlId());
+        assertEquals("aB1cD2e", results.get(1).shortUrlId());
+        verify(repo, times(2)).insertAllIfAbsent(anyList(), eq(false));
     }
 
     @DisplayName("JUnit test for processRedirection method")
@@ -98,14 +293,102 @@ class UrlServiceTests extends TestUtil {
         var url = getTestUrls().get(0);
 
         when(repo.findByShortUrlId(shortUrlId)).thenReturn(Optional.of(url));
+        when(util.normaliseUrl(TEST_FULL_URL)).thenReturn(TEST_FULL_URL);
 
-        var httpHeaders = service.processRedirection(shortUrlId);
+        var httpHeaders = service.processRedirection(shortUrlId, VisitSource.UNKNOWN);
 
         assertNotNull(httpHeaders);
         assertNotNull(httpHeaders.getLocation());
         assertEquals(TEST_FULL_URL, httpHeaders.getLocation().toString());
     }
 
+    @DisplayName("JUnit test for processRedirection method which serves repeated redirections from the cache")
+    @Test
+    void givenCachedShortUrlId_whenProcessRedirection_thenRepositoryIsQueriedOnce() {
+        var shortUrlId = "AbCdEfG";
+        var url = getTestUrls().get(0);
+
+        when(repo.findByShortUrlId(shortUrlId)).thenReturn(Optional.of(url));
+        when(util.normaliseUrl(TEST_FULL_URL)).thenReturn(TEST_FULL_URL);
+
+        service.processRedirection(shortUrlId, VisitSource.UNKNOWN);
+        var httpHeaders = service.processRedirection(shortUrlId, VisitSource.UNKNOWN);
+
+        assertEquals(TEST_FULL_URL, httpHeaders.getLocation().toString());
+        verify(repo, times(1)).findByShortUrlId(shortUrlId);
+        verify(visitCounter, times(2)).increment(shortUrlId);
+        verify(clickCounter, times(2)).increment(shortUrlId, VisitSource.UNKNOWN);
+        verify(visitorCounter, times(2)).add(shortUrlId, VisitSource.UNKNOWN);
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    @DisplayName("JUnit test for processRedirection method which remembers short URL IDs that aren't found")
+    @Test
+    void givenUnknownShortUrlId_whenProcessRedirection_thenRepositoryIsQueriedOnce() {
+        var shortUrlId = "lMnOpQr";
+
+        when(repo.findByShortUrlId(shortUrlId)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> service.processRedirection(shortUrlId, VisitSource.UNKNOWN));
+        var e = assertThrows(ResourceNotFoundException.class,
+                () -> service.processRedirection(shortUrlId, VisitSource.UNKNOWN));
+
+        assertEquals(0, e.getStackTrace().length);
+        verify(repo, times(1)).findByShortUrlId(shortUrlId);
+        verifyNoInteractions(visitCounter, clickCounter);
+    }
+
+    @DisplayName("JUnit test for processRedirection method which skips the lookup of IDs the filter never saw")
+    @Test
+    void givenFilteredShortUrlId_whenProcessRedirection_thenRepositoryIsNotQueried() {
+        var shortUrlId = "lMnOpQr";
+
+        when(idFilter.mightExist(shortUrlId)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> service.processRedirection(shortUrlId, VisitSource.UNKNOWN));
+        verifyNoInteractions(repo);
+    }
+
+    @DisplayName("JUnit test for createShortUrl method which adds the ID to the filter and forgets it wasn't found")
+    @Test
+    void givenNotFoundShortUrlId_whenCreateShortUrl_thenIdIsAdded() {
+        cache.putNotFound("AbCdEfG");
+
+        when(idGenerator.generateId()).thenReturn("AbCdEfG");
+        when(util.normaliseUrl(TEST_FULL_URL)).thenReturn(TEST_FULL_URL);
+        when(repo.insertIfAbsent(any(Url.class), eq(false))).thenReturn("AbCdEfG");
+
+        service.createShortUrl(TEST_FULL_URL, null, null);
+
+        verify(idFilter).add("AbCdEfG");
+        assertFalse(cache.isNotFound("AbCdEfG"));
+    }
+
+    @DisplayName("JUnit test for processRedirection method which throws MissingFieldException")
+    @Test
+    void givenBlankShortUrlId_whenProcessRedirection_thenThrowsMissingFieldException() {
+        var shortUrlId = StringUtils.EMPTY;
+
+        assertThrows(MissingFieldException.class, () -> service.processRedirection(shortUrlId, VisitSource.UNKNOWN));
+    }
+
+    @DisplayName("JUnit test for processRedirection method which redirects to a URL stored before normalisation")
+    @Test
+    void givenUrlStoredBeforeNormalisation_whenProcessRedirection_thenRedirectToStoredUrl() {
+        var shortUrlId = "AbCdEfG";
+        var url = new Url();
+        url.setFullUrl("http://intranet:8080/wiki");
+        url.setShortUrlId(shortUrlId);
+
+        when(repo.findByShortUrlId(shortUrlId)).thenReturn(Optional.of(url));
+        when(util.isParsableUrl("http://intranet:8080/wiki")).thenReturn(true);
+
+        var httpHeaders = service.processRedirection(shortUrlId, VisitSource.UNKNOWN);
+
+        assertEquals("http://intranet:8080/wiki", httpHeaders.getFirst(HttpHeaders.LOCATION));
+    }
+
     @DisplayName("JUnit test for processRedirection method which throws InvalidFieldException")
     @Test
     void givenShortUrlId_whenProcessRedirection_thenThrowsInvalidFieldException() {
@@ -116,7 +399,7 @@ class UrlServiceTests extends TestUtil {
 
         when(repo.findByShortUrlId(shortUrlId)).thenReturn(Optional.of(url));
 
-        assertThrows(InvalidFieldException.class, () -> service.processRedirection(shortUrlId));
+        assertThrows(InvalidFieldException.class, () -> service.processRedirection(shortUrlId, VisitSource.UNKNOWN));
     }
 
     @DisplayName("JUnit test for getUrlByShortUrlId method")
@@ -150,16 +433,70 @@ class UrlServiceTests extends TestUtil {
         assertThrows(ResourceNotFoundException.class, () -> service.getUrlByShortUrlId(shortUrlId));
     }
 
+    @DisplayName("JUnit test for getUrlsByShortUrlIds method")
+    @Test
+    void givenShortUrlIds_whenGetUrlsByShortUrlIds_thenReturnFoundUrls() {
+        var url = testUrls.get(0);
+
+        when(repo.findAllByShortUrlIds(List.of(url.getShortUrlId(), "missing")))
+                .thenReturn(Map.of(url.getShortUrlId(), url));
+
+        var urls = service.getUrlsByShortUrlIds(List.of(url.getShortUrlId(), "missing", url.getShortUrlId()));
+
+        assertEquals(Map.of(url.getShortUrlId(), url), urls);
+    }
+
+    @DisplayName("JUnit test for getUrlsByShortUrlIds method which throws MissingFieldException")
+    @Test
+    void givenNoShortUrlIds_whenGetUrlsByShortUrlIds_thenThrowsMissingFieldException() {
+        assertThrows(MissingFieldException.class, () -> service.getUrlsByShortUrlIds(List.of()));
+    }
+
+    @DisplayName("JUnit test for getUrlsByShortUrlIds method which throws InvalidFieldException")
+    @Test
+    void givenTooManyShortUrlIds_whenGetUrlsByShortUrlIds_thenThrowsInvalidFieldException() {
+        var shortUrlIds = List.of("AbCdEfG", "aB1cD2e", "XyZ1234", "Qw3rTy5");
+
+        assertThrows(InvalidFieldException.class, () -> service.getUrlsByShortUrlIds(shortUrlIds));
+        verify(repo, never()).findAllByShortUrlIds(any());
+    }
+
     @DisplayName("JUnit test for getUrlsByFullUrl method")
     @Test
     void givenFullUrl_whenGetUrlsByFullUrl_thenReturnUrls() {
-        when(repo.findAllByFullUrl(TEST_FULL_URL)).thenReturn(getTestUrls());
-        when(util.sanitiseUrl(TEST_FULL_URL)).thenReturn(TEST_FULL_URL);
-        when(util.isValidUrl(TEST_FULL_URL)).thenReturn(true);
+        var page = new UrlPage(getTestUrls(), "112");
+        when(repo.findPageByFullUrl(TEST_FULL_URL, "0", SEARCH_PAGE_SIZE)).thenReturn(page);
+        when(util.normaliseUrl(TEST_FULL_URL)).thenReturn(TEST_FULL_URL);
+
+        var urls = service.getUrlsByFullUrl(TEST_FULL_URL, null, null);
+
+        assertEquals(page, urls);
+    }
+
+    @DisplayName("JUnit test for getUrlsByFullUrl method with a cursor and count")
+    @Test
+    void givenCursorAndCount_whenGetUrlsByFullUrl_thenReturnPageFromCursor() {
+        var page = new UrlPage(getTestUrls(), null);
+        when(repo.findPageByFullUrl(TEST_FULL_URL, "112", 2)).thenReturn(page);
+        when(util.normaliseUrl(TEST_FULL_URL)).thenReturn(TEST_FULL_URL);
 
-        var urls = service.getUrlsByFullUrl(TEST_FULL_URL);
+        var urls = service.getUrlsByFullUrl(TEST_FULL_URL, "112", 2);
 
-        assertEquals(getTestUrls(), urls);
+        assertEquals(page, urls);
+    }
+
+    @DisplayName("JUnit test for getUrlsByFullUrl method which throws InvalidFieldException for an invalid cursor")
+    @Test
+    void givenInvalidCursor_whenGetUrlsByFullUrl_thenThrowsInvalidFieldException() {
+        assertThrows(InvalidFieldException.class, () -> service.getUrlsByFullUrl(TEST_FULL_URL, "-1", null));
+    }
+
+    @DisplayName("JUnit test for getUrlsByFullUrl method which throws InvalidFieldException for a count too large")
+    @Test
+    void givenCountAboveMaximum_whenGetUrlsByFullUrl_thenThrowsInvalidFieldException() {
+        assertThrows(InvalidFieldException.class,
+                () -> service.getUrlsByFullUrl(TEST_FULL_URL, null, SEARCH_MAX_PAGE_SIZE + 1));
+        verify(repo, never()).findPageByFullUrl(any(), any(), anyInt());
     }
 
     @DisplayName("JUnit test for getUrlsByFullUrl method which throws MissingFieldException")
@@ -167,17 +504,16 @@ class UrlServiceTests extends TestUtil {
     void givenBlankFullUrl_whenGetUrlsByFullUrl_thenThrowsMissingFieldException() {
         var fullUrl = StringUtils.EMPTY;
 
-        assertThrows(MissingFieldException.class, () -> service.getUrlsByFullUrl(fullUrl));
+        assertThrows(MissingFieldException.class, () -> service.getUrlsByFullUrl(fullUrl, null, null));
     }
 
     @DisplayName("JUnit test for getUrlsByFullUrl method which throws MissingFieldException")
     @Test
     void givenIncorrectFullUrl_whenGetUrlsByFullUrl_thenThrowsInvalidFieldException() {
         var incorrectFullUrl = INCORRECT_TEST_FULL_URL;
-        when(util.sanitiseUrl(incorrectFullUrl)).thenReturn(incorrectFullUrl);
-        when(util.isValidUrl(incorrectFullUrl)).thenReturn(false);
+        when(util.normaliseUrl(incorrectFullUrl)).thenReturn(null);
 
-        assertThrows(InvalidFieldException.class, () -> service.getUrlsByFullUrl(incorrectFullUrl));
+        assertThrows(InvalidFieldException.class, () -> service.getUrlsByFullUrl(incorrectFullUrl, null, null));
     }
 
     @DisplayName("JUnit test for saveUrl method")
@@ -198,4 +534,109 @@ class UrlServiceTests extends TestUtil {
         assertEquals(fullUrl, savedUrl.getFullUrl());
         assertEquals(0, savedUrl.getVisits());
     }
+
+    @DisplayName("JUnit test for saveUrl method which invalidates the cached redirection")
+    @Test
+    void givenCachedShortUrlId_whenSaveUrl_thenCacheIsInvalidated() {
+        var shortUrlId = "AbCdEfG";
+        var url = getTestUrls().get(0);
+
+        when(repo.findByShortUrlId(shortUrlId)).thenReturn(Optional.of(url));
+        when(util.normaliseUrl(TEST_FULL_URL)).thenReturn(TEST_FULL_URL);
+        when(util.sanitiseUrl(TEST_FULL_URL)).thenReturn(TEST_FULL_URL);
+
+        service.processRedirection(shortUrlId, VisitSource.UNKNOWN);
+        service.saveUrl(TEST_FULL_URL, shortUrlId);
+        service.processRedirection(shortUrlId, VisitSource.UNKNOWN);
+
+        verify(repo, times(2)).findByShortUrlId(shortUrlId);
+    }
+
+    @DisplayName("JUnit test for getClicks method which returns a bucket per minute of the range")
+    @Test
+    void givenRange_whenGetClicks_thenReturnBucketPerMinute() {
+        var shortUrlId = "AbCdEfG";
+        var from = Instant.parse("2024-01-01T10:00:30Z");
+        var to = Instant.parse("2024-01-01T10:03:00Z");
+        var starts = List.of(Instant.parse("2024-01-01T10:00:00Z"), Instant.parse("2024-01-01T10:01:00Z"),
+                Instant.parse("2024-01-01T10:02:00Z"));
+        var buckets = starts.stream().map(start -> new ClickBucket(start, 1)).toList();
+        when(clickStats.findClicks(shortUrlId, Granularity.MINUTE, starts)).thenReturn(buckets);
+
+        var series = service.getClicks(shortUrlId, "minute", from, to);
+
+        assertEquals(Granularity.MINUTE, series.granularity());
+        assertEquals(buckets, series.buckets());
+    }
+
+    @DisplayName("JUnit test for getClicks method which defaults to the hours of the last day")
+    @Test
+    void givenNoRange_whenGetClicks_thenReturnLastDay() {
+        var shortUrlId = "AbCdEfG";
+        when(clickStats.findClicks(eq(shortUrlId), eq(Granularity.HOUR), anyList()))
+                .thenAnswer(invocation -> invocation.<List<Instant>>getArgument(2).stream()
+                        .map(start -> new ClickBucket(start, 0)).toList());
+
+        var buckets = service.getClicks(shortUrlId, null, null, null).buckets();
+
+        assertEquals(24, buckets.size());
+        assertTrue(buckets.get(23).start().isBefore(Instant.now()));
+        assertTrue(buckets.get(23).start().plus(Duration.ofHours(1)).isAfter(Instant.now()));
+    }
+
+    @DisplayName("JUnit test for getClicks method which throws InvalidFieldException")
+    @Test
+    void givenInvalidGranularityOrRange_whenGetClicks_thenThrowsInvalidFieldException() {
+        var from = Instant.parse("2024-01-01T10:00:00Z");
+        var to = Instant.parse("2024-01-02T10:00:00Z");
+
+        assertThrows(InvalidFieldException.class, () -> service.getClicks("AbCdEfG", "week", from, to));
+        assertThrows(InvalidFieldException.class, () -> service.getClicks("AbCdEfG", "hour", to, from));
+        assertThrows(InvalidFieldException.class,
+                () -> service.getClicks("AbCdEfG", "minute", from, to.plus(Duration.ofMinutes(1))));
+        verify(clickStats, never()).findClicks(any(), any(), anyList());
+    }
+
+    @DisplayName("JUnit test for countUniqueVisitors method which only reads the sketch when unique visitors are counted")
+    @Test
+    void givenUniqueVisitorsEnabled_whenCountUniqueVisitors_thenReturnSketchSize() throws IllegalAccessException {
+        when(clickStats.countUniqueVisitors("AbCdEfG")).thenReturn(42L);
+
+        assertNull(service.countUniqueVisitors("AbCdEfG"));
+        FieldUtils.writeField(service, "uniqueVisitors", true, true);
+        assertEquals(42L, service.countUniqueVisitors("AbCdEfG"));
+        verify(clickStats, times(1)).countUniqueVisitors("AbCdEfG");
+    }
+
+    @DisplayName("JUnit test for getHotLinks method which defaults the window and count")
+    @Test
+    void givenHotLinksEnabled_whenGetHotLinks_thenReturnTopOfDefaultWindow() throws IllegalAccessException {
+        FieldUtils.writeField(service, "hotLinks", true, true);
+        var links = List.of(new HotLink("AbCdEfG", 12), new HotLink("aB1cD2e", 3));
+        when(clickStats.findHotLinks(any(Instant.class), eq(HOT_LINKS_WINDOW), eq(10))).thenReturn(links);
+
+        var hotLinks = service.getHotLinks(null, null);
+
+        assertEquals(HOT_LINKS_WINDOW, hotLinks.windowMinutes());
+        assertEquals(links, hotLinks.links());
+    }
+
+    @DisplayName("JUnit test for getHotLinks method which returns none when hot links aren't tracked")
+    @Test
+    void givenHotLinksDisabled_whenGetHotLinks_thenReturnEmpty() {
+        var hotLinks = service.getHotLinks(15, 3);
+
+        assertEquals(15, hotLinks.windowMinutes());
+        assertTrue(hotLinks.links().isEmpty());
+        verifyNoInteractions(clickStats);
+    }
+
+    @DisplayName("JUnit test for getHotLinks method which throws InvalidFieldException")
+    @Test
+    void givenInvalidWindowOrCount_whenGetHotLinks_thenThrowsInvalidFieldException() {
+        assertThrows(InvalidFieldException.class, () -> service.getHotLinks(0, null));
+        assertThrows(InvalidFieldException.class, () -> service.getHotLinks(HOT_LINKS_MAX_WINDOW + 1, null));
+        assertThrows(InvalidFieldException.class, () -> service.getHotLinks(null, 0));
+        assertThrows(InvalidFieldException.class, () -> service.getHotLinks(null, HOT_LINKS_CAPACITY + 1));
+    }
 }
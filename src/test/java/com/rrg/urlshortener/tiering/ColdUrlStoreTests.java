@@ -0,0 +1,103 @@
+package com.rrg.urlshortener.tiering;
+
+import com.rrg.urlshortener.TestUtil;
+import com.rrg.urlshortener.model.Url;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColdUrlStoreTests extends TestUtil {
+
+    @TempDir
+    private Path dataDir;
+
+    private ColdUrlStore store;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        store = new ColdUrlStore(dataDir, 1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        store.destroy();
+    }
+
+    @DisplayName("JUnit test for putAll method which keeps the URLs once the store is reopened")
+    @Test
+    void givenPutUrls_whenReopen_thenGetSameUrls() throws IOException {
+        var urls = getTestUrls();
+
+        store.putAll(urls);
+        store.destroy();
+        store = new ColdUrlStore(dataDir, 1);
+
+        for (var url : urls) {
+            assertEquals(url, store.get(url.getShortUrlId()));
+            assertTrue(store.contains(url.getShortUrlId()));
+        }
+        assertEquals(urls.size(), store.size());
+        assertNull(store.get("zYxWvUt"));
+    }
+
+    @DisplayName("JUnit test for addVisits method which only adds visits to the URLs held")
+    @Test
+    void givenHeldAndUnknownIds_whenAddVisits_thenAddToHeldOnly() {
+        var url = newUrl("AbCdEfG", 3);
+        store.putAll(List.of(url));
+
+        store.addVisits(Map.of("AbCdEfG", 4L, "zYxWvUt", 5L));
+
+        assertEquals(7, store.get("AbCdEfG").getVisits());
+        assertEquals(TEST_FULL_URL, store.get("AbCdEfG").getFullUrl());
+        assertFalse(store.contains("zYxWvUt"));
+    }
+
+    @DisplayName("JUnit test for removeAll method which removes the URLs")
+    @Test
+    void givenPutUrl_whenRemoveAll_thenUrlIsGone() {
+        store.putAll(List.of(newUrl("AbCdEfG", 0)));
+
+        store.removeAll(List.of("AbCdEfG"));
+
+        assertNull(store.get("AbCdEfG"));
+        assertEquals(0, store.size());
+    }
+
+    @DisplayName("JUnit test for removeExpired method which removes expired URLs and keeps the others")
+    @Test
+    void givenExpiredAndExpiringUrls_whenRemoveExpired_thenOnlyExpiringUrlIsKept() {
+        var expired = newUrl("AbCdEfG", 1);
+        expired.setExpiresAt(Instant.now().minusSeconds(1));
+        var expiring = newUrl("aB1cD2e", 2);
+        expiring.setExpiresAt(Instant.now().plus(Duration.ofDays(1)).truncatedTo(ChronoUnit.MILLIS));
+        store.putAll(List.of(expired, expiring));
+
+        assertNull(store.get("AbCdEfG"));
+        assertFalse(store.contains("AbCdEfG"));
+        assertEquals(1, store.removeExpired(10));
+
+        assertEquals(expiring, store.get("aB1cD2e"));
+        assertEquals(1, store.size());
+    }
+
+    private Url newUrl(String shortUrlId, long visits) {
+        var url = new Url();
+        url.setShortUrlId(shortUrlId);
+        url.setFullUrl(TEST_FULL_URL);
+        url.setVisits(visits);
+        return url;
+    }
+}
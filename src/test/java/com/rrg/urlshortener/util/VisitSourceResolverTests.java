@@ -0,0 +1,49 @@
+package com.rrg.urlshortener.util;
+
+import com.rrg.urlshortener.model.VisitSource;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VisitSourceResolverTests {
+
+    private static final Map<String, String> HEADERS = Map.of("Referer", "https://t.co/xYz", "CF-IPCountry", "fr",
+            "User-Agent", "Mozilla/5.0");
+
+    private final VisitSourceResolver resolver = new VisitSourceResolver();
+
+    @BeforeEach
+    public void setup() throws IllegalAccessException {
+        FieldUtils.writeField(resolver, "countryHeader", "CF-IPCountry", true);
+        FieldUtils.writeField(resolver, "clientKey", List.of(VisitSourceResolver.REMOTE_ADDRESS, "User-Agent"), true);
+    }
+
+    @DisplayName("JUnit test for resolve method which leaves the visitor out unless unique visitors are counted")
+    @Test
+    void givenUniqueVisitorsDisabled_whenResolve_thenReturnSourceWithoutVisitor() {
+        var source = resolver.resolve(HEADERS::get, () -> {
+            throw new AssertionError("The remote address isn't needed");
+        });
+
+        assertEquals(new VisitSource("t.co", "FR"), source);
+    }
+
+    @DisplayName("JUnit test for resolve method which hashes the client key into the visitor")
+    @Test
+    void givenUniqueVisitorsEnabled_whenResolve_thenVisitorDependsOnClientKeyOnly() throws IllegalAccessException {
+        FieldUtils.writeField(resolver, "uniqueVisitors", true, true);
+
+        var visitor = resolver.resolve(HEADERS::get, () -> "203.0.113.7").visitor();
+
+        assertNotEquals(VisitSource.NO_VISITOR, visitor);
+        assertEquals(visitor, resolver.resolve(Map.of("User-Agent", "Mozilla/5.0")::get, () -> "203.0.113.7").visitor());
+        assertNotEquals(visitor, resolver.resolve(HEADERS::get, () -> "203.0.113.8").visitor());
+        assertNotEquals(visitor, resolver.resolve(Map.of("User-Agent", "7Mozilla/5.0")::get, () -> "203.0.113.").visitor());
+    }
+}